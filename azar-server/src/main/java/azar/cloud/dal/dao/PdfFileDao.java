@@ -1,12 +1,32 @@
 package azar.cloud.dal.dao;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import azar.cloud.entities.db.PdfFile;
+import azar.cloud.entities.db.PdfTextStatus;
+import azar.cloud.entities.db.ThumbnailStatus;
+import azar.cloud.entities.requests.pdf.PdfSearchRequest;
+import azar.cloud.entities.responses.PdfTextHit;
+import static azar.cloud.utils.Constants.DEFAULT_PAGE_SORT;
+import azar.shared.dal.blob.BlobRef;
+import azar.shared.dal.dao.BlobDao;
 import azar.shared.dal.dao.GenericDao;
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Page;
-import io.quarkus.panache.common.Sort;
+import azar.shared.dal.keyset.KeysetQuery;
+import azar.shared.dal.keyset.KeysetSort;
+import azar.shared.entities.responses.PageResponse;
+import azar.shared.utils.Utilities;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.TypedQuery;
 
 /**
  * Author: Shahar Azar
@@ -14,22 +34,431 @@ import jakarta.enterprise.context.ApplicationScoped;
  **/
 @ApplicationScoped
 public class PdfFileDao extends GenericDao<azar.cloud.entities.db.PdfFile> {
+    // only the listed columns are selected, so neither the thumbnail large objects nor the content are ever read
+    private static final String CLIENT_SELECT = "select new azar.cloud.entities.client.PdfFile(p.id, p.uploadedBy, p.fileName, " +
+            "p.contentType, p.labels, p.size, p.uploadedAt, p.description) from PdfFile p";
+    private static final KeysetQuery<azar.cloud.entities.client.PdfFile, azar.cloud.entities.client.PdfFile> CLIENT_QUERY =
+            KeysetQuery.<azar.cloud.entities.client.PdfFile, azar.cloud.entities.client.PdfFile>builder()
+                    .select(CLIENT_SELECT)
+                    .resultType(azar.cloud.entities.client.PdfFile.class)
+                    .mapper(Function.identity())
+                    .build();
+    // each one matches an index of V13, or the primary key
+    private static final Map<String, KeysetSort<azar.cloud.entities.client.PdfFile>> PAGE_SORTS = Map.of(
+            DEFAULT_PAGE_SORT, KeysetSort.<azar.cloud.entities.client.PdfFile>named(DEFAULT_PAGE_SORT)
+                    .thenById("p.id", Long.class, azar.cloud.entities.client.PdfFile::getId),
+            "newest", KeysetSort.<azar.cloud.entities.client.PdfFile>named("newest")
+                    .desc("p.uploadedAt", Instant.class, azar.cloud.entities.client.PdfFile::getUploadedAt)
+                    .thenById("p.id", Long.class, azar.cloud.entities.client.PdfFile::getId),
+            "name", KeysetSort.<azar.cloud.entities.client.PdfFile>named("name")
+                    .asc("p.fileName", String.class, azar.cloud.entities.client.PdfFile::getFileName)
+                    .thenById("p.id", Long.class, azar.cloud.entities.client.PdfFile::getId));
 
-    public List<PdfFile> getAllClientPaginated(int page, int size) {
+    /**
+     * Reads a page of PDFs as the client lists them, by OFFSET. Kept for page-numbered clients, prefer getPage.
+     */
+    public List<azar.cloud.entities.client.PdfFile> getAllClientPaginated(int page, int size) {
         int pageIndex = Math.max(0, page - 1);      // 1-based -> 0-based
         int pageSize = Math.max(1, size);
 
-        PanacheQuery<PdfFile> q = findAll(Sort.by("id")); // stable order matters for paging
-        q.page(Page.of(pageIndex, pageSize));
-        return q.list();
+        return getEntityManager()
+                .createQuery(CLIENT_SELECT + " order by p.id", // stable order matters for paging
+                        azar.cloud.entities.client.PdfFile.class)
+                .setFirstResult(pageIndex * pageSize)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    /**
+     * Reads the page of PDFs, as the client lists them, that follows a cursor.
+     *
+     * @param sort   - id, newest or name
+     * @param cursor - the nextCursor of the previous page, null or blank for the first page
+     * @param limit  - the page size
+     *
+     * @return the page, the cursor of the next one and the approximate amount of PDFs
+     * @throws IllegalArgumentException if the sort is unknown or the cursor is malformed
+     */
+    public PageResponse<azar.cloud.entities.client.PdfFile> getPage(String sort, String cursor, int limit) {
+        return findPage(CLIENT_QUERY, pageSort(sort), cursor, limit);
+    }
+
+    /**
+     * Reads the page of PDFs matching a search that follows a cursor. The filters are served by the V14 indexes.
+     *
+     * @param request - the filters, every one that is set has to match
+     * @param sort    - id, newest or name
+     * @param cursor  - the nextCursor of the previous page, null or blank for the first page
+     * @param limit   - the page size
+     *
+     * @return the page and the cursor of the next one, the total only when nothing is filtered
+     * @throws IllegalArgumentException if the sort or date range is invalid or the cursor is malformed
+     */
+    public PageResponse<azar.cloud.entities.client.PdfFile> search(PdfSearchRequest request, String sort, String cursor, int limit) {
+        SearchFilter filter = SearchFilter.of(request);
+        KeysetQuery<azar.cloud.entities.client.PdfFile, azar.cloud.entities.client.PdfFile> query =
+                KeysetQuery.<azar.cloud.entities.client.PdfFile, azar.cloud.entities.client.PdfFile>builder()
+                        .select(CLIENT_SELECT)
+                        .where(filter.where())
+                        .parameters(filter.parameters)
+                        .resultType(azar.cloud.entities.client.PdfFile.class)
+                        .mapper(Function.identity())
+                        .build();
+        return findPage(query, pageSort(sort), cursor, limit);
+    }
+
+    public long countMatches(PdfSearchRequest request) {
+        SearchFilter filter = SearchFilter.of(request);
+        TypedQuery<Long> query = getEntityManager().createQuery("select count(p) from PdfFile p" + filter.whereClause(), Long.class);
+        filter.parameters.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    /**
+     * Counts the labels of the PDFs matching a search, grouped in the database over the unnested label arrays.
+     *
+     * @param request - the filters, every one that is set has to match
+     * @param max     - the maximum amount of labels
+     *
+     * @return label -> amount of matching PDFs, most common first
+     */
+    public Map<String, Long> getLabelFacets(PdfSearchRequest request, int max) {
+        SearchFilter filter = SearchFilter.of(request);
+        TypedQuery<Object[]> query = getEntityManager().createQuery("select l, count(p) from PdfFile p join lateral unnest(p.labels) l" +
+                filter.whereClause() + " group by l order by count(p) desc, l", Object[].class);
+        filter.parameters.forEach(query::setParameter);
+        Map<String, Long> facets = new LinkedHashMap<>();
+        for (Object[] row : query.setMaxResults(max).getResultList()) {
+            facets.put((String) row[0], (Long) row[1]);
+        }
+        return facets;
     }
 
     public String getOwnerByPdfId(Integer pdfId) {
-        return findById(pdfId).getUploadedBy();
+        return getEntityManager()
+                .createQuery("select p.uploadedBy from PdfFile p where p.id = :id", String.class)
+                .setParameter("id", Long.valueOf(pdfId))
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Inserts a PDF pointing at content that is already stored as a blob, so it never sits in the heap.
+     * pdfFile.thumbnail is ignored, it is filled later by updateThumbnail.
+     *
+     * @param pdfFile - the PDF metadata, pdfFile.dataHash must be the blob hash
+     *
+     * @return the id of the new row
+     */
+    public Long insertMetadata(PdfFile pdfFile) {
+        String sql = "INSERT INTO pdf_files (uploadedBy, fileName, contentType, labels, size, uploadedAt, thumbnailStatus, dataHash) " +
+                "VALUES (:uploadedBy, :fileName, :contentType, '{}', :size, :uploadedAt, :thumbnailStatus, :dataHash) " +
+                "RETURNING id";
+        Object id = getEntityManager()
+                .createNativeQuery(sql)
+                .setParameter("uploadedBy", pdfFile.getUploadedBy())
+                .setParameter("fileName", pdfFile.getFileName())
+                .setParameter("contentType", pdfFile.getContentType())
+                .setParameter("size", pdfFile.getSize())
+                .setParameter("uploadedAt", LocalDateTime.ofInstant(pdfFile.getUploadedAt(), ZoneOffset.UTC))
+                .setParameter("thumbnailStatus", pdfFile.getThumbnailStatus().name())
+                .setParameter("dataHash", pdfFile.getDataHash())
+                .getSingleResult();
+        return ((Number) id).longValue();
+    }
+
+    /**
+     * Replaces the thumbnail of a PDF, unlinking the previous thumbnail large object if there was one.
+     *
+     * @param pdfId     - the PDF id
+     * @param thumbnail - the new thumbnail bytes
+     *
+     * @return true if the PDF still exists
+     */
+    public boolean updateThumbnail(Long pdfId, byte[] thumbnail) {
+        unlinkThumbnail(pdfId);
+        return getEntityManager()
+                .createNativeQuery("UPDATE pdf_files SET thumbnail = lo_from_bytea(0, :thumbnail), thumbnailStatus = :status, " +
+                        "thumbnailHash = :hash WHERE id = :id")
+                .setParameter("thumbnail", thumbnail)
+                .setParameter("hash", Utilities.sha256Hex(thumbnail))
+                .setParameter("status", ThumbnailStatus.READY.name())
+                .setParameter("id", pdfId)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Reads a batch of thumbnails that are still stored as PNG, ordered by PDF id.
+     * Only the first bytes of each large object are read to tell its format.
+     *
+     * @param afterId - only PDFs after this id are read
+     * @param limit   - the maximum amount of thumbnails
+     *
+     * @return the thumbnails by PDF id
+     */
+    public Map<Long, byte[]> getPngThumbnails(Long afterId, int limit) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("SELECT p.id, lo_get(p.thumbnail) FROM pdf_files p WHERE p.id > :afterId " +
+                        "AND p.thumbnail IS NOT NULL AND lo_get(p.thumbnail, 0, 4) = decode('89504e47', 'hex') " +
+                        "ORDER BY p.id LIMIT :limit")
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(Object[].class::cast)
+                .collect(Collectors.toMap(row -> ((Number) row[0]).longValue(), row -> (byte[]) row[1],
+                        (first, second) -> first, LinkedHashMap::new));
+    }
+
+    private void unlinkThumbnail(Long pdfId) {
+        getEntityManager()
+                .createNativeQuery("SELECT lo_unlink(p.thumbnail) FROM pdf_files p WHERE p.id = :id AND p.thumbnail IS NOT NULL")
+                .setParameter("id", pdfId)
+                .getResultList();
+    }
+
+    /**
+     * Deletes a PDF row and its thumbnail large object, without loading the row.
+     * The content belongs to the blob store and is left alone.
+     *
+     * @param pdfId - the PDF id
+     *
+     * @return true if the PDF existed
+     */
+    public boolean deleteWithThumbnail(Integer pdfId) {
+        List<?> thumbnails = getEntityManager()
+                .createNativeQuery("DELETE FROM pdf_files WHERE id = :id RETURNING thumbnail")
+                .setParameter("id", pdfId)
+                .getResultList();
+        thumbnails.stream()
+                .filter(Objects::nonNull)
+                .forEach(oid -> getEntityManager()
+                        .createNativeQuery("SELECT lo_unlink(:oid)")
+                        .setParameter("oid", ((Number) oid).longValue())
+                        .getSingleResult());
+        return !thumbnails.isEmpty();
+    }
+
+    public String getDataHash(Integer pdfId) {
+        return getEntityManager()
+                .createQuery("select p.dataHash from PdfFile p where p.id = :id", String.class)
+                .setParameter("id", Long.valueOf(pdfId))
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    public void updateThumbnailStatus(Long pdfId, ThumbnailStatus thumbnailStatus) {
+        update("thumbnailStatus = ?1 where id = ?2", thumbnailStatus, pdfId);
+    }
+
+    public ThumbnailStatus getThumbnailStatus(Integer pdfId) {
+        return getEntityManager()
+                .createQuery("select p.thumbnailStatus from PdfFile p where p.id = :id", ThumbnailStatus.class)
+                .setParameter("id", Long.valueOf(pdfId))
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    public String getThumbnailHash(Integer pdfId) {
+        return getEntityManager()
+                .createQuery("select p.thumbnailHash from PdfFile p where p.id = :id", String.class)
+                .setParameter("id", Long.valueOf(pdfId))
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Resolves the blob behind a PDF without reading its content.
+     *
+     * @param pdfId - the PDF id
+     *
+     * @return a reference to the PDF data, or null if the PDF doesn't exist
+     */
+    public BlobRef getDataRef(Integer pdfId) {
+        String sql = "SELECT p.fileName, " + BlobDao.qualifiedColumns("b") + " FROM pdf_files p " +
+                "JOIN blobs b ON b.hash = p.dataHash WHERE p.id = :id";
+        List<?> rows = getEntityManager()
+                .createNativeQuery(sql)
+                .setParameter("id", pdfId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return new BlobRef((String) row[0], BlobDao.toBlob(row, 1));
+    }
+
+    public boolean hasText(String dataHash) {
+        return !getEntityManager()
+                .createNativeQuery("SELECT 1 FROM pdf_texts WHERE dataHash = :hash")
+                .setParameter("hash", dataHash)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Stores the text extracted from a PDF content, replacing a previous extraction of the same content.
+     *
+     * @param dataHash - the content hash
+     * @param status   - whether the extraction worked
+     * @param content  - the extracted text, empty when it failed
+     *
+     * @return false if the content was deleted in the meantime
+     */
+    public boolean saveText(String dataHash, PdfTextStatus status, String content) {
+        // selecting from blobs skips content that was deleted while it was extracted, instead of failing the FK
+        return getEntityManager()
+                .createNativeQuery("INSERT INTO pdf_texts (dataHash, status, content) " +
+                        "SELECT b.hash, :status, :content FROM blobs b WHERE b.hash = :hash " +
+                        "ON CONFLICT (dataHash) DO UPDATE SET status = excluded.status, content = excluded.content, " +
+                        "extractedAt = now() AT TIME ZONE 'UTC'")
+                .setParameter("hash", dataHash)
+                .setParameter("status", status.name())
+                .setParameter("content", content)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Finds PDF contents whose text was never extracted, e.g. PDFs uploaded before text search existed
+     * or whose job was lost on restart.
+     *
+     * @param limit - the maximum amount of hashes
+     *
+     * @return the content hashes
+     */
+    public List<String> getHashesWithoutText(int limit) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("SELECT DISTINCT p.dataHash FROM pdf_files p " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM pdf_texts t WHERE t.dataHash = p.dataHash) LIMIT :limit")
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream().map(String.class::cast).toList();
+    }
+
+    /**
+     * Full-text search over the extracted PDF text, best matches first.
+     * Snippets are only built for the returned hits, since ts_headline has to re-parse the whole text.
+     *
+     * @param query - web search syntax: words, "quoted phrases", or, -excluded
+     * @param limit - the maximum amount of hits
+     *
+     * @return the matching PDFs with their rank and snippet
+     */
+    public List<PdfTextHit> searchText(String query, int limit) {
+        String sql = "SELECT h.id, h.fileName, h.uploadedBy, h.uploadedAt, h.rank, " +
+                "ts_headline('simple', h.content, h.query, 'MaxFragments=2, MaxWords=20, MinWords=5') " +
+                "FROM (SELECT p.id, p.fileName, p.uploadedBy, p.uploadedAt, t.content, q.query, " +
+                "ts_rank_cd(t.search_vector, q.query) AS rank " +
+                "FROM websearch_to_tsquery('simple', :query) q(query) " +
+                "JOIN pdf_texts t ON t.search_vector @@ q.query " +
+                "JOIN pdf_files p ON p.dataHash = t.dataHash " +
+                "ORDER BY rank DESC, p.id LIMIT :limit) h " +
+                "ORDER BY h.rank DESC, h.id";
+        List<?> rows = getEntityManager()
+                .createNativeQuery(sql)
+                .setParameter("query", query)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(Object[].class::cast)
+                .map(row -> new PdfTextHit(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                        toInstant(row[3]), ((Number) row[4]).doubleValue(), (String) row[5]))
+                .toList();
     }
 
     @Override
     protected boolean hasThumbnail() {
         return true;
     }
+
+    // uploadedAt is stored as UTC without a zone, see insertMetadata
+    private static Instant toInstant(Object uploadedAt) {
+        return ((LocalDateTime) uploadedAt).toInstant(ZoneOffset.UTC);
+    }
+
+    private static KeysetSort<azar.cloud.entities.client.PdfFile> pageSort(String sort) {
+        KeysetSort<azar.cloud.entities.client.PdfFile> keysetSort = PAGE_SORTS.get(sort);
+        if (keysetSort == null) {
+            throw new IllegalArgumentException("Unknown sort %s, expected one of %s".formatted(sort, PAGE_SORTS.keySet()));
+        }
+        return keysetSort;
+    }
+
+    /**
+     * A search request as a JPQL condition over p. The labels are bound as arrays, so Hibernate renders
+     * the && and @> operators the GIN index serves.
+     */
+    private static class SearchFilter {
+        private final StringJoiner conditions = new StringJoiner(" and ");
+        private final Map<String, Object> parameters = new HashMap<>();
+
+        static SearchFilter of(PdfSearchRequest request) {
+            SearchFilter filter = new SearchFilter();
+            if (request == null) {
+                return filter;
+            }
+            if (request.getUploadedFrom() != null && request.getUploadedTo() != null &&
+                    !request.getUploadedFrom().isBefore(request.getUploadedTo())) {
+                throw new IllegalArgumentException("uploadedFrom must be before uploadedTo");
+            }
+
+            String[] anyLabels = labels(request.getAnyLabels());
+            if (anyLabels.length > 0) {
+                filter.add("array_intersects(p.labels, :anyLabels)", "anyLabels", anyLabels);
+            }
+            String[] allLabels = labels(request.getAllLabels());
+            if (allLabels.length > 0) {
+                filter.add("array_includes(p.labels, :allLabels)", "allLabels", allLabels);
+            }
+            if (request.getUploadedBy() != null && !request.getUploadedBy().isBlank()) {
+                filter.add("p.uploadedBy = :uploadedBy", "uploadedBy", request.getUploadedBy());
+            }
+            if (request.getUploadedFrom() != null) {
+                filter.add("p.uploadedAt >= :uploadedFrom", "uploadedFrom", request.getUploadedFrom());
+            }
+            if (request.getUploadedTo() != null) {
+                filter.add("p.uploadedAt < :uploadedTo", "uploadedTo", request.getUploadedTo());
+            }
+            if (request.getFileNamePrefix() != null && !request.getFileNamePrefix().isBlank()) {
+                // without an explicit escape character Hibernate renders escape '', which disables escaping
+                String prefix = request.getFileNamePrefix().toLowerCase(Locale.ROOT)
+                        .replace("\\", "\\\\")
+                        .replace("%", "\\%")
+                        .replace("_", "\\_");
+                filter.add("lower(p.fileName) like :fileNamePrefix escape '\\'", "fileNamePrefix", prefix + "%");
+            }
+            return filter;
+        }
+
+        private static String[] labels(List<String> labels) {
+            if (labels == null) {
+                return new String[0];
+            }
+            return labels.stream()
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .filter(label -> !label.isEmpty())
+                    .distinct()
+                    .toArray(String[]::new);
+        }
+
+        private void add(String condition, String parameter, Object value) {
+            conditions.add(condition);
+            parameters.put(parameter, value);
+        }
+
+        // null when nothing is filtered
+        String where() {
+            return parameters.isEmpty() ? null : conditions.toString();
+        }
+
+        String whereClause() {
+            return parameters.isEmpty() ? "" : " where " + conditions;
+        }
+    }
+
 }
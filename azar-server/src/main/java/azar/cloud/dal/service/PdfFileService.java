@@ -1,11 +1,24 @@
 package azar.cloud.dal.service;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import azar.cloud.dal.dao.PdfFileDao;
 import azar.cloud.entities.db.PdfFile;
+import azar.cloud.entities.db.PdfTextStatus;
+import azar.cloud.entities.db.ThumbnailStatus;
+import azar.cloud.entities.requests.pdf.PdfSearchRequest;
+import azar.cloud.entities.responses.PdfSearchResponse;
+import azar.cloud.entities.responses.PdfTextHit;
+import static azar.cloud.utils.Constants.MAX_LABEL_FACETS;
+import azar.shared.dal.blob.BlobRef;
 import azar.shared.dal.dao.GenericDao;
+import azar.shared.dal.service.BlobService;
 import azar.shared.dal.service.GenericService;
+import azar.shared.entities.db.Blob;
+import azar.shared.entities.responses.PageResponse;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.StreamingOutput;
 
 /**
  * Author: Shahar Azar
@@ -15,9 +28,11 @@ import jakarta.enterprise.context.ApplicationScoped;
 public class PdfFileService extends GenericService<azar.cloud.entities.db.PdfFile> {
 
     private final PdfFileDao pdfFileDao;
+    private final BlobService blobService;
 
-    public PdfFileService(PdfFileDao pdfFileDao) {
+    public PdfFileService(PdfFileDao pdfFileDao, BlobService blobService) {
         this.pdfFileDao = pdfFileDao;
+        this.blobService = blobService;
     }
 
     @Override
@@ -29,10 +44,115 @@ public class PdfFileService extends GenericService<azar.cloud.entities.db.PdfFil
         return pdfFileDao.getThumbnailById("pdf_files", id);
     }
 
-    public List<PdfFile> getAllClientPaginated(int page, int size) {
+    public boolean updateThumbnail(Long pdfId, byte[] thumbnail) {
+        return pdfFileDao.updateThumbnail(pdfId, thumbnail);
+    }
+
+    public Map<Long, byte[]> getPngThumbnails(Long afterId, int limit) {
+        return pdfFileDao.getPngThumbnails(afterId, limit);
+    }
+
+    public void updateThumbnailStatus(Long pdfId, ThumbnailStatus thumbnailStatus) {
+        pdfFileDao.updateThumbnailStatus(pdfId, thumbnailStatus);
+    }
+
+    public ThumbnailStatus getThumbnailStatus(Integer pdfId) {
+        return pdfFileDao.getThumbnailStatus(pdfId);
+    }
+
+    public String getThumbnailHash(Integer pdfId) {
+        return pdfFileDao.getThumbnailHash(pdfId);
+    }
+
+    public List<azar.cloud.entities.client.PdfFile> getAllClientPaginated(int page, int size) {
         return pdfFileDao.getAllClientPaginated(page, size);
     }
 
+    public PageResponse<azar.cloud.entities.client.PdfFile> getPage(String sort, String cursor, int limit) {
+        return pdfFileDao.getPage(sort, cursor, limit);
+    }
+
+    /**
+     * Searches PDFs page by page. The first page also carries the amount of matches and the label facets,
+     * later pages only follow the cursor so they skip both aggregations.
+     *
+     * @param request - the filters, every one that is set has to match
+     * @param sort    - id, newest or name
+     * @param cursor  - the nextCursor of the previous page, null or blank for the first page
+     * @param limit   - the page size
+     *
+     * @return the page of matches
+     * @throws IllegalArgumentException if the sort or date range is invalid or the cursor is malformed
+     */
+    public PdfSearchResponse search(PdfSearchRequest request, String sort, String cursor, int limit) {
+        PageResponse<azar.cloud.entities.client.PdfFile> page = pdfFileDao.search(request, sort, cursor, limit);
+        if (cursor != null && !cursor.isBlank()) {
+            return new PdfSearchResponse(page.getItems(), page.getNextCursor(), null, null);
+        }
+        // an unfiltered search already has the approximate total
+        Long total = page.getTotal() != null ? page.getTotal() : pdfFileDao.countMatches(request);
+        return new PdfSearchResponse(page.getItems(), page.getNextCursor(), total,
+                pdfFileDao.getLabelFacets(request, MAX_LABEL_FACETS));
+    }
+
+    public List<PdfTextHit> searchText(String query, int limit) {
+        return pdfFileDao.searchText(query, limit);
+    }
+
+    public boolean hasText(String dataHash) {
+        return pdfFileDao.hasText(dataHash);
+    }
+
+    public boolean saveText(String dataHash, PdfTextStatus status, String content) {
+        return pdfFileDao.saveText(dataHash, status, content);
+    }
+
+    public List<String> getHashesWithoutText(int limit) {
+        return pdfFileDao.getHashesWithoutText(limit);
+    }
+
+    /**
+     * Resolves PDF content by hash, for work that's done per content rather than per PDF.
+     *
+     * @return a reference to the content, or null if it was deleted
+     */
+    public BlobRef getContentRef(String dataHash) {
+        Blob blob = blobService.getByHash(dataHash);
+        return blob == null ? null : new BlobRef(dataHash, blob);
+    }
+
+    public PdfFile saveStreamed(PdfFile pdfFile, Path dataFile) {
+        Blob blob = blobService.store(dataFile);
+        pdfFile.setDataHash(blob.getHash());
+        pdfFile.setId(pdfFileDao.insertMetadata(pdfFile));
+        return pdfFile;
+    }
+
+    /**
+     * Deletes a PDF together with its thumbnail, and releases its content blob.
+     */
+    @Override
+    public boolean removeById(Integer id) {
+        String dataHash = pdfFileDao.getDataHash(id);
+        if (dataHash == null || !pdfFileDao.deleteWithThumbnail(id)) {
+            return false;
+        }
+        blobService.release(dataHash);
+        return true;
+    }
+
+    public BlobRef getDataRef(Integer pdfId) {
+        return pdfFileDao.getDataRef(pdfId);
+    }
+
+    public StreamingOutput streamData(BlobRef dataRef, long offset, long length) {
+        return blobService.stream(dataRef.getBlob(), offset, length);
+    }
+
+    public Object responseBody(BlobRef dataRef, long offset, long length) {
+        return blobService.responseBody(dataRef.getBlob(), offset, length);
+    }
+
     public String getOwnerByPdfId(Integer pdfId) {
         return pdfFileDao.getOwnerByPdfId(pdfId);
     }
@@ -0,0 +1,24 @@
+package azar.cloud.entities.client;
+
+import azar.shared.entities.db.UserType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: A user as it is listed to clients, without the password hash
+ **/
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class User {
+    private Integer id;
+    private String firstName;
+    private String lastName;
+    private String userName;
+    private UserType userType;
+}
@@ -2,15 +2,23 @@ package azar.cloud.entities.db;
 
 import java.time.Instant;
 import java.util.List;
+import static azar.cloud.utils.Constants.PDF_STREAM_URL;
+import static azar.cloud.utils.Constants.PDF_THUMBNAIL_URL;
+import azar.shared.json.BinaryOwner;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -22,7 +30,7 @@ import lombok.Setter;
 @Table(name = "pdf_files")
 @Getter
 @Setter
-public class PdfFile extends PanacheEntityBase {
+public class PdfFile extends PanacheEntityBase implements BinaryOwner {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,8 +42,8 @@ public class PdfFile extends PanacheEntityBase {
     @Column(nullable = false)
     private String fileName;
 
-    @Lob
-    @Column(nullable = false)
+    // the content lives in the dataHash blob, which other rows may share, and is streamed from there
+    @Transient
     private byte[] data;
 
     private String contentType;
@@ -52,13 +60,37 @@ public class PdfFile extends PanacheEntityBase {
     @Column
     private String description;
 
+    // read through lo_get when it's needed, loading a PdfFile never reads the large object
     @Lob
-    @Column(nullable = false)
+    @Basic(fetch = FetchType.LAZY)
+    @Column
     private byte[] thumbnail;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ThumbnailStatus thumbnailStatus = ThumbnailStatus.READY;
+
+    @Column(nullable = false)
+    private String dataHash;
+
+    @Column
+    private String thumbnailHash;
+
     @PrePersist
     protected void onCreate() {
         uploadedAt = Instant.now();
     }
 
+    @Override
+    public String binaryUrl(String field) {
+        if (id == null) {
+            return null;
+        }
+        return switch (field) {
+            case "data" -> PDF_STREAM_URL.formatted(id);
+            case "thumbnail" -> PDF_THUMBNAIL_URL.formatted(id);
+            default -> null;
+        };
+    }
+
 }
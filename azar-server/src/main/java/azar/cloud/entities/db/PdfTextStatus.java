@@ -0,0 +1,11 @@
+package azar.cloud.entities.db;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Outcome of extracting a PDF content's text, content without a status wasn't extracted yet
+ **/
+public enum PdfTextStatus {
+    READY,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package azar.cloud.entities.db;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+public enum ThumbnailStatus {
+    PENDING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,39 @@
+package azar.cloud.entities.requests.pdf;
+
+import java.time.Instant;
+import java.util.List;
+import azar.shared.entities.requests.BaseRequest;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: PDF search filters, every filter that is set has to match
+ **/
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class PdfSearchRequest extends BaseRequest {
+    // at least one of these labels
+    private List<String> anyLabels;
+
+    // every one of these labels
+    private List<String> allLabels;
+
+    private String uploadedBy;
+
+    // inclusive
+    private Instant uploadedFrom;
+
+    // exclusive
+    private Instant uploadedTo;
+
+    // case-insensitive
+    private String fileNamePrefix;
+}
@@ -0,0 +1,26 @@
+package azar.cloud.entities.responses;
+
+import java.util.List;
+import java.util.Map;
+import azar.cloud.entities.client.PdfFile;
+import azar.shared.entities.responses.PageResponse;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@RegisterForReflection
+public class PdfSearchResponse extends PageResponse<PdfFile> {
+    // label -> amount of matching PDFs, most common first. Like total, only sent with the first page
+    private Map<String, Long> labelFacets;
+
+    public PdfSearchResponse(List<PdfFile> items, String nextCursor, Long total, Map<String, Long> labelFacets) {
+        super(items, nextCursor, total);
+        this.labelFacets = labelFacets;
+    }
+}
@@ -0,0 +1,29 @@
+package azar.cloud.entities.responses;
+
+import java.time.Instant;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: A PDF whose content matched a full-text search, with the passages that matched
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class PdfTextHit {
+    private Long id;
+    private String fileName;
+    private String uploadedBy;
+    private Instant uploadedAt;
+
+    // higher is more relevant
+    private Double rank;
+
+    // matched words are wrapped in <b></b>, the surrounding text is sent as it was extracted, unescaped
+    private String snippet;
+}
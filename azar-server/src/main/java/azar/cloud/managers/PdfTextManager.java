@@ -0,0 +1,109 @@
+package azar.cloud.managers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import azar.cloud.dal.service.PdfFileService;
+import azar.cloud.entities.db.PdfTextStatus;
+import azar.cloud.text.PdfTextExtractor;
+import azar.shared.dal.blob.BlobRef;
+import azar.shared.managers.AfterCommitWorkerPool;
+import azar.shared.properties.AppProperties;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Extracts the text of uploaded PDFs for full-text search, on a bounded background worker pool.
+ *          Text is kept per content hash, so every distinct content is extracted once
+ **/
+@ApplicationScoped
+public class PdfTextManager {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final PdfFileService pdfFileService;
+    private final PdfTextExtractor extractor;
+    private final AfterCommitWorkerPool<String> workers;
+
+    public PdfTextManager(AppProperties appProperties, PdfFileService pdfFileService,
+                          TransactionSynchronizationRegistry transactionSynchronizationRegistry) {
+        this.pdfFileService = pdfFileService;
+        this.extractor = new PdfTextExtractor(appProperties.getTextMaxChars());
+        this.workers = new AfterCommitWorkerPool<>("pdf-text", appProperties.getTextWorkers(),
+                appProperties.getTextQueueSize(), transactionSynchronizationRegistry, this::loadContent, this::extract);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Queues the text extraction of an uploaded PDF once the current transaction commits, unless its content
+     * was already extracted or is being extracted. The file is copied, the upload temp file is left to its other users.
+     *
+     * @param dataHash     - the hash of the stored content
+     * @param uploadedFile - the uploaded PDF on disk
+     */
+    public void submitAfterCommit(String dataHash, Path uploadedFile) {
+        if (workers.isInFlight(dataHash) || pdfFileService.hasText(dataHash)) {
+            return;
+        }
+        workers.submitAfterCommit(dataHash, workers.copy(uploadedFile));
+    }
+
+    /**
+     * Queues the contents that were never extracted, e.g. PDFs uploaded before text search existed
+     * or jobs that were rejected by a full queue or lost on restart. Their content is read back from the DB.
+     *
+     * @param limit - the maximum amount of contents to queue
+     *
+     * @return how many contents were queued
+     */
+    public int queueMissing(int limit) {
+        List<String> hashes = QuarkusTransaction.requiringNew().call(() -> pdfFileService.getHashesWithoutText(limit));
+        int queued = 0;
+        for (String dataHash : hashes) {
+            if (workers.submit(dataHash, null)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    private void extract(String dataHash, Path pdfPath) {
+        // an upload of the same content may have been queued while an earlier job was still running
+        if (QuarkusTransaction.requiringNew().call(() -> pdfFileService.hasText(dataHash))) {
+            return;
+        }
+
+        PdfTextStatus status = PdfTextStatus.READY;
+        String text;
+        try {
+            text = extractor.extract(pdfPath);
+        } catch (IOException e) {
+            // stored as failed, so a broken PDF isn't extracted again on every backfill
+            logger.warn("Could not extract text of content {}", dataHash, e);
+            status = PdfTextStatus.FAILED;
+            text = "";
+        }
+
+        PdfTextStatus finalStatus = status;
+        String finalText = text;
+        if (QuarkusTransaction.requiringNew().call(() -> pdfFileService.saveText(dataHash, finalStatus, finalText))) {
+            logger.debug("Text of content {} is {}, {} characters", dataHash, finalStatus, finalText.length());
+        }
+    }
+
+    private StreamingOutput loadContent(String dataHash) {
+        BlobRef contentRef = pdfFileService.getContentRef(dataHash);
+        return contentRef == null ? null : pdfFileService.streamData(contentRef, 0, contentRef.getSize());
+    }
+
+}
@@ -0,0 +1,135 @@
+package azar.cloud.managers;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import azar.cloud.dal.service.PdfFileService;
+import azar.cloud.entities.db.ThumbnailStatus;
+import azar.shared.cache.CacheKeys;
+import azar.shared.cache.CacheManager;
+import azar.shared.dal.blob.BlobRef;
+import azar.shared.images.ThumbnailEncoder;
+import azar.cloud.thumbnails.PdfBoxThumbnailRenderer;
+import azar.cloud.thumbnails.PdfThumbnailRenderer;
+import azar.cloud.thumbnails.PdftoppmThumbnailRenderer;
+import azar.shared.managers.AfterCommitWorkerPool;
+import azar.shared.properties.AppProperties;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Renders PDF thumbnails on a bounded background worker pool, outside the upload request
+ **/
+@ApplicationScoped
+public class PdfThumbnailManager {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final int PLACEHOLDER_WIDTH = 120;
+    private static final int PLACEHOLDER_HEIGHT = 160;
+
+    private final PdfFileService pdfFileService;
+    private final CacheManager cacheManager;
+    private final ThumbnailEncoder thumbnailEncoder;
+    private final PdfThumbnailRenderer renderer;
+    private final AfterCommitWorkerPool<Long> workers;
+    private volatile byte[] placeholder;
+
+    public PdfThumbnailManager(AppProperties appProperties, PdfFileService pdfFileService, CacheManager cacheManager,
+                               TransactionSynchronizationRegistry transactionSynchronizationRegistry,
+                               ThumbnailEncoder thumbnailEncoder) {
+        this.pdfFileService = pdfFileService;
+        this.cacheManager = cacheManager;
+        this.thumbnailEncoder = thumbnailEncoder;
+        this.renderer = createRenderer(appProperties.getThumbnailRenderer(), appProperties.getThumbnailDpi(), thumbnailEncoder);
+        this.workers = new AfterCommitWorkerPool<>("pdf-thumbnail", appProperties.getThumbnailWorkers(),
+                appProperties.getThumbnailQueueSize(), transactionSynchronizationRegistry, this::loadData, this::render);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Takes ownership of an uploaded PDF and queues its thumbnail once the current transaction commits.
+     * The file is moved away from the request temp location, since that one is removed when the request ends.
+     *
+     * @param pdfId        - the stored PDF id
+     * @param uploadedFile - the uploaded PDF on disk
+     */
+    public void submitAfterCommit(Long pdfId, Path uploadedFile) {
+        workers.submitAfterCommit(pdfId, workers.claim(uploadedFile));
+    }
+
+    /**
+     * Makes sure a pending thumbnail is being worked on, e.g. when its job was rejected by a full queue
+     * or lost on restart. The PDF is read back from the DB in that case.
+     *
+     * @param pdfId - the PDF id
+     */
+    public void ensureQueued(Long pdfId) {
+        workers.submit(pdfId, null);
+    }
+
+    public byte[] getPlaceholder() {
+        byte[] current = placeholder;
+        if (current == null) {
+            current = renderPlaceholder();
+            placeholder = current;
+        }
+        return current;
+    }
+
+    private void render(Long pdfId, Path pdfPath) {
+        byte[] rendered = renderer.render(pdfPath);
+        byte[] thumbnail = rendered.length == 0 ? null : thumbnailEncoder.toConfiguredFormat(rendered);
+        if (thumbnail == null) {
+            logger.warn("Error generating thumbnail for PDF {}", pdfId);
+            QuarkusTransaction.requiringNew().run(() -> pdfFileService.updateThumbnailStatus(pdfId, ThumbnailStatus.FAILED));
+            return;
+        }
+
+        if (QuarkusTransaction.requiringNew().call(() -> pdfFileService.updateThumbnail(pdfId, thumbnail))) {
+            cacheManager.putBytes(CacheKeys.PDF_THUMBNAIL.formatted(pdfId), thumbnail);
+            logger.debug("Thumbnail for PDF {} is ready", pdfId);
+        }
+    }
+
+    private StreamingOutput loadData(Long pdfId) {
+        BlobRef dataRef = pdfFileService.getDataRef(pdfId.intValue());
+        return dataRef == null ? null : pdfFileService.streamData(dataRef, 0, dataRef.getSize());
+    }
+
+    private byte[] renderPlaceholder() {
+        BufferedImage image = new BufferedImage(PLACEHOLDER_WIDTH, PLACEHOLDER_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(new Color(0xEE, 0xEE, 0xEE));
+            graphics.fillRect(0, 0, PLACEHOLDER_WIDTH, PLACEHOLDER_HEIGHT);
+        } finally {
+            graphics.dispose();
+        }
+        try {
+            return thumbnailEncoder.encode(image);
+        } catch (IOException e) {
+            logger.warn("Failed rendering thumbnail placeholder", e);
+            return new byte[0];
+        }
+    }
+
+    private static PdfThumbnailRenderer createRenderer(String name, int dpi, ThumbnailEncoder thumbnailEncoder) {
+        PdfThumbnailRenderer pdfBox = new PdfBoxThumbnailRenderer(dpi, thumbnailEncoder);
+        PdfThumbnailRenderer pdftoppm = new PdftoppmThumbnailRenderer(dpi);
+        return "pdftoppm".equalsIgnoreCase(name) ? pdftoppm.withFallback(pdfBox) : pdfBox.withFallback(pdftoppm);
+    }
+
+}
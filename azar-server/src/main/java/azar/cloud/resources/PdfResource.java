@@ -3,27 +3,44 @@ package azar.cloud.resources;
 import java.nio.file.Files;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import azar.cloud.dal.service.PdfFileService;
 import azar.cloud.entities.db.PdfFile;
+import azar.cloud.entities.db.ThumbnailStatus;
 import azar.cloud.entities.requests.pdf.PdfDeleteRequest;
+import azar.cloud.entities.requests.pdf.PdfSearchRequest;
 import azar.cloud.entities.requests.pdf.PdfUpdateRequest;
+import azar.cloud.entities.responses.PdfSearchResponse;
+import azar.cloud.entities.responses.PdfTextHit;
+import azar.cloud.managers.PdfTextManager;
+import azar.cloud.managers.PdfThumbnailManager;
 import static azar.cloud.utils.Constants.ADMIN_GROUP;
 import static azar.cloud.utils.Constants.ADMIN_PREFIX_STRING;
+import static azar.cloud.utils.Constants.DEFAULT_PAGE_SORT;
+import static azar.cloud.utils.Constants.MAX_PAGE_SIZE;
 import azar.shared.cache.CacheKeys;
 import azar.shared.cache.CacheManager;
+import azar.shared.dal.blob.BlobRef;
 import azar.shared.entities.requests.BaseRequest;
+import azar.shared.entities.responses.PageResponse;
+import azar.shared.images.EncodedImage;
+import azar.shared.images.ThumbnailEncoder;
 import azar.shared.resources.BaseResource;
+import azar.shared.resources.ByteRange;
+import azar.shared.resources.EntityTag;
 import azar.shared.utils.Utilities;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.quarkus.security.Authenticated;
 import io.quarkus.security.identity.SecurityIdentity;
 import io.smallrye.common.annotation.Blocking;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
@@ -45,14 +62,20 @@ public class PdfResource extends BaseResource {
     SecurityIdentity identity;
 
     private final PdfFileService pdfFileService;
+    private final PdfThumbnailManager pdfThumbnailManager;
+    private final PdfTextManager pdfTextManager;
     private final CacheManager cacheManager;
     private final ObjectMapper objectMapper;
+    private final ThumbnailEncoder thumbnailEncoder;
 
-    public PdfResource(PdfFileService pdfFileService, CacheManager cacheManager,
-                       ObjectMapper objectMapper) {
+    public PdfResource(PdfFileService pdfFileService, PdfThumbnailManager pdfThumbnailManager, PdfTextManager pdfTextManager,
+                       CacheManager cacheManager, ObjectMapper objectMapper, ThumbnailEncoder thumbnailEncoder) {
         this.pdfFileService = pdfFileService;
+        this.pdfThumbnailManager = pdfThumbnailManager;
+        this.pdfTextManager = pdfTextManager;
         this.cacheManager = cacheManager;
         this.objectMapper = objectMapper;
+        this.thumbnailEncoder = thumbnailEncoder;
     }
 
     @Path("/upload")
@@ -70,42 +93,23 @@ public class PdfResource extends BaseResource {
         }
 
         java.nio.file.Path tmp = file.filePath(); // temp location managed by Quarkus
-        byte[] bytes;
-        try {
-            bytes = Files.readAllBytes(tmp);
-        } catch (Exception e) {
-            return internalError("Failed to read uploaded file: %s".formatted(e.getMessage()));
-        }
 
         PdfFile pdf = new PdfFile();
         pdf.setUploadedBy(userName);
         pdf.setFileName(file.fileName());
-        pdf.setData(bytes);
         pdf.setContentType("application/pdf");
         pdf.setLabels(new ArrayList<>());
-        pdf.setSize(Utilities.getHumanReadableSize(bytes));
+        pdf.setSize(Utilities.getHumanReadableSize(file.size()));
         pdf.setUploadedAt(Instant.now());
+        pdf.setThumbnailStatus(ThumbnailStatus.PENDING);
 
         try {
-            byte[] thumb = Utilities.generateThumbnail(pdf.getData());
-
-            if (thumb.length == 0) {
-                return internalError("Error generating thumbnail for %s".formatted(file.fileName()));
-            }
-            pdf.setThumbnail(thumb);
-        } catch (Exception e) {
-            return internalError("Error generating thumbnail for %s".formatted(file.fileName()));
-        }
-
-        try {
-            PdfFile saved = pdfFileService.merge(pdf);
-            pdfFileService.detach(saved);
-            saved.setData(new byte[0]);
-            // Cache thumbnail as Base64 to avoid JSON arrays of bytes
-            String b64Thumb = Base64.getEncoder().encodeToString(saved.getThumbnail());
-            cacheManager.put(CacheKeys.PDF_THUMBNAIL.formatted(saved.getId()), b64Thumb);
-
-            safeDelete(tmp);
+            // content goes straight from the temp file into a PG large object
+            PdfFile saved = pdfFileService.saveStreamed(pdf, tmp);
+            // text is extracted in the background too, it copies the upload before the thumbnail job takes it over
+            pdfTextManager.submitAfterCommit(saved.getDataHash(), tmp);
+            // the thumbnail is rendered in the background once this transaction commits
+            pdfThumbnailManager.submitAfterCommit(saved.getId(), tmp);
 
             return created(saved, "Successfully saved pdf %s".formatted(pdf.getFileName()));
         } catch (Exception e) {
@@ -130,10 +134,72 @@ public class PdfResource extends BaseResource {
             return badRequest("Page and limit must be greater than 0.");
         }
 
-        List<PdfFile> pdfFileList = pdfFileService.getAllClientPaginated(page, limit);
+        List<azar.cloud.entities.client.PdfFile> pdfFileList = pdfFileService.getAllClientPaginated(page, limit);
         return ok(pdfFileList, "Returned %s PDFs to client (page: %s, limit: %s)".formatted(pdfFileList.size(), page, limit));
     }
 
+    @Path("/page")
+    @GET
+    @Transactional
+    public Response getPdfPage(@QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("50") int limit,
+                               @QueryParam("sort") @DefaultValue(DEFAULT_PAGE_SORT) String sort) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return badRequest("Limit must be between 1 and %s.".formatted(MAX_PAGE_SIZE));
+        }
+
+        try {
+            PageResponse<azar.cloud.entities.client.PdfFile> page = pdfFileService.getPage(sort, cursor, limit);
+            return ok(page, "Returned %s PDFs to client (sort: %s, limit: %s)".formatted(page.getItems().size(), sort, limit));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    @Path("/search")
+    @POST
+    @Transactional
+    public Response searchPdfs(@QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("50") int limit,
+                               @QueryParam("sort") @DefaultValue(DEFAULT_PAGE_SORT) String sort, PdfSearchRequest pdfSearchRequest) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return badRequest("Limit must be between 1 and %s.".formatted(MAX_PAGE_SIZE));
+        }
+
+        try {
+            PdfSearchResponse response = pdfFileService.search(pdfSearchRequest, sort, cursor, limit);
+            return ok(response, "Returned %s matching PDFs to client (sort: %s, limit: %s)".formatted(response.getItems().size(), sort, limit));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    @Path("/search/text")
+    @GET
+    @Transactional
+    public Response searchPdfText(@QueryParam("q") String query, @QueryParam("limit") @DefaultValue("20") int limit) {
+        if (query == null || query.isBlank()) {
+            return badRequest("q is required");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return badRequest("Limit must be between 1 and %s.".formatted(MAX_PAGE_SIZE));
+        }
+
+        List<PdfTextHit> hits = pdfFileService.searchText(query, limit);
+        return ok(hits, "Returned %s PDFs matching the text search (limit: %s)".formatted(hits.size(), limit));
+    }
+
+    @Path("/text/reindex")
+    @POST
+    @Blocking
+    @RolesAllowed(ADMIN_GROUP)
+    public Response reindexPdfText(@QueryParam("limit") @DefaultValue("500") int limit, BaseRequest baseRequest) {
+        if (limit < 1) {
+            return badRequest("Limit must be greater than 0.");
+        }
+
+        int queued = pdfTextManager.queueMissing(limit);
+        return ok(queued, "Queued text extraction of %s PDF contents".formatted(queued));
+    }
+
     @Path("/delete/{id}")
     @POST
     @Transactional
@@ -165,32 +231,80 @@ public class PdfResource extends BaseResource {
     @POST
     @Transactional
     public Response getThumbnailById(@PathParam("id") int pdfId, BaseRequest baseRequest) throws JsonProcessingException {
-        try {
-            String cached = cacheManager.get(CacheKeys.PDF_THUMBNAIL.formatted(pdfId));
-            if (cached != null) {
-                byte[] cachedThumbnail = Base64.getDecoder().decode(cached);
-                logger.debug("Sending cached thumbnail for {}", pdfId);
-                return okImage("Send thumbnail back to client", cachedThumbnail);
-            }
-        } catch (Exception ignored) {
-            logger.info("Getting thumbnail from db for {}", pdfId);
+        return sendThumbnail(pdfId);
+    }
+
+    // the same thumbnail for <img src> and the URLs of BinaryMode.REFERENCE
+    @Path("/thumbnail/{id}")
+    @GET
+    @Transactional
+    public Response loadThumbnailById(@PathParam("id") int pdfId) {
+        return sendThumbnail(pdfId);
+    }
+
+    private Response sendThumbnail(int pdfId) {
+        EntityTag eTag = EntityTag.strong(pdfFileService.getThumbnailHash(pdfId));
+        if (isNotModified(eTag)) {
+            return notModified(eTag, "Thumbnail for %s wasn't modified".formatted(pdfId));
+        }
+
+        byte[] cachedThumbnail = cacheManager.getBytes(CacheKeys.PDF_THUMBNAIL.formatted(pdfId));
+        if (cachedThumbnail != null) {
+            logger.debug("Sending cached thumbnail for {}", pdfId);
+            return okImage("Send thumbnail back to client", negotiate(cachedThumbnail), eTag);
         }
 
         byte[] thumbnailBytes = pdfFileService.getThumbnailById(pdfId);
-        cacheManager.put(CacheKeys.PDF_THUMBNAIL.formatted(pdfId), Base64.getEncoder().encodeToString(thumbnailBytes));
+        if (thumbnailBytes.length == 0) {
+            if (pdfFileService.getThumbnailStatus(pdfId) == ThumbnailStatus.PENDING) {
+                pdfThumbnailManager.ensureQueued((long) pdfId);
+            }
+            return okImage("Thumbnail for %s isn't ready, sending placeholder".formatted(pdfId),
+                    negotiate(pdfThumbnailManager.getPlaceholder()), null);
+        }
+        cacheManager.putBytes(CacheKeys.PDF_THUMBNAIL.formatted(pdfId), thumbnailBytes);
         logger.debug("Sending thumbnail for {}", pdfId);
-        return okImage("Send thumbnail back to client", thumbnailBytes);
+        return okImage("Send thumbnail back to client", negotiate(thumbnailBytes), eTag);
+    }
+
+    private EncodedImage negotiate(byte[] thumbnail) {
+        return thumbnailEncoder.negotiate(thumbnail, getRequestHeader("Accept"));
     }
 
     @Path("/get/{id}")
     @POST
     @Transactional
     public Response getPdfById(@PathParam("id") int pdfId, BaseRequest baseRequest) {
-        PdfFile pdfFile = pdfFileService.getById(pdfId);
-        if (pdfFile == null) {
+        return streamPdf(pdfId, null);
+    }
+
+    @Path("/stream/{id}")
+    @GET
+    @Transactional
+    public Response streamPdfById(@PathParam("id") int pdfId, @HeaderParam("Range") String rangeHeader) {
+        return streamPdf(pdfId, rangeHeader);
+    }
+
+    private Response streamPdf(int pdfId, String rangeHeader) {
+        BlobRef dataRef = pdfFileService.getDataRef(pdfId);
+        if (dataRef == null) {
             return notFound("PDF not found %s".formatted(pdfId));
         }
-        return okPdf("Sending PDF back to client", pdfFile.getFileName(), pdfFile.getData());
+
+        // If-None-Match is evaluated before Range
+        EntityTag eTag = EntityTag.strong(dataRef.getHash());
+        if (isNotModified(eTag)) {
+            return notModified(eTag, "PDF %s wasn't modified".formatted(pdfId));
+        }
+
+        ByteRange range = ByteRange.parse(rangeHeader, dataRef.getSize());
+        if (range == null) {
+            return rangeNotSatisfiable(dataRef.getSize(), "Range %s can't be satisfied for PDF %s".formatted(rangeHeader, pdfId));
+        }
+
+        return okStream("Streaming PDF %s back to client (%s)".formatted(pdfId, range.toContentRange()),
+                "application/pdf", "attachment; filename=" + dataRef.getFileName(), range,
+                pdfFileService.responseBody(dataRef, range.getStart(), range.length()), eTag);
     }
 
 }
@@ -5,16 +5,22 @@ import azar.cloud.entities.requests.user.UserLoginRequest;
 import azar.cloud.entities.requests.user.UserUpsertRequest;
 import azar.cloud.entities.responses.LoginResponse;
 import azar.cloud.utils.AuthService;
+import static azar.cloud.utils.Constants.ADMIN_GROUP;
 import static azar.cloud.utils.Constants.ADMIN_PREFIX_STRING;
+import static azar.cloud.utils.Constants.DEFAULT_PAGE_SORT;
+import static azar.cloud.utils.Constants.MAX_PAGE_SIZE;
 import azar.cloud.utils.PasswordManager;
 import azar.shared.dal.service.UserService;
 import azar.shared.entities.db.User;
 import azar.shared.entities.requests.BaseRequest;
 import azar.shared.resources.BaseResource;
 import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
@@ -81,6 +87,23 @@ public class UserResource extends BaseResource {
         return ok(userService.getAllClientPaginated(offset, limit));
     }
 
+    @Path(ADMIN_PREFIX_STRING + "/page")
+    @GET
+    @Transactional
+    @RolesAllowed(ADMIN_GROUP)
+    public Response getUserPage(@QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("50") int limit,
+                                @QueryParam("sort") @DefaultValue(DEFAULT_PAGE_SORT) String sort) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return badRequest("Limit must be between 1 and %s.".formatted(MAX_PAGE_SIZE));
+        }
+
+        try {
+            return ok(userService.getPage(sort, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
     @Path(ADMIN_PREFIX_STRING + "/update")
     @POST
     @Transactional
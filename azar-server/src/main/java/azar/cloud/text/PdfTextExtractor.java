@@ -0,0 +1,50 @@
+package azar.cloud.text;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Reads the text layer of a PDF from disk, page by page, up to a maximum length
+ **/
+public class PdfTextExtractor {
+
+    private final int maxChars;
+
+    public PdfTextExtractor(int maxChars) {
+        this.maxChars = Math.max(1, maxChars);
+    }
+
+    /**
+     * Extracts the text of a PDF. Pages are read one at a time and reading stops once maxChars were collected,
+     * so a huge PDF never sits in the heap as text. Scanned PDFs without a text layer give an empty text.
+     *
+     * @param pdfPath - the PDF on disk
+     *
+     * @return the text, at most maxChars long
+     * @throws IOException if the file isn't a readable PDF
+     */
+    public String extract(Path pdfPath) throws IOException {
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(pdfPath.toFile()))) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            StringBuilder text = new StringBuilder();
+            for (int page = 1; page <= document.getNumberOfPages() && text.length() < maxChars; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                text.append(stripper.getText(document));
+            }
+            if (text.length() > maxChars) {
+                // don't leave half of a surrogate pair behind
+                text.setLength(Character.isHighSurrogate(text.charAt(maxChars - 1)) ? maxChars - 1 : maxChars);
+            }
+            // Postgres text can't hold NUL characters
+            return text.toString().replace("\0", "");
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package azar.cloud.thumbnails;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import azar.shared.images.ThumbnailEncoder;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: In-process renderer, reads the PDF from disk on demand and only parses what page 1 needs
+ **/
+public class PdfBoxThumbnailRenderer implements PdfThumbnailRenderer {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final int dpi;
+    private final ThumbnailEncoder thumbnailEncoder;
+
+    public PdfBoxThumbnailRenderer(int dpi, ThumbnailEncoder thumbnailEncoder) {
+        this.dpi = dpi;
+        this.thumbnailEncoder = thumbnailEncoder;
+    }
+
+    @Override
+    public byte[] render(Path pdfPath) {
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(pdfPath.toFile()))) {
+            if (document.getNumberOfPages() == 0) {
+                logger.warn("PDF {} has no pages", pdfPath);
+                return new byte[0];
+            }
+            PDFRenderer renderer = new PDFRenderer(document);
+            // big embedded images are decoded subsampled, there's no point in full resolution for a thumbnail
+            renderer.setSubsamplingAllowed(true);
+            BufferedImage image = renderer.renderImageWithDPI(0, dpi, ImageType.RGB);
+            return thumbnailEncoder.encode(image);
+        } catch (Exception e) {
+            logger.warn("PDFBox failed rendering thumbnail for {}", pdfPath, e);
+            return new byte[0];
+        }
+    }
+
+}
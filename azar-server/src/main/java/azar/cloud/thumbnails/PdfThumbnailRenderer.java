@@ -0,0 +1,31 @@
+package azar.cloud.thumbnails;
+
+import java.nio.file.Path;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Renders the first page of a PDF into a thumbnail image
+ **/
+public interface PdfThumbnailRenderer {
+
+    /**
+     * @param pdfPath - path to the PDF file
+     *
+     * @return the encoded thumbnail, or an empty array if it couldn't be rendered
+     */
+    byte[] render(Path pdfPath);
+
+    /**
+     * @param fallback - renderer to use when this one fails
+     *
+     * @return a renderer that tries this renderer first and the fallback second
+     */
+    default PdfThumbnailRenderer withFallback(PdfThumbnailRenderer fallback) {
+        return pdfPath -> {
+            byte[] thumbnail = render(pdfPath);
+            return thumbnail.length > 0 ? thumbnail : fallback.render(pdfPath);
+        };
+    }
+
+}
@@ -0,0 +1,56 @@
+package azar.cloud.thumbnails;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Renders through poppler's pdftoppm, requires it to be installed on the host.
+ *          The output is PNG, PdfThumbnailManager converts it to the configured thumbnail format.
+ **/
+public class PdftoppmThumbnailRenderer implements PdfThumbnailRenderer {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final int dpi;
+
+    public PdftoppmThumbnailRenderer(int dpi) {
+        this.dpi = dpi;
+    }
+
+    @Override
+    public byte[] render(Path pdfPath) {
+        Path out = null;
+        Path png = null;
+        try {
+            out = Files.createTempFile("thumb-out-", "");
+            png = Path.of(out.toString() + ".png");
+            // Render page 1 to PNG
+            Process p = new ProcessBuilder(
+                    "pdftoppm", "-singlefile", "-f", "1", "-l", "1",
+                    "-png", "-r", String.valueOf(dpi),
+                    pdfPath.toString(), out.toString()
+            ).inheritIO().start();
+
+            if (p.waitFor() != 0) return new byte[0];
+
+            return Files.readAllBytes(png);
+        } catch (Exception e) {
+            logger.warn("pdftoppm failed rendering thumbnail for {}", pdfPath, e);
+            return new byte[0];
+        } finally {
+            deleteQuietly(png);
+            deleteQuietly(out);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            if (path != null) Files.deleteIfExists(path);
+        } catch (Exception ignored) {
+        }
+    }
+
+}
@@ -11,6 +11,13 @@ public class Constants {
 
     /* General */
     public static final String ADMIN_PREFIX_STRING = "/admin";
+    public static final int MAX_PAGE_SIZE = 100;
+    // the sort every keyset listing offers, by id
+    public static final String DEFAULT_PAGE_SORT = "id";
+    public static final int MAX_LABEL_FACETS = 50;
+    // the endpoints that send a PDF's bytes, by id
+    public static final String PDF_STREAM_URL = "/api/c" + ADMIN_PREFIX_STRING + "/pdf/stream/%s";
+    public static final String PDF_THUMBNAIL_URL = "/api/c" + ADMIN_PREFIX_STRING + "/pdf/thumbnail/%s";
 
     /* Jwt */
     public static final String USER_GROUP = "User";
@@ -1,12 +1,27 @@
 package azar.gallery.dal.dao;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
 import azar.gallery.entities.db.Photo;
 import azar.gallery.entities.db.PhotoMetadata;
+import azar.gallery.entities.responses.HeatmapPoint;
+import azar.gallery.utils.GeoHash;
+import azar.shared.dal.blob.BlobRef;
+import azar.shared.dal.dao.BlobDao;
 import azar.shared.dal.dao.GenericDao;
+import azar.shared.dal.keyset.KeysetQuery;
+import azar.shared.dal.keyset.KeysetSort;
+import azar.shared.entities.responses.PageResponse;
+import azar.shared.utils.Utilities;
 import jakarta.enterprise.context.ApplicationScoped;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 
 /**
  * Author: Shahar Azar
@@ -14,21 +29,26 @@ import org.slf4j.LoggerFactory;
  **/
 @ApplicationScoped
 public class PhotoDao extends GenericDao<Photo> {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    // matches idx_photos_uploaded_at_id, the id breaks ties between photos uploaded at the same instant
+    private static final KeysetSort<Photo> PAGE_SORT = KeysetSort.<Photo>named("uploaded")
+            .asc("p.uploadedAt", Instant.class, Photo::getUploadedAt)
+            .thenById("p.id", Integer.class, Photo::getId);
+    private static final KeysetQuery<Object[], Photo> PAGE_QUERY = pageQuery(false);
+    private static final KeysetQuery<Object[], Photo> PAGE_QUERY_WITH_THUMBNAILS = pageQuery(true);
 
     public List<Integer> getPhotosId() {
-        return listAll().stream().map(Photo::getId).toList();
+        return getEntityManager()
+                .createQuery("select p.id from Photo p order by p.id", Integer.class)
+                .getResultList();
     }
 
-    public byte[] getPhoto(Integer id) {
-        String sql = "SELECT lo_get(p.data) FROM photos p WHERE p.id = :id";
-        Object r = getEntityManager()
-                .createNativeQuery(sql)
+    public String getDataHash(Integer id) {
+        return getEntityManager()
+                .createQuery("select p.dataHash from Photo p where p.id = :id", String.class)
                 .setParameter("id", id)
-                .getSingleResult();
-        if (r instanceof byte[] b) return b;
-        logger.warn("Photo with id ({}) has corrupt data", id);
-        return new byte[0];
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
     }
 
     public void updateMetadata(Integer id, PhotoMetadata updatedMetadata) {
@@ -38,38 +58,284 @@ public class PhotoDao extends GenericDao<Photo> {
     }
 
     public Photo getLightWeightById(Integer id) {
-        Photo photo = findById(id);
-        getEntityManager().detach(photo);
-        photo.setData(new byte[0]);
-        photo.setThumbnail(new byte[0]);
-        return photo;
+        return findFirst(findWithoutContent(false, "p.id = ?1", "p.id", 0, id));
     }
 
     public Photo getWithThumbnailById(Integer id) {
-        Photo photo = findById(id);
-        getEntityManager().detach(photo);
-        photo.setData(new byte[0]);
-        return photo;
+        return findFirst(findWithoutContent(true, "p.id = ?1", "p.id", 0, id));
     }
 
     public Photo getWithPhotoById(Integer id) {
-        Photo photo = findById(id);
-        getEntityManager().detach(photo);
-        photo.setThumbnail(new byte[0]);
-        return photo;
+        return getLightWeightById(id);
+    }
+
+    /**
+     * Reads the page of photos that follows a cursor, oldest first.
+     *
+     * @param cursor        - the nextCursor of the previous page, null or blank for the first page
+     * @param limit         - the page size
+     * @param withThumbnail - whether to select the thumbnails
+     *
+     * @return the page, the cursor of the next one and the approximate amount of photos
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PageResponse<Photo> getPage(String cursor, int limit, boolean withThumbnail) {
+        return findPage(withThumbnail ? PAGE_QUERY_WITH_THUMBNAILS : PAGE_QUERY, PAGE_SORT, cursor, limit);
+    }
+
+    public byte[] getThumbnailById(Integer id) {
+        return getEntityManager()
+                .createQuery("select p.thumbnail from Photo p where p.id = :id", byte[].class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Stored when the thumbnail is written, so a thumbnail can be revalidated without reading it.
+     *
+     * @return the SHA-256 of the thumbnail, or null if the photo doesn't exist
+     */
+    public String getThumbnailHash(Integer id) {
+        return getEntityManager()
+                .createQuery("select p.thumbnailHash from Photo p where p.id = :id", String.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    public BlobRef getDataRef(Integer id) {
+        String sql = "SELECT p.name, " + BlobDao.qualifiedColumns("b") + " FROM Photos p " +
+                "JOIN blobs b ON b.hash = p.data_hash WHERE p.id = :id";
+        List<?> rows = getEntityManager()
+                .createNativeQuery(sql)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return new BlobRef((String) row[0], BlobDao.toBlob(row, 1));
+    }
+
+    /**
+     * Reads a batch of thumbnails that are still stored as PNG, ordered by photo id.
+     *
+     * @param afterId - only photos after this id are read
+     * @param limit   - the maximum amount of thumbnails
+     *
+     * @return the thumbnails by photo id
+     */
+    public Map<Integer, byte[]> getPngThumbnails(Integer afterId, int limit) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("SELECT p.id, p.thumbnail FROM Photos p WHERE p.id > :afterId " +
+                        "AND substring(p.thumbnail from 1 for 4) = decode('89504e47', 'hex') ORDER BY p.id LIMIT :limit")
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(Object[].class::cast)
+                .collect(Collectors.toMap(row -> ((Number) row[0]).intValue(), row -> (byte[]) row[1],
+                        (first, second) -> first, LinkedHashMap::new));
+    }
+
+    public void updateThumbnail(Integer id, byte[] thumbnail) {
+        update("thumbnail = ?1, thumbnailHash = ?2 where id = ?3", thumbnail, Utilities.sha256Hex(thumbnail), id);
+    }
+
+    /**
+     * Aggregates photo locations inside a bounding box into grid cells, in a single query.
+     * Photos without a location (0, 0) are left out.
+     *
+     * @param minLat   - the southern edge
+     * @param maxLat   - the northern edge, inclusive
+     * @param minLon   - the western edge
+     * @param maxLon   - the eastern edge, inclusive
+     * @param cellSize - the cell size in degrees
+     *
+     * @return one point per non-empty cell, at the centroid of its photos and weighted by their amount
+     */
+    public List<HeatmapPoint> getHeatmapCells(double minLat, double maxLat, double minLon, double maxLon, double cellSize) {
+        String sql = "SELECT avg(g.latitude), avg(g.longitude), count(*) FROM Photos p " +
+                "JOIN photo_metadata m ON m.id = p.metadata_id JOIN gps_metadata g ON g.id = m.gps_metadata_id " +
+                "WHERE g.latitude BETWEEN :minLat AND :maxLat AND g.longitude BETWEEN :minLon AND :maxLon " +
+                "AND NOT (g.latitude = 0 AND g.longitude = 0) " +
+                "GROUP BY floor((g.longitude + 180) / :cellSize), floor((g.latitude + 90) / :cellSize)";
+        List<?> rows = getEntityManager()
+                .createNativeQuery(sql)
+                .setParameter("minLat", minLat)
+                .setParameter("maxLat", maxLat)
+                .setParameter("minLon", minLon)
+                .setParameter("maxLon", maxLon)
+                .setParameter("cellSize", cellSize)
+                .getResultList();
+        return rows.stream()
+                .map(row -> (Object[]) row)
+                .map(row -> new HeatmapPoint(((Number) row[0]).doubleValue(), ((Number) row[1]).doubleValue(),
+                        ((Number) row[2]).longValue()))
+                .toList();
     }
 
+    /**
+     * @return the photos that have metadata, without their thumbnails
+     */
     public List<Photo> getHeatmapPhotos() {
-        return Photo.find("photoMetadata is not null").list();
+        return findWithoutContent(false, "m.id is not null", "p.id", 0);
     }
 
 
     public List<Photo> getAllGps() {
-        return Photo.find(
-                "photoMetadata.gps is not null " +
-                        "and photoMetadata.gps.latitude is not null and photoMetadata.gps.longitude is not null " +
-                        "and (photoMetadata.gps.latitude <> 0 or photoMetadata.gps.longitude <> 0)"
-        ).list();
+        // only located photos get a geohash
+        return findWithoutContent(false, "g.geohash is not null", "p.id", 0);
+    }
+
+    /**
+     * Reads the located photos inside a bounding box through the geohash index.
+     * The box is covered with a few geohash prefixes, each one a range scan, and the matches are filtered
+     * by their exact coordinates.
+     *
+     * @param minLat - the southern edge
+     * @param maxLat - the northern edge, inclusive
+     * @param minLon - the western edge
+     * @param maxLon - the eastern edge, inclusive
+     * @param limit  - the maximum amount of photos, 0 for all of them
+     *
+     * @return the photos without thumbnails
+     */
+    public List<Photo> getInBoundingBox(double minLat, double maxLat, double minLon, double maxLon, int limit) {
+        List<Object> params = new ArrayList<>();
+        String where = boundingBoxCondition(params, minLat, maxLat, minLon, maxLon);
+        return findWithoutContent(false, where, "p.id", limit, params.toArray());
+    }
+
+    /**
+     * Ranks the located photos inside a bounding box by their great-circle distance from a location.
+     * The ranking is done by the database over the geohash index, only ids and distances are read.
+     *
+     * @param latitude  - the latitude of the location
+     * @param longitude - the longitude of the location
+     * @param radiusKm  - photos farther than this are left out
+     * @param minLat    - the southern edge
+     * @param maxLat    - the northern edge, inclusive
+     * @param minLon    - the western edge
+     * @param maxLon    - the eastern edge, inclusive
+     * @param limit     - the maximum amount of photos
+     *
+     * @return the distances in kilometers by photo id, closest first
+     */
+    public Map<Integer, Double> getClosestInBoundingBox(double latitude, double longitude, double radiusKm,
+                                                        double minLat, double maxLat, double minLon, double maxLon,
+                                                        int limit) {
+        List<Object> params = new ArrayList<>();
+        String where = boundingBoxCondition(params, minLat, maxLat, minLon, maxLon);
+        params.addAll(List.of(latitude, longitude, GeoHash.EARTH_RADIUS_KM));
+        int lat = params.size() - 2;
+        int lon = params.size() - 1;
+        int earthRadius = params.size();
+        String distance = ("2 * ?%3$s * asin(least(1, sqrt(power(sin(radians(g.latitude - ?%1$s) / 2), 2) + " +
+                "cos(radians(?%1$s)) * cos(radians(g.latitude)) * power(sin(radians(g.longitude - ?%2$s) / 2), 2))))")
+                .formatted(lat, lon, earthRadius);
+        params.addAll(List.of(radiusKm, limit));
+        String sql = "SELECT c.id, c.distance FROM (SELECT p.id, " + distance + " AS distance FROM Photos p " +
+                "JOIN photo_metadata m ON m.id = p.metadata_id JOIN gps_metadata g ON g.id = m.gps_metadata_id " +
+                "WHERE " + where + ") c WHERE c.distance <= ?" + (params.size() - 1) +
+                " ORDER BY c.distance, c.id LIMIT ?" + params.size();
+
+        Query query = getEntityManager().createNativeQuery(sql);
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        List<?> rows = query.getResultList();
+        return rows.stream()
+                .map(Object[].class::cast)
+                .collect(Collectors.toMap(row -> ((Number) row[0]).intValue(), row -> ((Number) row[1]).doubleValue(),
+                        (first, second) -> first, LinkedHashMap::new));
+    }
+
+    /**
+     * @param ids - the photo ids
+     *
+     * @return the photos without thumbnails, in no particular order
+     */
+    public List<Photo> getByIds(Collection<Integer> ids) {
+        return findWithoutContent(false, "p.id in ?1", "p.id", 0, ids);
+    }
+
+    /**
+     * Covers a bounding box with a few geohash prefixes, each one a range scan of the geohash index,
+     * and filters the matches by their exact coordinates. Valid in JPQL and in SQL over g (gps_metadata).
+     *
+     * @param params - receives the positional parameters of the condition
+     */
+    private static String boundingBoxCondition(List<Object> params, double minLat, double maxLat, double minLon, double maxLon) {
+        int first = params.size() + 1;
+        params.addAll(List.of(minLat, maxLat, minLon, maxLon));
+        StringJoiner geohashes = new StringJoiner(" or ", "(", ")");
+        for (String prefix : GeoHash.cover(minLat, maxLat, minLon, maxLon)) {
+            params.add(prefix + "%");
+            geohashes.add("g.geohash like ?" + params.size());
+        }
+        return "g.latitude between ?%s and ?%s and g.longitude between ?%s and ?%s and %s"
+                .formatted(first, first + 1, first + 2, first + 3, geohashes);
+    }
+
+    /**
+     * Reads photos column by column so the thumbnail is only selected when it's asked for.
+     * The returned photos are detached copies, data and the skipped thumbnail are empty arrays.
+     *
+     * @param withThumbnail - whether to select the thumbnail
+     * @param where         - a JPQL condition over p (photo), m (metadata) and g (gps)
+     * @param orderBy       - the JPQL order by expression
+     * @param limit         - the maximum amount of photos, 0 for all of them
+     * @param params        - positional parameters of the condition
+     *
+     * @return the matching photos
+     */
+    private List<Photo> findWithoutContent(boolean withThumbnail, String where, String orderBy, int limit, Object... params) {
+        String jpql = "%s where %s order by %s".formatted(selectWithoutContent(withThumbnail), where, orderBy);
+        TypedQuery<Object[]> query = getEntityManager().createQuery(jpql, Object[].class);
+        for (int i = 0; i < params.length; i++) {
+            query.setParameter(i + 1, params[i]);
+        }
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList().stream()
+                .map(row -> toPhoto(row, withThumbnail))
+                .toList();
+    }
+
+    private static KeysetQuery<Object[], Photo> pageQuery(boolean withThumbnail) {
+        return KeysetQuery.<Object[], Photo>builder()
+                .select(selectWithoutContent(withThumbnail))
+                .resultType(Object[].class)
+                .mapper(row -> toPhoto(row, withThumbnail))
+                .build();
+    }
+
+    private static String selectWithoutContent(boolean withThumbnail) {
+        String columns = "p.id, p.name, p.description, p.dataHash, p.size, p.uploadedAt, m" + (withThumbnail ? ", p.thumbnail" : "");
+        return "select %s from Photo p left join p.photoMetadata m left join fetch m.gps g".formatted(columns);
+    }
+
+    private static Photo toPhoto(Object[] row, boolean withThumbnail) {
+        return Photo.builder()
+                .id((Integer) row[0])
+                .name((String) row[1])
+                .description((String) row[2])
+                .dataHash((String) row[3])
+                .size((String) row[4])
+                .uploadedAt((Instant) row[5])
+                .photoMetadata((PhotoMetadata) row[6])
+                .data(new byte[0])
+                .thumbnail(withThumbnail ? (byte[]) row[7] : new byte[0])
+                .build();
+    }
+
+    private static Photo findFirst(List<Photo> photos) {
+        return photos.isEmpty() ? null : photos.get(0);
     }
 
 }
@@ -0,0 +1,51 @@
+package azar.gallery.dal.dao;
+
+import java.util.List;
+import azar.gallery.entities.db.PhotoRendition;
+import azar.shared.dal.dao.GenericDao;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@ApplicationScoped
+public class PhotoRenditionDao extends GenericDao<PhotoRendition> {
+
+    public PhotoRendition getByPhotoAndSize(Integer photoId, int size) {
+        return find("photoId = ?1 and size = ?2", photoId, size).firstResult();
+    }
+
+    /**
+     * Inserts a rendition unless another request already stored the same photo and size.
+     *
+     * @return true if the rendition was inserted
+     */
+    public boolean insertIfAbsent(PhotoRendition rendition) {
+        return getEntityManager()
+                .createNativeQuery("INSERT INTO photo_renditions (photo_id, size, content_hash, content_type, width, height) " +
+                        "VALUES (:photoId, :size, :contentHash, :contentType, :width, :height) " +
+                        "ON CONFLICT (photo_id, size) DO NOTHING")
+                .setParameter("photoId", rendition.getPhotoId())
+                .setParameter("size", rendition.getSize())
+                .setParameter("contentHash", rendition.getContentHash())
+                .setParameter("contentType", rendition.getContentType())
+                .setParameter("width", rendition.getWidth())
+                .setParameter("height", rendition.getHeight())
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * Deletes every rendition of a photo.
+     *
+     * @return the content hashes of the deleted renditions
+     */
+    public List<String> deleteByPhotoId(Integer photoId) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("DELETE FROM photo_renditions WHERE photo_id = :photoId RETURNING content_hash")
+                .setParameter("photoId", photoId)
+                .getResultList();
+        return rows.stream().map(String.class::cast).toList();
+    }
+
+}
@@ -0,0 +1,136 @@
+package azar.gallery.dal.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import azar.gallery.dal.dao.PhotoDao;
+import azar.gallery.dal.dao.PhotoRenditionDao;
+import azar.gallery.entities.db.PhotoRendition;
+import azar.gallery.utils.Utilities;
+import azar.shared.cache.CacheKeys;
+import azar.shared.cache.CacheManager;
+import azar.shared.dal.dao.GenericDao;
+import azar.shared.dal.service.BlobService;
+import azar.shared.dal.service.GenericService;
+import azar.shared.entities.db.Blob;
+import azar.shared.images.ImageFormat;
+import azar.shared.properties.AppProperties;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Downscaled photo copies per configured size preset. A rendition is rendered on its first request,
+ *          stored as a blob and served from the binary cache afterwards.
+ **/
+@ApplicationScoped
+public class PhotoRenditionService extends GenericService<PhotoRendition> {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public static final String CONTENT_TYPE = ImageFormat.JPEG.getMediaType();
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final PhotoRenditionDao photoRenditionDao;
+    private final PhotoDao photoDao;
+    private final BlobService blobService;
+    private final CacheManager cacheManager;
+    private final List<Integer> sizes;
+
+    public PhotoRenditionService(PhotoRenditionDao photoRenditionDao, PhotoDao photoDao, BlobService blobService,
+                                 CacheManager cacheManager, AppProperties appProperties) {
+        this.photoRenditionDao = photoRenditionDao;
+        this.photoDao = photoDao;
+        this.blobService = blobService;
+        this.cacheManager = cacheManager;
+        this.sizes = List.copyOf(appProperties.getPhotoRenditionSizes());
+    }
+
+    @Override
+    protected GenericDao<PhotoRendition> getDao() {
+        return photoRenditionDao;
+    }
+
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    public boolean isSupportedSize(int size) {
+        return sizes.contains(size);
+    }
+
+    /**
+     * Reads the rendition of a photo, rendering and storing it on the first request.
+     * When two requests render the same rendition at once, the first stored one wins.
+     *
+     * @param photoId - the photo id
+     * @param size    - one of the size presets, the longest edge in pixels
+     *
+     * @return the rendition, or null if the photo doesn't exist
+     * @throws IllegalStateException if the photo can't be decoded
+     */
+    public PhotoRendition getOrCreate(Integer photoId, int size) {
+        PhotoRendition rendition = photoRenditionDao.getByPhotoAndSize(photoId, size);
+        if (rendition != null) {
+            return rendition;
+        }
+
+        String dataHash = photoDao.getDataHash(photoId);
+        if (dataHash == null) {
+            return null;
+        }
+        rendition = render(photoId, size, blobService.read(dataHash));
+        if (!photoRenditionDao.insertIfAbsent(rendition)) {
+            blobService.release(rendition.getContentHash());
+            return photoRenditionDao.getByPhotoAndSize(photoId, size);
+        }
+        logger.debug("Rendered {}px rendition of photo {}", size, photoId);
+        return rendition;
+    }
+
+    public byte[] readContent(PhotoRendition rendition) {
+        String key = CacheKeys.PHOTO_RENDITION.formatted(rendition.getContentHash());
+        byte[] content = cacheManager.getBytes(key);
+        if (content == null) {
+            content = blobService.read(rendition.getContentHash());
+            cacheManager.putBytes(key, content);
+        }
+        return content;
+    }
+
+    /**
+     * Deletes the renditions of a photo and releases their content, must run before the photo is deleted.
+     */
+    public void removeAll(Integer photoId) {
+        for (String contentHash : photoRenditionDao.deleteByPhotoId(photoId)) {
+            blobService.release(contentHash);
+            cacheManager.removeBytes(CacheKeys.PHOTO_RENDITION.formatted(contentHash));
+        }
+    }
+
+    private PhotoRendition render(Integer photoId, int size, byte[] original) {
+        BufferedImage image;
+        byte[] content;
+        try {
+            image = Utilities.scaleDown(original, size);
+            content = image == null ? null : ImageFormat.JPEG.encode(image, JPEG_QUALITY);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed rendering photo %s".formatted(photoId), e);
+        }
+        if (content == null) {
+            throw new IllegalStateException("Photo %s can't be decoded".formatted(photoId));
+        }
+
+        Blob blob = blobService.store(content);
+        return PhotoRendition.builder()
+                .photoId(photoId)
+                .size(size)
+                .contentHash(blob.getHash())
+                .contentType(CONTENT_TYPE)
+                .width(image.getWidth())
+                .height(image.getHeight())
+                .build();
+    }
+
+}
@@ -1,15 +1,38 @@
 package azar.gallery.dal.service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import azar.gallery.dal.dao.PhotoDao;
 import azar.gallery.entities.db.GpsMetadata;
 import azar.gallery.entities.db.Photo;
 import azar.gallery.entities.db.PhotoMetadata;
+import azar.gallery.entities.responses.HeatmapPoint;
+import azar.gallery.entities.responses.PhotoIdsResponse;
+import azar.gallery.entities.responses.PhotoPageResponse;
 import azar.gallery.entities.responses.ReverseGeocodeData;
 import azar.gallery.metadata.PhotoMetadataExtractor;
+import static azar.gallery.utils.Constants.MAX_HEATMAP_TILES;
+import azar.gallery.utils.GeoHash;
+import azar.gallery.utils.HeatmapGrid;
+import azar.shared.cache.CacheKeys;
+import azar.shared.cache.CacheManager;
+import azar.shared.cache.CacheRegion;
+import azar.shared.cache.CacheRegionSpec;
+import azar.shared.dal.blob.BlobRef;
 import azar.shared.dal.dao.GenericDao;
+import azar.shared.dal.service.BlobService;
 import azar.shared.dal.service.GenericService;
+import azar.shared.entities.responses.PageResponse;
+import static azar.shared.utils.Utilities.sha256Hex;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.StreamingOutput;
 
 /**
  * Author: Shahar Azar
@@ -17,13 +40,37 @@ import jakarta.enterprise.context.ApplicationScoped;
  **/
 @ApplicationScoped
 public class PhotoService extends GenericService<Photo> {
+    private static final double NEAREST_INITIAL_RADIUS_KM = 1;
+    // the radius grows 4 times per round, up to 1,024 km
+    private static final int NEAREST_MAX_ROUNDS = 6;
 
     private final PhotoDao photoDao;
     private final PhotoMetadataExtractor photoMetadataExtractor;
+    private final BlobService blobService;
+    private final PhotoRenditionService photoRenditionService;
+    private final TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    private final CacheRegion<String, PhotoIdsResponse> photoIdsCache;
+    private final CacheRegion<String, HeatmapPoint[]> heatmapCache;
 
-    public PhotoService(PhotoDao photoDao, PhotoMetadataExtractor photoMetadataExtractor) {
+    public PhotoService(PhotoDao photoDao, PhotoMetadataExtractor photoMetadataExtractor, BlobService blobService,
+                        PhotoRenditionService photoRenditionService, CacheManager cacheManager,
+                        TransactionSynchronizationRegistry transactionSynchronizationRegistry) {
         this.photoDao = photoDao;
         this.photoMetadataExtractor = photoMetadataExtractor;
+        this.blobService = blobService;
+        this.photoRenditionService = photoRenditionService;
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+        this.photoIdsCache = cacheManager.region(CacheRegionSpec.<String, PhotoIdsResponse>builder()
+                .name(CacheKeys.PHOTO_IDS_REGION)
+                .valueType(PhotoIdsResponse.class)
+                .maximumSize(1)
+                .loader(key -> loadPhotoIds())
+                .build());
+        this.heatmapCache = cacheManager.region(CacheRegionSpec.<String, HeatmapPoint[]>builder()
+                .name(CacheKeys.HEATMAP_REGION)
+                .valueType(HeatmapPoint[].class)
+                .maximumSize(20_000)
+                .build());
     }
 
     @Override
@@ -31,18 +78,68 @@ public class PhotoService extends GenericService<Photo> {
         return photoDao;
     }
 
+    /**
+     * Stores the photo content in the blob store and persists the photo pointing at it.
+     *
+     * @param photo - the photo to save
+     * @param data  - the photo content
+     *
+     * @return the saved photo
+     */
+    public Photo saveWithData(Photo photo, byte[] data) {
+        photo.setDataHash(blobService.store(data).getHash());
+        photo.setThumbnailHash(sha256Hex(photo.getThumbnail()));
+        Photo saved = merge(photo);
+        invalidatePhotoIds();
+        invalidateHeatmap(photo.getPhotoMetadata());
+        return saved;
+    }
+
+    /**
+     * Deletes a photo and its renditions, and releases their content blobs.
+     */
+    @Override
+    public boolean removeById(Integer id) {
+        Photo photo = photoDao.getLightWeightById(id);
+        if (photo == null) {
+            return false;
+        }
+        photoRenditionService.removeAll(id);
+        if (!photoDao.deleteById(id)) {
+            return false;
+        }
+        // the row delete has to reach the DB before the blob it references can go
+        photoDao.flush();
+        blobService.release(photo.getDataHash());
+        invalidatePhotoIds();
+        invalidateHeatmap(photo.getPhotoMetadata());
+        return true;
+    }
+
     public List<Integer> getPhotosId() {
-        return photoDao.getPhotosId();
+        return getPhotoIds().getIds();
+    }
+
+    /**
+     * @return all photo ids with a version that changes whenever a photo is added or removed
+     */
+    public PhotoIdsResponse getPhotoIds() {
+        return photoIdsCache.getOrLoad(CacheKeys.PHOTO_IDS);
     }
 
     public byte[] getPhoto(Integer id) {
-        return photoDao.getPhoto(id);
+        return blobService.read(photoDao.getDataHash(id));
     }
 
     public void refreshMetadata(Integer id) {
-        byte[] photoBytes = photoDao.getPhoto(id);
+        byte[] photoBytes = getPhoto(id);
         PhotoMetadata photoMetadata = photoMetadataExtractor.extractMetadataFromBytes(photoBytes);
+        Photo photo = photoDao.getLightWeightById(id);
+        if (photo != null) {
+            invalidateHeatmap(photo.getPhotoMetadata());
+        }
         photoDao.updateMetadata(id, photoMetadata);
+        invalidateHeatmap(photoMetadata);
     }
 
     public boolean editPhotoPartial(Photo photoToEdit) {
@@ -65,6 +162,8 @@ public class PhotoService extends GenericService<Photo> {
                     dbPhoto.getPhotoMetadata().setGps(new GpsMetadata());
                 }
                 GpsMetadata tgt = dbPhoto.getPhotoMetadata().getGps();
+                invalidateHeatmap(tgt);
+                invalidateHeatmap(srcGps);
                 tgt.setLongitude(srcGps.getLongitude());
                 tgt.setLatitude(srcGps.getLatitude());
                 tgt.setAltitude(srcGps.getAltitude());
@@ -85,7 +184,95 @@ public class PhotoService extends GenericService<Photo> {
     }
 
     public Photo getWithPhotoById(Integer id) {
-        return photoDao.getWithPhotoById(id);
+        Photo photo = photoDao.getWithPhotoById(id);
+        if (photo != null) {
+            photo.setData(blobService.read(photo.getDataHash()));
+        }
+        return photo;
+    }
+
+    public BlobRef getDataRef(Integer id) {
+        return photoDao.getDataRef(id);
+    }
+
+    public StreamingOutput streamData(BlobRef dataRef, long offset, long length) {
+        return blobService.stream(dataRef.getBlob(), offset, length);
+    }
+
+    public Object responseBody(BlobRef dataRef, long offset, long length) {
+        return blobService.responseBody(dataRef.getBlob(), offset, length);
+    }
+
+    /**
+     * Reads a page of photos without their content, with thumbnails inlined if requested.
+     *
+     * @param cursor         - the nextCursor of the previous page, null or blank for the first page
+     * @param limit          - the page size
+     * @param withThumbnails - whether to inline the thumbnails
+     *
+     * @return the page, the cursor of the next one and the approximate amount of photos
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PhotoPageResponse getPage(String cursor, int limit, boolean withThumbnails) {
+        PageResponse<Photo> page = photoDao.getPage(cursor, limit, withThumbnails);
+        return new PhotoPageResponse(page.getItems(), page.getNextCursor(), page.getTotal());
+    }
+
+    public byte[] getThumbnailById(Integer id) {
+        return photoDao.getThumbnailById(id);
+    }
+
+    public String getThumbnailHash(Integer id) {
+        return photoDao.getThumbnailHash(id);
+    }
+
+    public Map<Integer, byte[]> getPngThumbnails(Integer afterId, int limit) {
+        return photoDao.getPngThumbnails(afterId, limit);
+    }
+
+    public void updateThumbnail(Integer id, byte[] thumbnail) {
+        photoDao.updateThumbnail(id, thumbnail);
+    }
+
+    /**
+     * Aggregates photo locations into weighted points, one per heatmap cell of the zoom level.
+     * Points are computed and cached per tile, so the result covers every tile the bounding box touches.
+     *
+     * @param zoom   - the zoom level, clamped to HeatmapGrid.MAX_ZOOM
+     * @param minLat - the southern edge of the bounding box
+     * @param maxLat - the northern edge of the bounding box
+     * @param minLon - the western edge of the bounding box
+     * @param maxLon - the eastern edge of the bounding box
+     *
+     * @return the weighted points
+     * @throws IllegalArgumentException if the bounding box covers more than MAX_HEATMAP_TILES tiles
+     */
+    public List<HeatmapPoint> getHeatmap(int zoom, double minLat, double maxLat, double minLon, double maxLon) {
+        int z = HeatmapGrid.clampZoom(zoom);
+        int minX = HeatmapGrid.tileX(z, minLon);
+        int maxX = HeatmapGrid.tileX(z, maxLon);
+        int minY = HeatmapGrid.tileY(z, minLat);
+        int maxY = HeatmapGrid.tileY(z, maxLat);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_HEATMAP_TILES) {
+            throw new IllegalArgumentException("The bounding box is too large for zoom %s".formatted(z));
+        }
+
+        List<HeatmapPoint> points = new ArrayList<>();
+        boolean missing = false;
+        for (int x = minX; x <= maxX && !missing; x++) {
+            for (int y = minY; y <= maxY && !missing; y++) {
+                HeatmapPoint[] tile = heatmapCache.get(HeatmapGrid.tileKey(z, x, y));
+                if (tile == null) {
+                    missing = true;
+                } else {
+                    points.addAll(List.of(tile));
+                }
+            }
+        }
+        if (!missing) {
+            return points;
+        }
+        return loadHeatmapTiles(z, minX, maxX, minY, maxY);
     }
 
     public List<Photo> getHeatmapPhotos() {
@@ -110,4 +297,170 @@ public class PhotoService extends GenericService<Photo> {
     public List<Photo> getAllGps() {
         return photoDao.getAllGps();
     }
+
+    public List<Photo> getInBoundingBox(double minLat, double maxLat, double minLon, double maxLon, int limit) {
+        return photoDao.getInBoundingBox(minLat, maxLat, minLon, maxLon, limit);
+    }
+
+    /**
+     * Reads the photos taken within a distance of a location, closest first.
+     *
+     * @param latitude  - the latitude of the location
+     * @param longitude - the longitude of the location
+     * @param radiusKm  - the great-circle distance in kilometers
+     * @param limit     - the maximum amount of photos
+     *
+     * @return the photos without thumbnails
+     */
+    public List<Photo> getWithinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        return getInOrder(rankAround(latitude, longitude, radiusKm, limit));
+    }
+
+    /**
+     * Reads the photos closest to a location, by searching a growing radius until enough photos are found.
+     * The search stops after NEAREST_MAX_ROUNDS, so photos farther than about 1,000 km aren't returned.
+     *
+     * @param latitude  - the latitude of the location
+     * @param longitude - the longitude of the location
+     * @param count     - the amount of photos
+     *
+     * @return up to count photos without thumbnails, closest first
+     */
+    public List<Photo> getNearest(double latitude, double longitude, int count) {
+        double radiusKm = NEAREST_INITIAL_RADIUS_KM;
+        List<Integer> ids = List.of();
+        // every photo outside the radius is farther than the ones found inside it
+        for (int round = 0; round < NEAREST_MAX_ROUNDS && ids.size() < count; round++, radiusKm *= 4) {
+            ids = rankAround(latitude, longitude, radiusKm, count);
+        }
+        return getInOrder(ids);
+    }
+
+    /**
+     * Ranks the photos within a radius through the bounding boxes around it, split at the antimeridian
+     * and widened to all longitudes when the circle contains a pole.
+     *
+     * @return the ids of up to limit photos, closest first
+     */
+    private List<Integer> rankAround(double latitude, double longitude, double radiusKm, int limit) {
+        double latitudeDelta = GeoHash.latitudeDelta(radiusKm);
+        double longitudeDelta = GeoHash.longitudeDelta(latitude, radiusKm);
+        double minLat = Math.max(-90, latitude - latitudeDelta);
+        double maxLat = Math.min(90, latitude + latitudeDelta);
+        double minLon = longitude - longitudeDelta;
+        double maxLon = longitude + longitudeDelta;
+
+        Map<Integer, Double> distances = new HashMap<>();
+        if (longitudeDelta >= 180 || minLat == -90 || maxLat == 90) {
+            distances.putAll(photoDao.getClosestInBoundingBox(latitude, longitude, radiusKm, minLat, maxLat, -180, 180, limit));
+        } else if (minLon < -180) {
+            distances.putAll(photoDao.getClosestInBoundingBox(latitude, longitude, radiusKm, minLat, maxLat, minLon + 360, 180, limit));
+            distances.putAll(photoDao.getClosestInBoundingBox(latitude, longitude, radiusKm, minLat, maxLat, -180, maxLon, limit));
+        } else if (maxLon > 180) {
+            distances.putAll(photoDao.getClosestInBoundingBox(latitude, longitude, radiusKm, minLat, maxLat, minLon, 180, limit));
+            distances.putAll(photoDao.getClosestInBoundingBox(latitude, longitude, radiusKm, minLat, maxLat, -180, maxLon - 360, limit));
+        } else {
+            distances.putAll(photoDao.getClosestInBoundingBox(latitude, longitude, radiusKm, minLat, maxLat, minLon, maxLon, limit));
+        }
+
+        return distances.keySet().stream()
+                .sorted(Comparator.comparingDouble((Integer id) -> distances.get(id)).thenComparingInt(id -> id))
+                .limit(limit)
+                .toList();
+    }
+
+    private List<Photo> getInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Photo> photos = photoDao.getByIds(ids).stream()
+                .collect(Collectors.toMap(Photo::getId, photo -> photo));
+        return ids.stream()
+                .map(photos::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Aggregates a range of tiles in one query and caches every tile of it, empty tiles included.
+     */
+    private List<HeatmapPoint> loadHeatmapTiles(int zoom, int minX, int maxX, int minY, int maxY) {
+        double tileSize = HeatmapGrid.tileSize(zoom);
+        List<HeatmapPoint> points = photoDao.getHeatmapCells(HeatmapGrid.tileMinLatitude(zoom, minY),
+                HeatmapGrid.tileMinLatitude(zoom, maxY) + tileSize, HeatmapGrid.tileMinLongitude(zoom, minX),
+                HeatmapGrid.tileMinLongitude(zoom, maxX) + tileSize, HeatmapGrid.cellSize(zoom));
+
+        Map<String, List<HeatmapPoint>> tiles = new HashMap<>();
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                tiles.put(HeatmapGrid.tileKey(zoom, x, y), new ArrayList<>());
+            }
+        }
+        List<HeatmapPoint> inRange = new ArrayList<>();
+        for (HeatmapPoint point : points) {
+            // a point on the outer edge of the range belongs to the next tile
+            List<HeatmapPoint> tile = tiles.get(HeatmapGrid.tileKey(zoom, HeatmapGrid.tileX(zoom, point.getLon()),
+                    HeatmapGrid.tileY(zoom, point.getLat())));
+            if (tile != null) {
+                tile.add(point);
+                inRange.add(point);
+            }
+        }
+        tiles.forEach((key, tile) -> heatmapCache.put(key, tile.toArray(new HeatmapPoint[0])));
+        return inRange;
+    }
+
+    /**
+     * Drops the cached heatmap tiles that contain a location, on every zoom level.
+     */
+    private void invalidateHeatmap(PhotoMetadata photoMetadata) {
+        if (photoMetadata != null) {
+            invalidateHeatmap(photoMetadata.getGps());
+        }
+    }
+
+    private void invalidateHeatmap(GpsMetadata gps) {
+        if (gps == null || gps.getLatitude() == null || gps.getLongitude() == null) {
+            return;
+        }
+        double latitude = gps.getLatitude();
+        double longitude = gps.getLongitude();
+        afterCompletion(() -> {
+            for (int zoom = 0; zoom <= HeatmapGrid.MAX_ZOOM; zoom++) {
+                heatmapCache.remove(HeatmapGrid.tileKey(zoom, HeatmapGrid.tileX(zoom, longitude),
+                        HeatmapGrid.tileY(zoom, latitude)));
+            }
+        });
+    }
+
+    private PhotoIdsResponse loadPhotoIds() {
+        List<Integer> ids = photoDao.getPhotosId();
+        return new PhotoIdsResponse(sha256Hex(ids.toString()), ids);
+    }
+
+    private void invalidatePhotoIds() {
+        afterCompletion(() -> photoIdsCache.remove(CacheKeys.PHOTO_IDS));
+    }
+
+    /**
+     * Runs a cache invalidation now and again once the transaction ends,
+     * so a value read by a concurrent request before the commit isn't kept.
+     */
+    private void afterCompletion(Runnable invalidation) {
+        invalidation.run();
+        if (transactionSynchronizationRegistry.getTransactionKey() == null) {
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                invalidation.run();
+            }
+        });
+    }
+
 }
@@ -1,5 +1,6 @@
 package azar.gallery.entities.db;
 
+import azar.gallery.utils.GeoHash;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -7,7 +8,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -51,6 +54,11 @@ public class GpsMetadata extends PanacheEntityBase {
     @Column(name = "country")
     private String country;
 
+    // derived from latitude and longitude, indexed for spatial lookups
+    @Setter(AccessLevel.NONE)
+    @Column(name = "geohash", length = GeoHash.PRECISION)
+    private String geohash;
+
     @PrePersist
     protected void onCreate() {
         if (latitude == null) {
@@ -64,5 +72,12 @@ public class GpsMetadata extends PanacheEntityBase {
         if (altitude == null) {
             altitude = 0.0;
         }
+        onUpdate();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        boolean hasLocation = latitude != null && longitude != null && (latitude != 0 || longitude != 0);
+        geohash = hasLocation ? GeoHash.encode(latitude, longitude, GeoHash.PRECISION) : null;
     }
 }
@@ -1,7 +1,10 @@
 package azar.gallery.entities.db;
 
 import java.time.Instant;
-import com.fasterxml.jackson.annotation.JsonFormat;
+import static azar.gallery.utils.Constants.PHOTO_ORIGINAL_URL;
+import static azar.gallery.utils.Constants.PHOTO_THUMBNAIL_URL;
+import azar.shared.json.BinaryOwner;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -11,10 +14,10 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -33,7 +36,7 @@ import lombok.ToString;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
-public class Photo extends PanacheEntityBase {
+public class Photo extends PanacheEntityBase implements BinaryOwner {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -46,18 +49,25 @@ public class Photo extends PanacheEntityBase {
     @Column(name = "description", nullable = false, length = 1_000)
     private String description;
 
+    // the content lives in the blob store, PhotoService fills it from dataHash when it's needed
     @Setter
-    @Lob
-    @Column(name = "data", columnDefinition = "bytea", nullable = false)
-    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @Transient
     private byte[] data;
 
     @Setter
-    @Lob
+    @Column(name = "data_hash", nullable = false)
+    private String dataHash;
+
+    @Setter
     @Column(name = "thumbnail", columnDefinition = "bytea", nullable = false)
-    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
     private byte[] thumbnail;
 
+    // stored with the thumbnail and served as its ETag, not a part of the photo's JSON
+    @Setter
+    @JsonIgnore
+    @Column(name = "thumbnail_hash", nullable = false, length = 64)
+    private String thumbnailHash;
+
     @Column(name = "size", nullable = false)
     private String size;
 
@@ -74,4 +84,16 @@ public class Photo extends PanacheEntityBase {
         uploadedAt = Instant.now();
     }
 
+    @Override
+    public String binaryUrl(String field) {
+        if (id == null) {
+            return null;
+        }
+        return switch (field) {
+            case "data" -> PHOTO_ORIGINAL_URL.formatted(id);
+            case "thumbnail" -> PHOTO_THUMBNAIL_URL.formatted(id);
+            default -> null;
+        };
+    }
+
 }
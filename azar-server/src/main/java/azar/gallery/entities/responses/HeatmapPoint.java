@@ -0,0 +1,24 @@
+package azar.gallery.entities.responses;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class HeatmapPoint {
+    // the centroid of the photos in the heatmap cell
+    private double lat;
+
+    private double lon;
+
+    // the amount of photos in the heatmap cell
+    private long weight;
+}
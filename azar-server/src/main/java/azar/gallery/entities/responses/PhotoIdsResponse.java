@@ -0,0 +1,22 @@
+package azar.gallery.entities.responses;
+
+import java.util.List;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class PhotoIdsResponse {
+    // changes whenever a photo is added or removed, also sent as the ETag
+    private String version;
+
+    private List<Integer> ids;
+}
@@ -0,0 +1,24 @@
+package azar.gallery.entities.responses;
+
+import java.util.List;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class PhotoImportResponse {
+    private int imported;
+
+    private int failed;
+
+    // one result per file, in upload order
+    private List<PhotoImportResult> results;
+}
@@ -0,0 +1,34 @@
+package azar.gallery.entities.responses;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class PhotoImportResult {
+    private String fileName;
+
+    private boolean imported;
+
+    // the saved photo id, null if the file wasn't imported
+    private Integer photoId;
+
+    // why the file wasn't imported, null if it was
+    private String error;
+
+    public static PhotoImportResult imported(String fileName, Integer photoId) {
+        return new PhotoImportResult(fileName, true, photoId, null);
+    }
+
+    public static PhotoImportResult failed(String fileName, String error) {
+        return new PhotoImportResult(fileName, false, null, error);
+    }
+}
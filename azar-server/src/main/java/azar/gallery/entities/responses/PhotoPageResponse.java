@@ -0,0 +1,26 @@
+package azar.gallery.entities.responses;
+
+import java.util.List;
+import azar.gallery.entities.db.Photo;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class PhotoPageResponse {
+    private List<Photo> photos;
+
+    // pass back as the cursor to read the next page, null on the last page
+    private String nextCursor;
+
+    // an estimate of all the photos, refreshed about once a minute
+    private Long total;
+}
@@ -0,0 +1,326 @@
+package azar.gallery.managers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import azar.gallery.dal.service.PhotoService;
+import azar.gallery.entities.db.Photo;
+import azar.gallery.entities.db.PhotoMetadata;
+import azar.gallery.entities.responses.PhotoImportResponse;
+import azar.gallery.entities.responses.PhotoImportResult;
+import azar.gallery.metadata.PhotoMetadataExtractor;
+import azar.gallery.metadata.PhotoProcessor;
+import azar.gallery.metadata.ProcessedPhoto;
+import azar.shared.properties.AppProperties;
+import static azar.shared.utils.Utilities.getHumanReadableSize;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Imports many photos at once. Files are read, decoded and described on a bounded worker pool
+ *          while the request thread saves the ready ones in batches, each batch in its own transaction.
+ **/
+@ApplicationScoped
+public class PhotoImportManager {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final long MB = 1024 * 1024;
+
+    private final PhotoService photoService;
+    private final PhotoMetadataExtractor photoMetadataExtractor;
+    private final PhotoProcessor photoProcessor;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    // files held in memory per import, the batch being saved plus one file per busy worker
+    private final int window;
+    // archives are expanded to disk, these bound how much a small, highly compressed archive can write
+    private final long maxEntryBytes;
+    private final long maxZipBytes;
+    private final int maxZipEntries;
+
+    public PhotoImportManager(AppProperties appProperties, PhotoService photoService,
+                              PhotoMetadataExtractor photoMetadataExtractor, PhotoProcessor photoProcessor) {
+        this.photoService = photoService;
+        this.photoMetadataExtractor = photoMetadataExtractor;
+        this.photoProcessor = photoProcessor;
+        this.batchSize = Math.max(1, appProperties.getPhotoImportBatchSize());
+
+        int workers = Math.max(1, appProperties.getPhotoImportWorkers());
+        this.window = batchSize + workers;
+        this.maxEntryBytes = appProperties.getFileMaxSizeMb() * MB;
+        this.maxZipBytes = appProperties.getPhotoImportZipMaxMb() * MB;
+        this.maxZipEntries = appProperties.getPhotoImportZipMaxEntries();
+        // every import keeps at most `window` files queued, so the queue itself doesn't need a bound
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                workerThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Imports uploaded photos, zip archives are expanded and each of their entries is imported as a photo.
+     * A file that fails doesn't stop the others.
+     *
+     * @param uploads - the uploaded files
+     *
+     * @return the result of every file, in upload order
+     */
+    public PhotoImportResponse importPhotos(List<FileUpload> uploads) {
+        Deque<Future<PreparedPhoto>> pending = new ArrayDeque<>();
+        List<PhotoImportResult> results = new ArrayList<>();
+        for (FileUpload upload : uploads) {
+            if (isZip(upload)) {
+                expandZip(upload, pending, results);
+            } else {
+                submit(upload.fileName(), upload.filePath(), false, pending, results);
+            }
+        }
+        while (!pending.isEmpty()) {
+            saveBatch(pending, results);
+        }
+
+        int imported = (int) results.stream().filter(PhotoImportResult::isImported).count();
+        logger.info("Imported {} of {} photos", imported, results.size());
+        return new PhotoImportResponse(imported, results.size() - imported, results);
+    }
+
+    /**
+     * Expands an archive to temp files and submits every entry. Expanding stops at the first entry over
+     * the upload size limit, or once the archive goes over its entry count or total size limit.
+     * The entries before that are still imported and the archive is reported as failed.
+     */
+    private void expandZip(FileUpload upload, Deque<Future<PreparedPhoto>> pending, List<PhotoImportResult> results) {
+        try (InputStream inputStream = Files.newInputStream(upload.filePath());
+             ZipInputStream zip = new ZipInputStream(inputStream)) {
+            ZipEntry entry;
+            int entries = 0;
+            long expandedBytes = 0;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (++entries > maxZipEntries) {
+                    failArchive(upload, "Archive has more than %s entries, the rest were skipped".formatted(maxZipEntries), pending);
+                    return;
+                }
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                // skips folders and the metadata files macOS adds to archives
+                if (entry.isDirectory() || fileName.isEmpty() || fileName.startsWith(".") || entry.getName().startsWith("__MACOSX/")) {
+                    continue;
+                }
+
+                long maxBytes = Math.min(maxEntryBytes, maxZipBytes - expandedBytes);
+                Path entryFile = Files.createTempFile("photo-import-", null);
+                long copied;
+                try {
+                    copied = copyAtMost(zip, entryFile, maxBytes);
+                } catch (IOException e) {
+                    deleteQuietly(entryFile);
+                    throw e;
+                }
+                if (copied < 0) {
+                    deleteQuietly(entryFile);
+                    failArchive(upload, maxBytes == maxEntryBytes
+                            ? "Entry %s is larger than %s, the rest were skipped".formatted(fileName, getHumanReadableSize(maxEntryBytes))
+                            : "Archive expands to more than %s, the rest was skipped".formatted(getHumanReadableSize(maxZipBytes)), pending);
+                    return;
+                }
+                expandedBytes += copied;
+                submit(fileName, entryFile, true, pending, results);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed reading archive {}", upload.fileName(), e);
+            failArchive(upload, "Failed reading archive: %s".formatted(e.getMessage()), pending);
+        }
+    }
+
+    private void failArchive(FileUpload upload, String error, Deque<Future<PreparedPhoto>> pending) {
+        logger.warn("Stopped expanding archive {}: {}", upload.fileName(), error);
+        pending.add(CompletableFuture.completedFuture(PreparedPhoto.failed(upload.fileName(), error)));
+    }
+
+    /**
+     * Copies the current zip entry to a file, up to a maximum size.
+     *
+     * @return the amount of bytes copied, or -1 if the entry is larger than maxBytes, the file is then incomplete
+     */
+    private static long copyAtMost(InputStream inputStream, Path target, long maxBytes) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[8192];
+            long copied = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                copied += read;
+                if (copied > maxBytes) {
+                    return -1;
+                }
+                outputStream.write(buffer, 0, read);
+            }
+            return copied;
+        }
+    }
+
+    private void submit(String fileName, Path file, boolean temporary, Deque<Future<PreparedPhoto>> pending,
+                        List<PhotoImportResult> results) {
+        pending.add(executor.submit(() -> prepare(fileName, file, temporary)));
+        if (pending.size() >= window) {
+            saveBatch(pending, results);
+        }
+    }
+
+    /**
+     * Does everything that doesn't need the DB: reads the file, extracts the metadata and renders the thumbnail.
+     */
+    private PreparedPhoto prepare(String fileName, Path file, boolean temporary) {
+        try {
+            byte[] data = Files.readAllBytes(file);
+            ProcessedPhoto processedPhoto = photoProcessor.process(data);
+            if (processedPhoto.getThumbnail().length == 0) {
+                return PreparedPhoto.failed(fileName, "Not a supported image");
+            }
+            return new PreparedPhoto(fileName, data, processedPhoto.getThumbnail(), processedPhoto.getPhotoMetadata(), null);
+        } catch (Exception e) {
+            logger.warn("Failed preparing {}", fileName, e);
+            return PreparedPhoto.failed(fileName, "Failed preparing photo: %s".formatted(e.getMessage()));
+        } finally {
+            if (temporary) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Waits for the next batch of prepared photos and saves them in one transaction.
+     * If that transaction fails the photos are saved one by one, so only the broken ones are reported.
+     */
+    private void saveBatch(Deque<Future<PreparedPhoto>> pending, List<PhotoImportResult> results) {
+        List<PreparedPhoto> batch = new ArrayList<>();
+        while (batch.size() < batchSize && !pending.isEmpty()) {
+            batch.add(await(pending.poll()));
+        }
+        List<PreparedPhoto> ready = batch.stream().filter(prepared -> prepared.error == null).toList();
+        if (ready.isEmpty()) {
+            addResults(batch, results);
+            return;
+        }
+
+        try {
+            QuarkusTransaction.requiringNew().run(() -> ready.forEach(prepared -> prepared.photoId = save(prepared)));
+        } catch (Exception e) {
+            logger.warn("Failed saving a batch of {} photos, saving them one by one", ready.size(), e);
+            for (PreparedPhoto prepared : ready) {
+                // ids handed out inside the rolled back transaction are gone
+                prepared.photoId = null;
+                prepared.metadata = photoMetadataExtractor.extractMetadataFromBytes(prepared.data);
+                try {
+                    prepared.photoId = QuarkusTransaction.requiringNew().call(() -> save(prepared));
+                } catch (Exception saveException) {
+                    logger.warn("Failed saving {}", prepared.fileName, saveException);
+                    prepared.error = "Failed saving photo: %s".formatted(saveException.getMessage());
+                }
+            }
+        }
+
+        addResults(batch, results);
+    }
+
+    private void addResults(List<PreparedPhoto> batch, List<PhotoImportResult> results) {
+        for (PreparedPhoto prepared : batch) {
+            results.add(prepared.error == null
+                    ? PhotoImportResult.imported(prepared.fileName, prepared.photoId)
+                    : PhotoImportResult.failed(prepared.fileName, prepared.error));
+        }
+    }
+
+    private Integer save(PreparedPhoto prepared) {
+        Photo photo = Photo.builder()
+                .data(prepared.data)
+                .description("")
+                .name(prepared.fileName)
+                .photoMetadata(prepared.metadata)
+                .thumbnail(prepared.thumbnail)
+                .size(getHumanReadableSize(prepared.data))
+                .build();
+        return photoService.saveWithData(photo, prepared.data).getId();
+    }
+
+    private PreparedPhoto await(Future<PreparedPhoto> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Photo import was interrupted", e);
+        } catch (ExecutionException e) {
+            logger.warn("Failed preparing photo", e.getCause());
+            return PreparedPhoto.failed("unknown", "Failed preparing photo: %s".formatted(e.getCause().getMessage()));
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (Exception ignored) {
+            logger.warn("Could not delete file {}", path);
+        }
+    }
+
+    private static boolean isZip(FileUpload upload) {
+        String fileName = upload.fileName() == null ? "" : upload.fileName().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(".zip") || "application/zip".equals(upload.contentType());
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "photo-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class PreparedPhoto {
+        private final String fileName;
+        private final byte[] data;
+        private final byte[] thumbnail;
+        private PhotoMetadata metadata;
+        private String error;
+        private Integer photoId;
+
+        private PreparedPhoto(String fileName, byte[] data, byte[] thumbnail, PhotoMetadata metadata, String error) {
+            this.fileName = fileName;
+            this.data = data;
+            this.thumbnail = thumbnail;
+            this.metadata = metadata;
+            this.error = error;
+        }
+
+        private static PreparedPhoto failed(String fileName, String error) {
+            return new PreparedPhoto(fileName, null, null, null, error);
+        }
+    }
+
+}
@@ -6,17 +6,24 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import azar.gallery.entities.db.GpsMetadata;
 import azar.gallery.entities.db.PhotoMetadata;
 import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.lang.GeoLocation;
+import com.drew.lang.Rational;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.exif.GpsDirectory;
 import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.jpeg.JpegReader;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,14 +36,37 @@ import org.slf4j.LoggerFactory;
 public class PhotoMetadataExtractor {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    // the only segments extract() reads from: SOFn for the dimensions and APP1 for EXIF
+    private static final List<JpegSegmentMetadataReader> JPEG_HEADER_READERS = List.of(new JpegReader(), new ExifReader());
+    private static final DateTimeFormatter EXIF_DATE_TIME = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+    // fallbacks for GPS values that some editors write as text instead of rationals
+    private static final Pattern DMS_PATTERN = Pattern.compile("(-?)(\\d+)[^\\d-]+(\\d+)[^\\d-]+(\\d+(?:\\.\\d+)?)");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("-?\\d+(\\.\\d+)?");
+    private static final int BELOW_SEA_LEVEL = 1;
+
     public PhotoMetadata extractMetadataFromBytes(byte[] data) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(data);) {
-            Metadata metadata = ImageMetadataReader.readMetadata(inputStream);
-            return extract(metadata);
+        Metadata metadata = readMetadata(data);
+        return metadata == null ? new PhotoMetadata() : extract(metadata);
+    }
+
+    /**
+     * Parses the metadata segments of an image without decoding it.
+     * JPEG parsing stops at the start of the image data and skips every segment extract() doesn't use.
+     *
+     * @param data - the image
+     *
+     * @return the parsed metadata, or null if the image can't be parsed
+     */
+    public Metadata readMetadata(byte[] data) {
+        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(data)) {
+            if (isJpeg(data)) {
+                return JpegMetadataReader.readMetadata(inputStream, JPEG_HEADER_READERS);
+            }
+            return ImageMetadataReader.readMetadata(inputStream, data.length);
         } catch (Exception e) {
             logger.warn("Error creating metadata", e);
         }
-        return new PhotoMetadata();
+        return null;
     }
 
     public PhotoMetadata extractMetadataFromFile(File file) {
@@ -49,35 +79,20 @@ public class PhotoMetadataExtractor {
         return new PhotoMetadata();
     }
 
-    private PhotoMetadata extract(Metadata metadata) {
+    public PhotoMetadata extract(Metadata metadata) {
         String imageHeight = extractValue(metadata, JpegDirectory.class, JpegDirectory.TAG_IMAGE_HEIGHT, "height", "");
         String imageWidth = extractValue(metadata, JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH, "width", "");
         String make = extractValue(metadata, ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE, "make", "");
         String model = extractValue(metadata, ExifIFD0Directory.class, ExifIFD0Directory.TAG_MODEL, "model", "");
         String dateTime = extractValue(metadata, ExifIFD0Directory.class, ExifSubIFDDirectory.TAG_DATETIME, "dateTime", null);
-        GpsMetadata gpsMetadata = new GpsMetadata();
-        GpsDirectory gps = metadata.getFirstDirectoryOfType(GpsDirectory.class);
-        if (gps != null) {
-            String latitude = gps.getDescription(GpsDirectory.TAG_LATITUDE);
-            if (latitude != null) {
-                gpsMetadata.setLatitude(parseDMS(latitude));
-            }
-            String longitude = gps.getDescription(GpsDirectory.TAG_LONGITUDE);
-            if (longitude != null) {
-                gpsMetadata.setLongitude(parseDMS(longitude));
-            }
-            String altitude = gps.getDescription(GpsDirectory.TAG_ALTITUDE);
-            if (altitude != null) {
-                gpsMetadata.setAltitude(extractAltitude(altitude));
-            }
-        }
+        GpsMetadata gpsMetadata = extractGps(metadata.getFirstDirectoryOfType(GpsDirectory.class));
         Instant date = Instant.now();
         if (dateTime != null) {
             try {
                 date = Instant.parse(dateTime);
             } catch (Exception ignored) {
                 try {
-                    date = LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss")).toInstant(ZoneOffset.UTC);
+                    date = LocalDateTime.parse(dateTime, EXIF_DATE_TIME).toInstant(ZoneOffset.UTC);
                 } catch (Exception ignored2) {
                 }
             }
@@ -95,26 +110,80 @@ public class PhotoMetadataExtractor {
     }
 
     private String extractValue(Metadata metadata, Class<? extends Directory> clazz, int tag, String label, String defaultValue) {
-        String res = defaultValue;
+        Directory directory = metadata.getFirstDirectoryOfType(clazz);
+        if (directory == null) {
+            return defaultValue;
+        }
         try {
-            res = metadata.getFirstDirectoryOfType(clazz).getDescription(tag);
+            return directory.getDescription(tag);
         } catch (Exception e) {
             logger.warn("Could not get image {} due to {}", label, e.getMessage());
         }
-        return res;
+        return defaultValue;
+    }
+
+    /**
+     * Reads the location from the GPS rationals directly, without formatting them into text first.
+     * Coordinates getGeoLocation() can't read are extracted one by one, text values through precompiled patterns.
+     *
+     * @param gps - the GPS directory, may be null
+     *
+     * @return the location, coordinates that aren't present are left null
+     */
+    private GpsMetadata extractGps(GpsDirectory gps) {
+        GpsMetadata gpsMetadata = new GpsMetadata();
+        if (gps == null) {
+            return gpsMetadata;
+        }
+
+        GeoLocation location = gps.getGeoLocation();
+        if (location != null) {
+            gpsMetadata.setLatitude(location.getLatitude());
+            gpsMetadata.setLongitude(location.getLongitude());
+        } else {
+            gpsMetadata.setLatitude(extractCoordinate(gps, GpsDirectory.TAG_LATITUDE, GpsDirectory.TAG_LATITUDE_REF, "S"));
+            gpsMetadata.setLongitude(extractCoordinate(gps, GpsDirectory.TAG_LONGITUDE, GpsDirectory.TAG_LONGITUDE_REF, "W"));
+        }
+
+        if (gps.containsTag(GpsDirectory.TAG_ALTITUDE)) {
+            Rational altitude = gps.getRational(GpsDirectory.TAG_ALTITUDE);
+            double value = Math.abs(altitude != null ? altitude.doubleValue() : extractAltitude(gps.getString(GpsDirectory.TAG_ALTITUDE)));
+            Integer reference = gps.getInteger(GpsDirectory.TAG_ALTITUDE_REF);
+            gpsMetadata.setAltitude(reference != null && reference == BELOW_SEA_LEVEL ? -value : value);
+        }
+        return gpsMetadata;
+    }
+
+    /**
+     * Reads one coordinate on its own, for files whose location getGeoLocation() rejects,
+     * e.g. without a reference tag or with the value written as text.
+     */
+    private Double extractCoordinate(GpsDirectory gps, int tag, int referenceTag, String negativeReference) {
+        boolean negative = negativeReference.equalsIgnoreCase(gps.getString(referenceTag));
+        Rational[] dms = gps.getRationalArray(tag);
+        if (dms != null && dms.length == 3) {
+            return GeoLocation.degreesMinutesSecondsToDecimal(dms[0], dms[1], dms[2], negative);
+        }
+
+        String text = gps.getString(tag);
+        if (text == null) {
+            return null;
+        }
+        double coordinate = parseDMS(text);
+        return negative ? -Math.abs(coordinate) : coordinate;
     }
 
     private Double parseDMS(String dms) {
         try {
-            Pattern pattern = Pattern.compile("(\\d+)°\\s*(\\d+)'\\s*([\\d.]+)\"");
-            Matcher matcher = pattern.matcher(dms);
+            Matcher matcher = DMS_PATTERN.matcher(dms);
 
             if (matcher.find()) {
-                int degrees = Integer.parseInt(matcher.group(1));
-                int minutes = Integer.parseInt(matcher.group(2));
-                double seconds = Double.parseDouble(matcher.group(3));
+                int degrees = Integer.parseInt(matcher.group(2));
+                int minutes = Integer.parseInt(matcher.group(3));
+                double seconds = Double.parseDouble(matcher.group(4));
 
-                return degrees + (minutes / 60.0) + (seconds / 3600.0);
+                double coordinate = degrees + (minutes / 60.0) + (seconds / 3600.0);
+                return matcher.group(1).isEmpty() ? coordinate : -coordinate;
             } else {
                 logger.warn("Invalid DMS format for {}, setting default.. ", dms);
             }
@@ -124,9 +193,15 @@ public class PhotoMetadataExtractor {
         return 0.0;
     }
 
+    public static boolean isJpeg(byte[] data) {
+        return data.length > 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8;
+    }
+
     public Double extractAltitude(String text) {
-        Pattern pattern = Pattern.compile("-?\\d+(\\.\\d+)?");
-        Matcher matcher = pattern.matcher(text);
+        if (text == null) {
+            return 0.0;
+        }
+        Matcher matcher = NUMBER_PATTERN.matcher(text);
 
         if (matcher.find()) {
             return Double.parseDouble(matcher.group());
@@ -0,0 +1,153 @@
+package azar.gallery.metadata;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.imageio.ImageIO;
+import azar.gallery.entities.db.PhotoMetadata;
+import azar.gallery.utils.Utilities;
+import azar.shared.images.ThumbnailEncoder;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.jpeg.JpegDirectory;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Turns uploaded photo bytes into metadata and a thumbnail. The metadata segments are parsed once
+ *          and shared with the thumbnail stage, which prefers the thumbnail the camera embedded in the EXIF
+ *          data and otherwise decodes the photo subsampled.
+ **/
+@ApplicationScoped
+public class PhotoProcessor {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public static final int THUMBNAIL_WIDTH = 100;
+    public static final int THUMBNAIL_HEIGHT = 200;
+
+    private static final byte[] EXIF_PREAMBLE = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int APP1 = 0xE1;
+    private static final int START_OF_SCAN = 0xDA;
+    // letterboxed embedded thumbnails (black bars around a different aspect ratio) are not used
+    private static final double MAX_ASPECT_RATIO_DIFFERENCE = 0.02;
+
+    private final PhotoMetadataExtractor photoMetadataExtractor;
+    private final ThumbnailEncoder thumbnailEncoder;
+
+    public PhotoProcessor(PhotoMetadataExtractor photoMetadataExtractor, ThumbnailEncoder thumbnailEncoder) {
+        this.photoMetadataExtractor = photoMetadataExtractor;
+        this.thumbnailEncoder = thumbnailEncoder;
+    }
+
+    public ProcessedPhoto process(byte[] data) {
+        Metadata metadata = photoMetadataExtractor.readMetadata(data);
+        PhotoMetadata photoMetadata = metadata == null ? new PhotoMetadata() : photoMetadataExtractor.extract(metadata);
+
+        BufferedImage thumbnail = metadata == null ? null : fromEmbeddedThumbnail(data, metadata);
+        if (thumbnail == null) {
+            thumbnail = Utilities.generateThumbnail(data, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
+        }
+        return new ProcessedPhoto(photoMetadata, encode(thumbnail));
+    }
+
+    /**
+     * @return the thumbnail in the configured thumbnail format, or an empty array if there is none
+     */
+    private byte[] encode(BufferedImage thumbnail) {
+        if (thumbnail == null) {
+            return new byte[0];
+        }
+        try {
+            return thumbnailEncoder.encode(thumbnail);
+        } catch (IOException e) {
+            logger.error("Failed to encode thumbnail", e);
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Renders the thumbnail from the JPEG embedded in the EXIF data, when it has the photo's aspect ratio
+     * and is at least as large as the thumbnail.
+     *
+     * @return the thumbnail, or null if the photo has no usable embedded thumbnail
+     */
+    private BufferedImage fromEmbeddedThumbnail(byte[] data, Metadata metadata) {
+        ExifThumbnailDirectory thumbnailDirectory = metadata.getFirstDirectoryOfType(ExifThumbnailDirectory.class);
+        JpegDirectory jpegDirectory = metadata.getFirstDirectoryOfType(JpegDirectory.class);
+        if (thumbnailDirectory == null || jpegDirectory == null
+                || !thumbnailDirectory.containsTag(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET)
+                || !thumbnailDirectory.containsTag(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH)) {
+            return null;
+        }
+
+        try {
+            int tiffHeader = findExifTiffHeader(data);
+            // the offset is relative to the TIFF header inside the APP1 segment
+            int offset = tiffHeader + thumbnailDirectory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
+            int length = thumbnailDirectory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH);
+            if (tiffHeader < 0 || length <= 0 || offset + length > data.length) {
+                return null;
+            }
+
+            BufferedImage embedded = ImageIO.read(new ByteArrayInputStream(data, offset, length));
+            if (embedded == null || !isLargeEnough(embedded, jpegDirectory.getImageWidth(), jpegDirectory.getImageHeight())) {
+                return null;
+            }
+            return Utilities.generateThumbnail(embedded, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
+        } catch (Exception e) {
+            logger.debug("Could not use the embedded thumbnail, decoding the photo instead", e);
+            return null;
+        }
+    }
+
+    private static boolean isLargeEnough(BufferedImage embedded, int photoWidth, int photoHeight) {
+        double photoRatio = (double) photoWidth / photoHeight;
+        double embeddedRatio = (double) embedded.getWidth() / embedded.getHeight();
+        if (Math.abs(photoRatio - embeddedRatio) / photoRatio > MAX_ASPECT_RATIO_DIFFERENCE) {
+            return false;
+        }
+        double scale = Math.min((double) THUMBNAIL_WIDTH / photoWidth, (double) THUMBNAIL_HEIGHT / photoHeight);
+        return embedded.getWidth() >= Math.round(photoWidth * scale) && embedded.getHeight() >= Math.round(photoHeight * scale);
+    }
+
+    /**
+     * Walks the JPEG header segments up to the image data looking for the EXIF APP1 segment.
+     *
+     * @return the position of the TIFF header inside the EXIF segment, -1 if there is none
+     */
+    private static int findExifTiffHeader(byte[] data) {
+        if (!PhotoMetadataExtractor.isJpeg(data)) {
+            return -1;
+        }
+        int position = 2;
+        while (position + 4 <= data.length && (data[position] & 0xFF) == 0xFF) {
+            int marker = data[position + 1] & 0xFF;
+            if (marker == START_OF_SCAN) {
+                return -1;
+            }
+            int length = ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            if (marker == APP1 && startsWith(data, position + 4, EXIF_PREAMBLE)) {
+                return position + 4 + EXIF_PREAMBLE.length;
+            }
+            position += 2 + length;
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        if (offset + prefix.length > data.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,18 @@
+package azar.gallery.metadata;
+
+import azar.gallery.entities.db.PhotoMetadata;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@AllArgsConstructor
+public class ProcessedPhoto {
+    private PhotoMetadata photoMetadata;
+
+    // empty if the image couldn't be decoded
+    private byte[] thumbnail;
+}
@@ -4,8 +4,10 @@ import azar.gallery.dal.service.PhotoService;
 import azar.shared.resources.BaseResource;
 import jakarta.annotation.security.PermitAll;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Response;
 
 /**
@@ -21,6 +23,12 @@ public class HeatmapResource extends BaseResource {
         this.photoService = photoService;
     }
 
+    /**
+     * Kept for older clients, thumbnails are left out and can be fetched from the thumbnail endpoint.
+     *
+     * @deprecated use /points, which sends aggregated locations instead of photos
+     */
+    @Deprecated
     @Path("/getPhotos")
     @GET
     @Transactional
@@ -29,4 +37,30 @@ public class HeatmapResource extends BaseResource {
         return ok(photoService.getHeatmapPhotos());
     }
 
+    @Path("/points")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getPoints(@QueryParam("zoom") @DefaultValue("2") int zoom,
+                              @QueryParam("minLat") @DefaultValue("-90") double minLat,
+                              @QueryParam("maxLat") @DefaultValue("90") double maxLat,
+                              @QueryParam("minLon") @DefaultValue("-180") double minLon,
+                              @QueryParam("maxLon") @DefaultValue("180") double maxLon) {
+        if (zoom < 0) {
+            return badRequest("Zoom can't be negative.");
+        }
+        if (minLat < -90 || maxLat > 90 || minLat > maxLat) {
+            return badRequest("Latitude bounds must be ordered and between -90 and 90.");
+        }
+        if (minLon < -180 || maxLon > 180 || minLon > maxLon) {
+            return badRequest("Longitude bounds must be ordered and between -180 and 180.");
+        }
+
+        try {
+            return ok(photoService.getHeatmap(zoom, minLat, maxLat, minLon, maxLon), "Sending heatmap points back to client");
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
 }
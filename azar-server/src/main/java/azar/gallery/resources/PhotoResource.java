@@ -5,30 +5,45 @@ import java.util.ArrayList;
 import java.util.List;
 import static azar.cloud.utils.Constants.ADMIN_GROUP;
 import static azar.cloud.utils.Constants.ADMIN_PREFIX_STRING;
+import azar.gallery.dal.service.PhotoRenditionService;
 import azar.gallery.dal.service.PhotoService;
 import azar.gallery.entities.db.GpsMetadata;
 import azar.gallery.entities.db.Photo;
-import azar.gallery.entities.db.PhotoMetadata;
+import azar.gallery.entities.db.PhotoRendition;
 import azar.gallery.entities.external.mapbox.api.LatLong;
 import azar.gallery.entities.external.mapbox.api.MBData;
 import azar.gallery.entities.external.mapbox.api.MBProperties;
 import azar.gallery.entities.requests.photo.PhotoReverseGeocodeRequest;
 import azar.gallery.entities.requests.photo.PhotoUpdateRequest;
+import azar.gallery.entities.responses.PhotoIdsResponse;
 import azar.gallery.entities.responses.ReverseGeocodeData;
 import azar.gallery.managers.GeocodeManager;
-import azar.gallery.metadata.PhotoMetadataExtractor;
-import azar.gallery.utils.Utilities;
+import azar.gallery.managers.PhotoImportManager;
+import azar.gallery.metadata.PhotoProcessor;
+import azar.gallery.metadata.ProcessedPhoto;
+import static azar.gallery.utils.Constants.MAX_AREA_PHOTOS;
+import static azar.gallery.utils.Constants.MAX_NEAREST_PHOTOS;
+import static azar.gallery.utils.Constants.MAX_PHOTO_PAGE_SIZE;
+import static azar.gallery.utils.Constants.MAX_SEARCH_RADIUS_KM;
+import static azar.gallery.utils.Utilities.getContentType;
+import azar.shared.dal.blob.BlobRef;
 import azar.shared.entities.requests.BaseRequest;
+import azar.shared.images.ThumbnailEncoder;
 import azar.shared.resources.BaseResource;
+import azar.shared.resources.ByteRange;
+import azar.shared.resources.EntityTag;
 import static azar.shared.utils.Utilities.getHumanReadableSize;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Response;
 
 /**
@@ -38,14 +53,21 @@ import jakarta.ws.rs.core.Response;
 @Path("/api/g/photo")
 public class PhotoResource extends BaseResource {
     private final PhotoService photoService;
-    private final PhotoMetadataExtractor photoMetadataExtractor;
+    private final PhotoProcessor photoProcessor;
     private final GeocodeManager geocodeManager;
+    private final PhotoImportManager photoImportManager;
+    private final PhotoRenditionService photoRenditionService;
+    private final ThumbnailEncoder thumbnailEncoder;
 
-    public PhotoResource(PhotoService photoService, PhotoMetadataExtractor photoMetadataExtractor,
-                         GeocodeManager geocodeManager) {
+    public PhotoResource(PhotoService photoService, PhotoProcessor photoProcessor, GeocodeManager geocodeManager,
+                         PhotoImportManager photoImportManager, PhotoRenditionService photoRenditionService,
+                         ThumbnailEncoder thumbnailEncoder) {
         this.photoService = photoService;
-        this.photoMetadataExtractor = photoMetadataExtractor;
+        this.photoProcessor = photoProcessor;
         this.geocodeManager = geocodeManager;
+        this.photoImportManager = photoImportManager;
+        this.photoRenditionService = photoRenditionService;
+        this.thumbnailEncoder = thumbnailEncoder;
     }
 
     @Path(ADMIN_PREFIX_STRING + "/upload")
@@ -62,18 +84,17 @@ public class PhotoResource extends BaseResource {
         } catch (Exception e) {
             return internalError("Failed to read uploaded file: %s".formatted(e.getMessage()));
         }
-        PhotoMetadata photoMetadata = photoMetadataExtractor.extractMetadataFromBytes(photoBytes);
-        byte[] thumbnailBytes = Utilities.generateThumbnail(photoBytes, 100, 200);
+        ProcessedPhoto processedPhoto = photoProcessor.process(photoBytes);
         Photo photo = Photo.builder()
                 .data(photoBytes)
                 .description("")
                 .name(file.fileName())
-                .photoMetadata(photoMetadata)
-                .thumbnail(thumbnailBytes)
+                .photoMetadata(processedPhoto.getPhotoMetadata())
+                .thumbnail(processedPhoto.getThumbnail())
                 .size(getHumanReadableSize(photoBytes))
                 .build();
 
-        Photo savedPhoto = photoService.merge(photo);
+        Photo savedPhoto = photoService.saveWithData(photo, photoBytes);
 
         Photo response = savedPhoto.toBuilder().build();
         photoService.detach(response);
@@ -83,6 +104,20 @@ public class PhotoResource extends BaseResource {
         return created(response, "Sending photo back to client");
     }
 
+    @Path(ADMIN_PREFIX_STRING + "/upload/bulk")
+    @Blocking
+    @POST
+    @RolesAllowed(ADMIN_GROUP)
+    public Response uploadPhotos(@org.jboss.resteasy.reactive.RestForm("files")
+                                 List<org.jboss.resteasy.reactive.multipart.FileUpload> files) {
+        if (files == null || files.isEmpty()) {
+            return badRequest("No files were uploaded.");
+        }
+
+        // not @Transactional, the import saves its photos in batches of their own transactions
+        return ok(photoImportManager.importPhotos(files), "Sending import report back to client");
+    }
+
     @Path("/getLightweight/{id}")
     @POST
     @Transactional
@@ -107,6 +142,167 @@ public class PhotoResource extends BaseResource {
         return ok(photoService.getWithPhotoById(photoId));
     }
 
+    @Path("/page")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getPage(@QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("50") int limit,
+                            @QueryParam("thumbnails") @DefaultValue("true") boolean thumbnails) {
+        if (limit < 1 || limit > MAX_PHOTO_PAGE_SIZE) {
+            return badRequest("Limit must be between 1 and %s.".formatted(MAX_PHOTO_PAGE_SIZE));
+        }
+
+        try {
+            return ok(photoService.getPage(cursor, limit, thumbnails), "Sending photo page back to client");
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    @Path("/thumbnail/{id}")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getThumbnail(@PathParam("id") int photoId) {
+        String thumbnailHash = photoService.getThumbnailHash(photoId);
+        if (thumbnailHash == null) {
+            return notFound("Photo %s doesn't exist".formatted(photoId));
+        }
+
+        EntityTag eTag = EntityTag.strong(thumbnailHash);
+        if (isNotModified(eTag)) {
+            // the same URL serves transcoded variants, so shared caches must key this answer by Accept too
+            return Response.fromResponse(notModified(eTag, "Thumbnail of photo %s wasn't modified".formatted(photoId)))
+                    .header("Vary", "Accept")
+                    .build();
+        }
+        byte[] thumbnail = photoService.getThumbnailById(photoId);
+        return okImage("Sending thumbnail of photo %s back to client".formatted(photoId),
+                thumbnailEncoder.negotiate(thumbnail, getRequestHeader("Accept")), eTag);
+    }
+
+    @Path("/{id}/original")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getOriginal(@PathParam("id") int photoId, @HeaderParam("Range") String rangeHeader) {
+        BlobRef dataRef = photoService.getDataRef(photoId);
+        if (dataRef == null) {
+            return notFound("Photo %s doesn't exist".formatted(photoId));
+        }
+
+        // If-None-Match is evaluated before Range
+        EntityTag eTag = EntityTag.strong(dataRef.getHash());
+        if (isNotModified(eTag)) {
+            return notModified(eTag, "Photo %s wasn't modified".formatted(photoId));
+        }
+
+        ByteRange range = ByteRange.parse(rangeHeader, dataRef.getSize());
+        if (range == null) {
+            return rangeNotSatisfiable(dataRef.getSize(), "Range %s can't be satisfied for photo %s".formatted(rangeHeader, photoId));
+        }
+
+        return okStream("Streaming photo %s back to client (%s)".formatted(photoId, range.toContentRange()),
+                getContentType(dataRef.getFileName()), null, range,
+                photoService.responseBody(dataRef, range.getStart(), range.length()), eTag);
+    }
+
+    @Path("/{id}/rendition/{size}")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getRendition(@PathParam("id") int photoId, @PathParam("size") int size) {
+        if (!photoRenditionService.isSupportedSize(size)) {
+            return badRequest("Rendition size must be one of %s.".formatted(photoRenditionService.getSizes()));
+        }
+
+        PhotoRendition rendition;
+        try {
+            rendition = photoRenditionService.getOrCreate(photoId, size);
+        } catch (IllegalStateException e) {
+            return internalError(e.getMessage());
+        }
+        if (rendition == null) {
+            return notFound("Photo %s doesn't exist".formatted(photoId));
+        }
+
+        // renditions never change, their content hash identifies them
+        EntityTag eTag = EntityTag.strong(rendition.getContentHash());
+        if (isNotModified(eTag)) {
+            return notModified(eTag, "Rendition %s of photo %s wasn't modified".formatted(size, photoId));
+        }
+        return okImage("Sending rendition %s of photo %s back to client".formatted(size, photoId),
+                rendition.getContentType(), photoRenditionService.readContent(rendition), eTag);
+    }
+
+    @Path("/area")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getInArea(@QueryParam("minLat") @DefaultValue("-90") double minLat,
+                              @QueryParam("maxLat") @DefaultValue("90") double maxLat,
+                              @QueryParam("minLon") @DefaultValue("-180") double minLon,
+                              @QueryParam("maxLon") @DefaultValue("180") double maxLon,
+                              @QueryParam("limit") @DefaultValue("500") int limit) {
+        if (minLat < -90 || maxLat > 90 || minLat > maxLat || minLon < -180 || maxLon > 180 || minLon > maxLon) {
+            return badRequest("The bounding box must be ordered and inside -90..90 / -180..180.");
+        }
+        if (limit < 1 || limit > MAX_AREA_PHOTOS) {
+            return badRequest("Limit must be between 1 and %s.".formatted(MAX_AREA_PHOTOS));
+        }
+
+        return ok(photoService.getInBoundingBox(minLat, maxLat, minLon, maxLon, limit), "Sending photos in area back to client");
+    }
+
+    @Path("/near")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getNear(@QueryParam("lat") Double latitude, @QueryParam("lon") Double longitude,
+                            @QueryParam("radiusKm") @DefaultValue("1") double radiusKm,
+                            @QueryParam("limit") @DefaultValue("500") int limit) {
+        if (isInvalidLocation(latitude, longitude)) {
+            return badRequest("Location must be inside -90..90 / -180..180.");
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_SEARCH_RADIUS_KM) {
+            return badRequest("Radius must be positive and up to %s km.".formatted(MAX_SEARCH_RADIUS_KM));
+        }
+        if (limit < 1 || limit > MAX_AREA_PHOTOS) {
+            return badRequest("Limit must be between 1 and %s.".formatted(MAX_AREA_PHOTOS));
+        }
+
+        return ok(photoService.getWithinRadius(latitude, longitude, radiusKm, limit), "Sending photos near location back to client");
+    }
+
+    @Path("/nearest")
+    @GET
+    @Transactional
+    @PermitAll
+    public Response getNearest(@QueryParam("lat") Double latitude, @QueryParam("lon") Double longitude,
+                               @QueryParam("count") @DefaultValue("10") int count) {
+        if (isInvalidLocation(latitude, longitude)) {
+            return badRequest("Location must be inside -90..90 / -180..180.");
+        }
+        if (count < 1 || count > MAX_NEAREST_PHOTOS) {
+            return badRequest("Count must be between 1 and %s.".formatted(MAX_NEAREST_PHOTOS));
+        }
+
+        return ok(photoService.getNearest(latitude, longitude, count), "Sending nearest photos back to client");
+    }
+
+    @Path("/ids")
+    @GET
+    @Transactional(Transactional.TxType.SUPPORTS)
+    @PermitAll
+    public Response getIdList() {
+        PhotoIdsResponse photoIds = photoService.getPhotoIds();
+        EntityTag eTag = EntityTag.weak(photoIds.getVersion());
+        if (isNotModified(eTag)) {
+            return notModified(eTag, "Photo ids weren't modified");
+        }
+        return ok(photoIds, "Sending photo ids back to client", eTag);
+    }
+
     @Path("/getIds")
     @GET
     @Transactional(Transactional.TxType.SUPPORTS)
@@ -213,4 +409,8 @@ public class PhotoResource extends BaseResource {
         return ok(null);
     }
 
+    private static boolean isInvalidLocation(Double latitude, Double longitude) {
+        return latitude == null || longitude == null || Math.abs(latitude) > 90 || Math.abs(longitude) > 180;
+    }
+
 }
@@ -8,4 +8,12 @@ public class Constants {
 
     public static final String REVERSE_GEOCODE_SINGLE_BASE_URL = "https://api.mapbox.com/search/geocode/v6/reverse";
     public static final String REVERSE_GEOCODE_BATCH_BASE_URL = "https://api.mapbox.com/search/geocode/v6/batch";
+    public static final int MAX_PHOTO_PAGE_SIZE = 100;
+    public static final int MAX_HEATMAP_TILES = 256;
+    public static final int MAX_AREA_PHOTOS = 1000;
+    public static final int MAX_NEAREST_PHOTOS = 100;
+    public static final double MAX_SEARCH_RADIUS_KM = 1000;
+    // the endpoints that send a photo's bytes, by id
+    public static final String PHOTO_ORIGINAL_URL = "/api/g/photo/%s/original";
+    public static final String PHOTO_THUMBNAIL_URL = "/api/g/photo/thumbnail/%s";
 }
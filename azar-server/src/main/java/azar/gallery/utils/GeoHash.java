@@ -0,0 +1,135 @@
+package azar.gallery.utils;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Geohash encoding and bounding box coverage, so spatial lookups become btree prefix scans
+ **/
+public class GeoHash {
+
+    public static final int PRECISION = 12;
+    // the maximum amount of prefixes a bounding box is covered with, each one is an index range scan
+    public static final int MAX_COVER_CELLS = 16;
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Encodes a location by interleaving longitude and latitude bisection bits, longitude first.
+     *
+     * @param latitude  - the latitude in degrees
+     * @param longitude - the longitude in degrees
+     * @param precision - the amount of characters
+     *
+     * @return the geohash
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean isLongitude = true;
+        int bits = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            if (isLongitude) {
+                double mid = (minLon + maxLon) / 2;
+                index <<= 1;
+                if (longitude >= mid) {
+                    index |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                index <<= 1;
+                if (latitude >= mid) {
+                    index |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+            isLongitude = !isLongitude;
+            if (++bits == 5) {
+                hash.append(BASE32.charAt(index));
+                bits = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Covers a bounding box with the longest geohash prefixes that need at most MAX_COVER_CELLS cells.
+     * The cells may exceed the box, so matches still need to be filtered by their coordinates.
+     *
+     * @return the prefixes, a single empty prefix if the box is too large to cover with any precision
+     */
+    public static Set<String> cover(double minLat, double maxLat, double minLon, double maxLon) {
+        for (int precision = PRECISION; precision > 0; precision--) {
+            double cellWidth = cellWidth(precision);
+            double cellHeight = cellHeight(precision);
+            long minX = (long) Math.floor((minLon + 180) / cellWidth);
+            long maxX = Math.min((long) Math.floor((maxLon + 180) / cellWidth), (long) (360 / cellWidth) - 1);
+            long minY = (long) Math.floor((minLat + 90) / cellHeight);
+            long maxY = Math.min((long) Math.floor((maxLat + 90) / cellHeight), (long) (180 / cellHeight) - 1);
+            if ((maxX - minX + 1) * (maxY - minY + 1) > MAX_COVER_CELLS) {
+                continue;
+            }
+
+            Set<String> prefixes = new LinkedHashSet<>();
+            for (long x = minX; x <= maxX; x++) {
+                for (long y = minY; y <= maxY; y++) {
+                    prefixes.add(encode((y + 0.5) * cellHeight - 90, (x + 0.5) * cellWidth - 180, precision));
+                }
+            }
+            return prefixes;
+        }
+        return Set.of("");
+    }
+
+    /**
+     * The great-circle distance between two locations.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * The latitude span of a radius around a location.
+     */
+    public static double latitudeDelta(double radiusKm) {
+        return radiusKm / KM_PER_DEGREE;
+    }
+
+    /**
+     * The longitude span of a radius around a location, the whole globe near the poles.
+     */
+    public static double longitudeDelta(double latitude, double radiusKm) {
+        double cos = Math.cos(Math.toRadians(latitude));
+        return cos < 1e-6 ? 360 : radiusKm / (KM_PER_DEGREE * cos);
+    }
+
+    private static double cellWidth(int precision) {
+        return 360 / Math.pow(2, Math.ceil(precision * 5 / 2.0));
+    }
+
+    private static double cellHeight(int precision) {
+        return 180 / Math.pow(2, Math.floor(precision * 5 / 2.0));
+    }
+
+}
@@ -0,0 +1,60 @@
+package azar.gallery.utils;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Splits the map into square tiles per zoom level (2^zoom columns over 360 degrees of longitude),
+ *          each tile into CELLS_PER_TILE x CELLS_PER_TILE heatmap cells. Tiles are what gets cached,
+ *          cells are what gets aggregated into a single weighted point.
+ **/
+public class HeatmapGrid {
+
+    public static final int MAX_ZOOM = 16;
+    public static final int CELLS_PER_TILE = 16;
+
+    private HeatmapGrid() {
+    }
+
+    public static int clampZoom(int zoom) {
+        return Math.max(0, Math.min(MAX_ZOOM, zoom));
+    }
+
+    public static double tileSize(int zoom) {
+        return 360.0 / (1 << zoom);
+    }
+
+    public static double cellSize(int zoom) {
+        return tileSize(zoom) / CELLS_PER_TILE;
+    }
+
+    public static int columns(int zoom) {
+        return 1 << zoom;
+    }
+
+    public static int rows(int zoom) {
+        return Math.max(1, columns(zoom) / 2);
+    }
+
+    public static int tileX(int zoom, double longitude) {
+        int x = (int) Math.floor((longitude + 180) / tileSize(zoom));
+        return Math.max(0, Math.min(columns(zoom) - 1, x));
+    }
+
+    public static int tileY(int zoom, double latitude) {
+        int y = (int) Math.floor((latitude + 90) / tileSize(zoom));
+        return Math.max(0, Math.min(rows(zoom) - 1, y));
+    }
+
+    public static double tileMinLongitude(int zoom, int x) {
+        return x * tileSize(zoom) - 180;
+    }
+
+    public static double tileMinLatitude(int zoom, int y) {
+        return y * tileSize(zoom) - 90;
+    }
+
+    public static String tileKey(int zoom, int x, int y) {
+        return "%d/%d/%d".formatted(zoom, x, y);
+    }
+
+}
@@ -2,8 +2,15 @@ package azar.gallery.utils;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Iterator;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import azar.shared.images.ImageFormat;
+import jakarta.ws.rs.core.MediaType;
 import net.coobird.thumbnailator.Thumbnails;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,33 +25,103 @@ public class Utilities {
     private Utilities() {
     }
 
-    public static byte[] generateThumbnail(byte[] imageBytes, int width, int height) {
+    /**
+     * @param fileName - a photo file name
+     *
+     * @return the media type its extension stands for, application/octet-stream if it's unknown
+     */
+    public static String getContentType(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        ImageFormat format = ImageFormat.fromName(fileName.substring(dot + 1));
+        if (format != null) {
+            return format.getMediaType();
+        }
+        String contentType = URLConnection.guessContentTypeFromName(fileName);
+        return contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * Scales an image into a thumbnail that fits inside width x height.
+     * The image is decoded with source subsampling, so only about twice the thumbnail resolution
+     * is ever held in memory no matter how large the photo is.
+     *
+     * @return the thumbnail, or null if the image can't be decoded
+     */
+    public static BufferedImage generateThumbnail(byte[] imageBytes, int width, int height) {
         try {
             if (imageBytes == null || imageBytes.length == 0) {
                 logger.error("Input image bytes are empty or null");
-                return new byte[0];
+                return null;
             }
 
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(imageBytes);
-            BufferedImage originalImage = ImageIO.read(inputStream);
+            BufferedImage originalImage = decodeSubsampled(imageBytes, width, height);
 
             if (originalImage == null) {
                 logger.error("Failed to decode input image");
-                return new byte[0];
+                return null;
             }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            Thumbnails.of(originalImage)
-                    .size(width, height)
-                    .outputQuality(1.0)
-                    .outputFormat("png")
-                    .toOutputStream(outputStream);
-
-            return outputStream.toByteArray();
+            return generateThumbnail(originalImage, width, height);
         } catch (Exception e) {
             logger.error("Failed to generate thumbnail", e);
         }
-        return new byte[0];
+        return null;
     }
-}
 
+    public static BufferedImage generateThumbnail(BufferedImage image, int width, int height) throws IOException {
+        return Thumbnails.of(image)
+                .size(width, height)
+                .asBufferedImage();
+    }
+
+    /**
+     * Scales an image down so its longest edge is at most maxEdge, smaller images keep their size.
+     * Like thumbnails, the image is decoded subsampled.
+     *
+     * @return the scaled RGB image, or null if the image can't be decoded
+     */
+    public static BufferedImage scaleDown(byte[] imageBytes, int maxEdge) throws IOException {
+        BufferedImage image = decodeSubsampled(imageBytes, maxEdge, maxEdge);
+        if (image == null) {
+            return null;
+        }
+        Thumbnails.Builder<BufferedImage> builder = Thumbnails.of(image).imageType(BufferedImage.TYPE_INT_RGB);
+        if (Math.max(image.getWidth(), image.getHeight()) > maxEdge) {
+            builder.size(maxEdge, maxEdge);
+        } else {
+            builder.scale(1.0);
+        }
+        return builder.asBufferedImage();
+    }
+
+    /**
+     * Decodes an image keeping every n-th pixel of every n-th row, n chosen so the result is still
+     * at least twice the size of a width x height thumbnail. The dimensions come from the header,
+     * so nothing is decoded before n is known.
+     *
+     * @return the decoded image, or null if no reader supports the format
+     */
+    private static BufferedImage decodeSubsampled(byte[] imageBytes, int width, int height) throws IOException {
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(inputStream, true, true);
+                double ratio = Math.max((double) reader.getWidth(0) / width, (double) reader.getHeight(0) / height);
+                int subsampling = Math.max(1, (int) (ratio / 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
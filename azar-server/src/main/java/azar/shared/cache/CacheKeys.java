@@ -9,7 +9,26 @@ public class CacheKeys {
     private CacheKeys() {
     }
 
+    /* Regions */
+    public static final String DEFAULT_REGION = "default";
+    public static final String BINARY_REGION = "binary";
+    public static final String WEATHER_REGION = "weather";
+    public static final String FORECAST_REGION = "forecast";
+    public static final String PHOTO_IDS_REGION = "photoIds";
+    public static final String HEATMAP_REGION = "heatmap";
+    public static final String ENTITY_COUNT_REGION = "entityCount";
+
+    /* Images */
+    public static final String THUMBNAIL_VARIANT = "thumbnailVariant:%s:%s";
+
     /* AzarCloud */
     public static final String PDF_THUMBNAIL = "pdfThumbnail:%s";
 
+    /* Gallery */
+    public static final String PHOTO_IDS = "photoIds";
+    public static final String PHOTO_RENDITION = "photoRendition:%s";
+
+    /* Weather */
+    public static final String LAT_LONG = "%s,%s";
+
 }
@@ -1,8 +1,11 @@
 package azar.shared.cache;
 
-import java.util.concurrent.TimeUnit;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import azar.shared.entities.responses.CacheStatsResponse;
+import azar.shared.properties.AppProperties;
 import jakarta.enterprise.context.ApplicationScoped;
 
 /**
@@ -12,13 +15,49 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class CacheManager {
 
-    private final Cache<String, String> cache;
+    private final Map<String, CacheRegion<?, ?>> regions = new ConcurrentHashMap<>();
+    private final CacheRegion<String, String> cache;
+    // binary values (e.g. thumbnails) are bounded by their total size rather than by entry count
+    private final CacheRegion<String, byte[]> binaryCache;
 
-    public CacheManager() {
-        this.cache = CacheBuilder.newBuilder()
+    public CacheManager(AppProperties appProperties) {
+        this.cache = region(CacheRegionSpec.<String, String>builder()
+                .name(CacheKeys.DEFAULT_REGION)
+                .valueType(String.class)
+                .ttl(Duration.ofHours(1))
                 .maximumSize(10000)
-                .expireAfterWrite(1, TimeUnit.HOURS)
-                .build();
+                .build());
+        this.binaryCache = region(CacheRegionSpec.<String, byte[]>builder()
+                .name(CacheKeys.BINARY_REGION)
+                .valueType(byte[].class)
+                .ttl(Duration.ofHours(1))
+                .maximumWeight(appProperties.getBinaryCacheMaxMb() * 1024L * 1024L)
+                .weigher(value -> value.length)
+                .build());
+    }
+
+    /**
+     * Returns the region with the spec name, creating it on first use.
+     *
+     * @param spec - the region definition
+     *
+     * @return the region
+     * @throws IllegalStateException if the region was already created with a different spec
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> CacheRegion<K, V> region(CacheRegionSpec<K, V> spec) {
+        CacheRegion<?, ?> region = regions.computeIfAbsent(spec.getName(), name -> new CacheRegion<>(spec));
+        CacheRegionSpec<?, ?> existing = region.getSpec();
+        if (!existing.getValueType().equals(spec.getValueType())) {
+            throw new IllegalStateException("Cache region %s already holds %s values".formatted(
+                    spec.getName(), existing.getValueType().getSimpleName()));
+        }
+        String mismatch = mismatch(existing, spec);
+        if (mismatch != null) {
+            throw new IllegalStateException("Cache region %s was already created with a different %s".formatted(
+                    spec.getName(), mismatch));
+        }
+        return (CacheRegion<K, V>) region;
     }
 
     public void put(String key, String value) {
@@ -26,11 +65,61 @@ public class CacheManager {
     }
 
     public String get(String key) {
-        return cache.getIfPresent(key);
+        return cache.get(key);
     }
 
     public void remove(String key) {
-        cache.invalidate(key);
+        cache.remove(key);
+    }
+
+    public void putBytes(String key, byte[] value) {
+        binaryCache.put(key, value);
+    }
+
+    /**
+     * @param key - the cache key
+     *
+     * @return the cached bytes as stored, callers must not modify them
+     */
+    public byte[] getBytes(String key) {
+        return binaryCache.get(key);
+    }
+
+    public void removeBytes(String key) {
+        binaryCache.remove(key);
+    }
+
+    public Map<String, CacheStatsResponse> getStats() {
+        Map<String, CacheStatsResponse> stats = new TreeMap<>();
+        regions.forEach((name, region) -> stats.put(name, region.stats()));
+        return stats;
+    }
+
+    /**
+     * Weighers and loaders are lambdas without a meaningful equals, so only whether they are set is compared.
+     *
+     * @return the first setting that differs between the specs, or null if they match
+     */
+    private static String mismatch(CacheRegionSpec<?, ?> existing, CacheRegionSpec<?, ?> spec) {
+        if (existing == spec) {
+            return null;
+        }
+        if (!existing.getTtl().equals(spec.getTtl())) {
+            return "ttl";
+        }
+        if (existing.isWeighted() != spec.isWeighted()) {
+            return "weigher";
+        }
+        if (existing.isWeighted() && existing.getMaximumWeight() != spec.getMaximumWeight()) {
+            return "maximum weight";
+        }
+        if (!existing.isWeighted() && existing.getMaximumSize() != spec.getMaximumSize()) {
+            return "maximum size";
+        }
+        if ((existing.getLoader() == null) != (spec.getLoader() == null)) {
+            return "loader";
+        }
+        return null;
     }
 
 }
@@ -0,0 +1,101 @@
+package azar.shared.cache;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import azar.shared.entities.responses.CacheStatsResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: A typed cache region, created through CacheManager.region
+ **/
+public class CacheRegion<K, V> {
+
+    @Getter
+    private final CacheRegionSpec<K, V> spec;
+    private final Cache<K, V> cache;
+
+    CacheRegion(CacheRegionSpec<K, V> spec) {
+        this.spec = spec;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .expireAfterWrite(spec.getTtl())
+                .recordStats();
+        if (spec.isWeighted()) {
+            builder.maximumWeight(spec.getMaximumWeight())
+                    .weigher((K key, V value) -> spec.getWeigher().applyAsInt(value));
+        } else {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        this.cache = builder.build();
+    }
+
+    public V get(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    public void remove(K key) {
+        cache.invalidate(key);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Read-through using the region loader.
+     *
+     * @param key - the cache key
+     *
+     * @return the cached or loaded value, null if the loader found nothing
+     */
+    public V getOrLoad(K key) {
+        if (spec.getLoader() == null) {
+            throw new IllegalStateException("Cache region %s has no loader".formatted(spec.getName()));
+        }
+        return getOrLoad(key, spec.getLoader());
+    }
+
+    /**
+     * Read-through with an explicit loader. Concurrent misses on the same key wait for a single load.
+     * Null results are returned as-is and not cached.
+     *
+     * @param key    - the cache key
+     * @param loader - loads the value on a miss
+     *
+     * @return the cached or loaded value, null if the loader found nothing
+     */
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        try {
+            return cache.get(key, () -> loader.apply(key));
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            // the loader returned null
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed loading %s into cache region %s".formatted(key, spec.getName()), e.getCause());
+        }
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        long weight = spec.isWeighted()
+                ? cache.asMap().values().stream().mapToLong(value -> spec.getWeigher().applyAsInt(value)).sum()
+                : cache.size();
+        long limit = spec.isWeighted() ? spec.getMaximumWeight() : spec.getMaximumSize();
+        return new CacheStatsResponse(stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate(),
+                cache.size(), weight, limit);
+    }
+
+}
@@ -0,0 +1,40 @@
+package azar.shared.cache;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Describes a cache region - its value type, expiry, bound and optional read-through loader
+ **/
+@Getter
+@Builder
+public class CacheRegionSpec<K, V> {
+
+    private final String name;
+
+    private final Class<V> valueType;
+
+    @Builder.Default
+    private final Duration ttl = Duration.ofHours(1);
+
+    // used when no weigher is set
+    @Builder.Default
+    private final long maximumSize = 10_000;
+
+    // used together with the weigher, e.g. a byte budget
+    private final long maximumWeight;
+
+    private final ToIntFunction<V> weigher;
+
+    private final Function<K, V> loader;
+
+    public boolean isWeighted() {
+        return weigher != null;
+    }
+
+}
@@ -0,0 +1,25 @@
+package azar.shared.dal.blob;
+
+import azar.shared.entities.db.Blob;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Points at the blob behind a file without holding its content
+ **/
+@Getter
+@AllArgsConstructor
+public class BlobRef {
+    private final String fileName;
+    private final Blob blob;
+
+    public long getSize() {
+        return blob.getSize();
+    }
+
+    public String getHash() {
+        return blob.getHash();
+    }
+}
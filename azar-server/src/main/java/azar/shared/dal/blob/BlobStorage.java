@@ -0,0 +1,73 @@
+package azar.shared.dal.blob;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import azar.shared.entities.db.Blob;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Where blob content physically lives. Implementations only move bytes,
+ *          reference counting and the blobs table are handled by BlobService.
+ **/
+public interface BlobStorage {
+
+    /**
+     * @return the name stored in blobs.storage for content written by this storage
+     */
+    String getName();
+
+    /**
+     * @return true if writes and deletes are part of the current DB transaction and roll back with it
+     */
+    boolean isTransactional();
+
+    /**
+     * Copies a file into the storage.
+     *
+     * @param hash - the content hash
+     * @param file - the content
+     *
+     * @return a blob describing where the content was written, not persisted yet
+     */
+    Blob write(String hash, Path file) throws IOException;
+
+    Blob write(String hash, byte[] data) throws IOException;
+
+    /**
+     * @param blob   - the blob to read
+     * @param offset - the first byte to send
+     * @param length - the amount of bytes to send
+     *
+     * @return a StreamingOutput writing the requested slice, without loading it into the heap
+     */
+    StreamingOutput stream(Blob blob, long offset, long length);
+
+    /**
+     * The HTTP response entity sending a slice of the content. Storages that can hand the slice to the
+     * HTTP server as it is override this, the others send it through stream.
+     *
+     * @param blob   - the blob to send
+     * @param offset - the first byte to send
+     * @param length - the amount of bytes to send
+     *
+     * @return an entity writing exactly length bytes
+     */
+    default Object responseBody(Blob blob, long offset, long length) {
+        return stream(blob, offset, length);
+    }
+
+    byte[] read(Blob blob) throws IOException;
+
+    /**
+     * Copies the content into a file, inside the current transaction where the storage has one.
+     *
+     * @param blob   - the blob to copy
+     * @param target - the file to write, replaced if it exists
+     */
+    void export(Blob blob, Path target) throws IOException;
+
+    void delete(Blob blob) throws IOException;
+
+}
@@ -0,0 +1,160 @@
+package azar.shared.dal.blob;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import azar.shared.entities.db.Blob;
+import azar.shared.properties.AppProperties;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.jboss.resteasy.reactive.PathPart;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Keeps blob content as files under a root directory, sharded by the first hash bytes (ab/cd/abcd...).
+ *          Files are written once and never modified, every write gets its own file name,
+ *          so deleting one blob's file can never affect a concurrent write of the same content.
+ **/
+@ApplicationScoped
+public class FileSystemBlobStorage implements BlobStorage {
+    public static final String NAME = "filesystem";
+
+    private final Path root;
+
+    @Inject
+    public FileSystemBlobStorage(AppProperties appProperties) {
+        this(Paths.get(appProperties.getBlobStorageRoot()));
+    }
+
+    FileSystemBlobStorage(Path root) {
+        this.root = root.toAbsolutePath();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public Blob write(String hash, Path file) throws IOException {
+        String location = newLocation(hash);
+        Path target = root.resolve(location);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+            return publish(hash, location, tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public Blob write(String hash, byte[] data) throws IOException {
+        String location = newLocation(hash);
+        Path target = root.resolve(location);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.write(tmp, data);
+            return publish(hash, location, tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Transfers the slice with FileChannel.transferTo. The target is a plain OutputStream rather than a socket
+     * or a file, so the JDK still copies through a buffer. HTTP responses go through responseBody instead.
+     */
+    @Override
+    public StreamingOutput stream(Blob blob, long offset, long length) {
+        Path path = resolve(blob);
+        return output -> {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(output);
+                long position = offset;
+                long remaining = length;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, target);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                    remaining -= sent;
+                }
+                output.flush();
+            }
+        };
+    }
+
+    /**
+     * The slice as a file region, the HTTP server sends it with sendfile so the content never enters the heap.
+     */
+    @Override
+    public Object responseBody(Blob blob, long offset, long length) {
+        return new PathPart(resolve(blob), offset, length);
+    }
+
+    @Override
+    public byte[] read(Blob blob) throws IOException {
+        return Files.readAllBytes(resolve(blob));
+    }
+
+    @Override
+    public void export(Blob blob, Path target) throws IOException {
+        Files.copy(resolve(blob), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void delete(Blob blob) throws IOException {
+        Files.deleteIfExists(resolve(blob));
+    }
+
+    private Blob publish(String hash, String location, Path tmp, Path target) throws IOException {
+        // make the content durable before any row points at it, the file first and then its name
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        // the shard directories may be new too, so their entries are synced up to the root
+        for (Path directory = target.getParent(); directory.startsWith(root); directory = directory.getParent()) {
+            syncDirectory(directory);
+        }
+        return Blob.builder()
+                .hash(hash)
+                .storage(NAME)
+                .location(location)
+                .size(Files.size(target))
+                .build();
+    }
+
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Path resolve(Blob blob) {
+        return root.resolve(blob.getLocation());
+    }
+
+    private static String newLocation(String hash) {
+        return "%s/%s/%s-%s".formatted(hash.substring(0, 2), hash.substring(2, 4), hash, UUID.randomUUID());
+    }
+
+}
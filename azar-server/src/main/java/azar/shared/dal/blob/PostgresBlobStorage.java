@@ -0,0 +1,78 @@
+package azar.shared.dal.blob;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import azar.shared.dal.dao.BlobDao;
+import azar.shared.dal.lob.LargeObjectStreamer;
+import azar.shared.entities.db.Blob;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Keeps blob content in Postgres large objects, inside the caller's transaction
+ **/
+@ApplicationScoped
+public class PostgresBlobStorage implements BlobStorage {
+    public static final String NAME = "postgres";
+
+    private final BlobDao blobDao;
+    private final LargeObjectStreamer largeObjectStreamer;
+
+    public PostgresBlobStorage(BlobDao blobDao, LargeObjectStreamer largeObjectStreamer) {
+        this.blobDao = blobDao;
+        this.largeObjectStreamer = largeObjectStreamer;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public Blob write(String hash, Path file) throws IOException {
+        return toBlob(hash, blobDao.createLargeObject(file), Files.size(file));
+    }
+
+    @Override
+    public Blob write(String hash, byte[] data) {
+        return toBlob(hash, blobDao.createLargeObject(data), data.length);
+    }
+
+    @Override
+    public StreamingOutput stream(Blob blob, long offset, long length) {
+        return largeObjectStreamer.stream(blob.getData(), offset, length);
+    }
+
+    @Override
+    public byte[] read(Blob blob) {
+        return blobDao.readLargeObject(blob.getData());
+    }
+
+    @Override
+    public void export(Blob blob, Path target) {
+        blobDao.exportLargeObject(blob.getData(), target);
+    }
+
+    @Override
+    public void delete(Blob blob) {
+        blobDao.unlinkLargeObject(blob.getData());
+    }
+
+    private Blob toBlob(String hash, long oid, long size) {
+        return Blob.builder()
+                .hash(hash)
+                .storage(NAME)
+                .data(oid)
+                .size(size)
+                .build();
+    }
+
+}
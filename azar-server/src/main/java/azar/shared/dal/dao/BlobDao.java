@@ -0,0 +1,174 @@
+package azar.shared.dal.dao;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import azar.shared.entities.db.Blob;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Reference counted access to the blobs table, all counting is done in single statements
+ *          so concurrent uploads and deletes of the same content can't lose a reference
+ **/
+@ApplicationScoped
+public class BlobDao extends GenericDao<Blob> {
+    private static final String COLUMNS = "hash, storage, data, location, size, id";
+
+    /**
+     * Adds a reference to content that is already stored.
+     *
+     * @param hash - the content hash
+     *
+     * @return the existing blob, or null if the content isn't stored yet
+     */
+    public Blob acquire(String hash) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("UPDATE blobs SET ref_count = ref_count + 1 WHERE hash = :hash RETURNING " + COLUMNS)
+                .setParameter("hash", hash)
+                .getResultList();
+        return rows.isEmpty() ? null : toBlob((Object[]) rows.get(0));
+    }
+
+    /**
+     * Stores new content, or adds a reference if another transaction stored the same content in the meantime.
+     *
+     * @param written - the content as written by a BlobStorage
+     *
+     * @return the stored blob, which isn't the written one if the content was already stored
+     */
+    public Blob insertOrAcquire(Blob written) {
+        Object[] row = (Object[]) getEntityManager()
+                .createNativeQuery("INSERT INTO blobs (hash, storage, data, location, size, ref_count) " +
+                        "VALUES (:hash, :storage, :data, :location, :size, 1) " +
+                        "ON CONFLICT (hash) DO UPDATE SET ref_count = blobs.ref_count + 1 " +
+                        "RETURNING " + COLUMNS)
+                .setParameter("hash", written.getHash())
+                .setParameter("storage", written.getStorage())
+                .setParameter("data", written.getData())
+                .setParameter("location", written.getLocation())
+                .setParameter("size", written.getSize())
+                .getSingleResult();
+        return toBlob(row);
+    }
+
+    /**
+     * Drops a reference, deleting the blob row once nothing references it.
+     * The delete only matches a last reference, if an acquire raised the count in between it is decremented instead.
+     *
+     * @param hash - the content hash
+     *
+     * @return the deleted blob whose content should be removed, or null if it's still referenced
+     */
+    public Blob release(String hash) {
+        while (true) {
+            int decremented = getEntityManager()
+                    .createNativeQuery("UPDATE blobs SET ref_count = ref_count - 1 WHERE hash = :hash AND ref_count > 1")
+                    .setParameter("hash", hash)
+                    .executeUpdate();
+            if (decremented > 0) {
+                return null;
+            }
+            List<?> rows = getEntityManager()
+                    .createNativeQuery("DELETE FROM blobs WHERE hash = :hash AND ref_count <= 1 RETURNING " + COLUMNS)
+                    .setParameter("hash", hash)
+                    .getResultList();
+            if (!rows.isEmpty()) {
+                return toBlob((Object[]) rows.get(0));
+            }
+            if (getByHash(hash) == null) {
+                return null;
+            }
+        }
+    }
+
+    public Blob getByHash(String hash) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("SELECT " + COLUMNS + " FROM blobs WHERE hash = :hash")
+                .setParameter("hash", hash)
+                .getResultList();
+        return rows.isEmpty() ? null : toBlob((Object[]) rows.get(0));
+    }
+
+    /**
+     * Locks a batch of blobs that aren't in the given storage yet, in id order, skipping blobs locked by another migration.
+     *
+     * @param storage   - the target storage name
+     * @param afterId   - only blobs after this id are read
+     * @param batchSize - the maximum amount of blobs
+     *
+     * @return the locked blobs
+     */
+    public List<Blob> lockBatchNotIn(String storage, long afterId, int batchSize) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery("SELECT " + COLUMNS + " FROM blobs WHERE storage <> :storage AND id > :afterId " +
+                        "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED")
+                .setParameter("storage", storage)
+                .setParameter("afterId", afterId)
+                .setParameter("limit", batchSize)
+                .getResultList();
+        return rows.stream().map(row -> toBlob((Object[]) row)).toList();
+    }
+
+    public long countNotIn(String storage) {
+        return count("storage <> ?1", storage);
+    }
+
+    public void updateLocation(Blob moved) {
+        getEntityManager()
+                .createNativeQuery("UPDATE blobs SET storage = :storage, data = :data, location = :location WHERE hash = :hash")
+                .setParameter("storage", moved.getStorage())
+                .setParameter("data", moved.getData())
+                .setParameter("location", moved.getLocation())
+                .setParameter("hash", moved.getHash())
+                .executeUpdate();
+    }
+
+    public long createLargeObject(byte[] data) {
+        Object oid = getEntityManager()
+                .createNativeQuery("SELECT lo_from_bytea(0, :data)")
+                .setParameter("data", data)
+                .getSingleResult();
+        return ((Number) oid).longValue();
+    }
+
+    public byte[] readLargeObject(long oid) {
+        return (byte[]) getEntityManager()
+                .createNativeQuery("SELECT lo_get(:oid)")
+                .setParameter("oid", oid)
+                .getSingleResult();
+    }
+
+    public void unlinkLargeObject(long oid) {
+        getEntityManager()
+                .createNativeQuery("SELECT lo_unlink(:oid)")
+                .setParameter("oid", oid)
+                .getSingleResult();
+    }
+
+    /**
+     * The columns read by toBlob, for queries that join blobs under an alias.
+     */
+    public static String qualifiedColumns(String alias) {
+        return Stream.of(COLUMNS.split(", "))
+                .map(column -> alias + "." + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    public static Blob toBlob(Object[] row, int offset) {
+        return Blob.builder()
+                .hash((String) row[offset])
+                .storage((String) row[offset + 1])
+                .data(row[offset + 2] == null ? null : ((Number) row[offset + 2]).longValue())
+                .location((String) row[offset + 3])
+                .size(((Number) row[offset + 4]).longValue())
+                .id(((Number) row[offset + 5]).longValue())
+                .build();
+    }
+
+    private static Blob toBlob(Object[] row) {
+        return toBlob(row, 0);
+    }
+
+}
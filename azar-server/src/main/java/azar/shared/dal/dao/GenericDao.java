@@ -1,9 +1,33 @@
 package azar.shared.dal.dao;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
+import azar.shared.cache.CacheKeys;
+import azar.shared.cache.CacheManager;
+import azar.shared.cache.CacheRegionSpec;
+import azar.shared.dal.keyset.KeysetCursor;
+import azar.shared.dal.keyset.KeysetQuery;
+import azar.shared.dal.keyset.KeysetSort;
+import static azar.shared.dal.lob.LargeObjectStreamer.CHUNK_SIZE;
+import azar.shared.entities.responses.PageResponse;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
-import io.quarkus.panache.common.Page;
+import jakarta.inject.Inject;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,8 +37,20 @@ import org.slf4j.LoggerFactory;
  * Purpose: Generic Dao definition
  **/
 public abstract class GenericDao<T> implements PanacheRepository<T> {
+    // below it the statistics aren't worth their staleness, counting is cheap anyway
+    private static final long EXACT_COUNT_THRESHOLD = 10_000;
+    private static final CacheRegionSpec<String, Long> COUNT_REGION = CacheRegionSpec.<String, Long>builder()
+            .name(CacheKeys.ENTITY_COUNT_REGION)
+            .valueType(Long.class)
+            .ttl(Duration.ofMinutes(1))
+            .maximumSize(100)
+            .build();
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    @Inject
+    CacheManager cacheManager;
+
     public T findById(Integer id) {
         return findById(Long.valueOf(id));
     }
@@ -23,12 +59,100 @@ public abstract class GenericDao<T> implements PanacheRepository<T> {
         return deleteById(Long.valueOf(id));
     }
 
+    /**
+     * Reads rows by OFFSET, which gets slower the deeper the page. Prefer findPage.
+     */
     public List<T> getAllPaginated(int offset, int limit) {
         PanacheQuery<T> q = findAll();
-        q.page(Page.of(offset, limit));
+        q.range(offset, offset + limit - 1);
         return q.list();
     }
 
+    /**
+     * Reads the page that follows a cursor by seeking to it through the sort's index, so every page
+     * costs the same however deep it is.
+     *
+     * @param query  - what to page over
+     * @param sort   - the order of the pages
+     * @param cursor - the nextCursor of the previous page, null or blank for the first page
+     * @param limit  - the page size
+     *
+     * @return the page, the cursor of the next one and, for unfiltered queries, the approximate total
+     * @throws IllegalArgumentException if the cursor is malformed or was made for another sort
+     */
+    public <Q, R> PageResponse<R> findPage(KeysetQuery<Q, R> query, KeysetSort<R> sort, String cursor, int limit) {
+        Object[] after = KeysetCursor.decode(sort, cursor);
+
+        StringBuilder jpql = new StringBuilder(query.getSelect());
+        if (query.getWhere() != null || after != null) {
+            jpql.append(" where ");
+            if (query.getWhere() != null) {
+                jpql.append('(').append(query.getWhere()).append(')').append(after != null ? " and " : "");
+            }
+            if (after != null) {
+                jpql.append('(').append(sort.after()).append(')');
+            }
+        }
+        jpql.append(" order by ").append(sort.orderBy());
+
+        TypedQuery<Q> typedQuery = getEntityManager().createQuery(jpql.toString(), query.getResultType());
+        query.getParameters().forEach(typedQuery::setParameter);
+        for (int i = 0; after != null && i < after.length; i++) {
+            typedQuery.setParameter(KeysetSort.PARAMETER_PREFIX + i, after[i]);
+        }
+        // one extra row tells whether there is a next page
+        List<R> rows = typedQuery.setMaxResults(limit + 1).getResultList().stream().map(query.getMapper()).toList();
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = KeysetCursor.encode(sort, rows.get(limit - 1));
+        }
+        return new PageResponse<>(rows, nextCursor, query.getWhere() == null ? approximateCount() : null);
+    }
+
+    /**
+     * Counts the table from the planner statistics once it is big enough for count(*) to hurt,
+     * cached for a minute either way.
+     *
+     * @return the approximate amount of rows
+     */
+    public long approximateCount() {
+        String table = tableName();
+        return cacheManager.region(COUNT_REGION).getOrLoad(table, this::estimateCount);
+    }
+
+    private Long estimateCount(String table) {
+        // reltuples is -1 until the table is first vacuumed or analyzed
+        List<?> rows = getEntityManager()
+                .createNativeQuery("SELECT c.reltuples FROM pg_class c WHERE c.oid = to_regclass(:table)")
+                .setParameter("table", table)
+                .getResultList();
+        if (!rows.isEmpty() && ((Number) rows.get(0)).longValue() >= EXACT_COUNT_THRESHOLD) {
+            return ((Number) rows.get(0)).longValue();
+        }
+        return count();
+    }
+
+    private String tableName() {
+        SessionFactoryImplementor sessionFactory = getEntityManager().getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        return ((AbstractEntityPersister) sessionFactory.getMappingMetamodel().getEntityDescriptor(entityType())).getTableName();
+    }
+
+    private Class<?> entityType() {
+        // the concrete DAO, or a subclass Arc generated for it, declares T
+        for (Class<?> type = getClass(); type != null; type = type.getSuperclass()) {
+            Type superclass = type.getGenericSuperclass();
+            if (superclass instanceof ParameterizedType parameterized && parameterized.getRawType() == GenericDao.class) {
+                Type entity = parameterized.getActualTypeArguments()[0];
+                if (entity instanceof Class<?> entityClass) {
+                    return entityClass;
+                }
+            }
+        }
+        throw new IllegalStateException("%s doesn't declare its entity type".formatted(getClass().getName()));
+    }
+
     public byte[] getThumbnailById(String entityName, Integer id) {
         if (!hasThumbnail()) {
             logger.warn("getThumbnailById was called by unsupported type!");
@@ -42,10 +166,65 @@ public abstract class GenericDao<T> implements PanacheRepository<T> {
         if (r instanceof byte[] b) {
             return b;
         }
+        if (r == null) {
+            // thumbnail wasn't generated yet
+            return new byte[0];
+        }
         logger.warn("{} with id ({}) has corrupt thumbnail", entityName, id);
         return new byte[0];
     }
 
+    /**
+     * Copies a file into a new Postgres large object in fixed-size chunks, using the current transaction.
+     *
+     * @param file - the file to copy
+     *
+     * @return the oid of the new large object
+     */
+    public long createLargeObject(Path file) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            LargeObjectManager largeObjectManager = connection.unwrap(PGConnection.class).getLargeObjectAPI();
+            long oid = largeObjectManager.createLO(LargeObjectManager.READWRITE);
+            LargeObject largeObject = largeObjectManager.open(oid, LargeObjectManager.WRITE);
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    largeObject.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new SQLException("Failed writing %s into large object %s".formatted(file, oid), e);
+            } finally {
+                largeObject.close();
+            }
+            return oid;
+        });
+    }
+
+    /**
+     * Copies a Postgres large object into a file in fixed-size chunks, using the current transaction.
+     *
+     * @param oid    - the large object to copy
+     * @param target - the file to write, replaced if it exists
+     */
+    public void exportLargeObject(long oid, Path target) {
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            LargeObjectManager largeObjectManager = connection.unwrap(PGConnection.class).getLargeObjectAPI();
+            LargeObject largeObject = largeObjectManager.open(oid, LargeObjectManager.READ);
+            try (OutputStream outputStream = Files.newOutputStream(target)) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int read;
+                while ((read = largeObject.read(buffer, 0, buffer.length)) > 0) {
+                    outputStream.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new SQLException("Failed writing large object %s into %s".formatted(oid, target), e);
+            } finally {
+                largeObject.close();
+            }
+        });
+    }
+
     protected boolean hasThumbnail() {
         return false;
     }
@@ -1,11 +1,17 @@
 package azar.shared.dal.dao;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import azar.cloud.entities.db.Preference;
 import static azar.cloud.utils.Constants.DARK_MODE;
+import static azar.cloud.utils.Constants.DEFAULT_PAGE_SORT;
 import static azar.cloud.utils.Constants.DRAWER_PINNED;
+import azar.shared.dal.keyset.KeysetQuery;
+import azar.shared.dal.keyset.KeysetSort;
 import azar.shared.entities.db.User;
 import azar.shared.entities.db.UserType;
+import azar.shared.entities.responses.PageResponse;
 import jakarta.enterprise.context.ApplicationScoped;
 
 /**
@@ -14,6 +20,21 @@ import jakarta.enterprise.context.ApplicationScoped;
  **/
 @ApplicationScoped
 public class UserDao extends GenericDao<User> {
+    // the password hash is never selected for a listing
+    private static final KeysetQuery<azar.cloud.entities.client.User, azar.cloud.entities.client.User> PAGE_QUERY =
+            KeysetQuery.<azar.cloud.entities.client.User, azar.cloud.entities.client.User>builder()
+                    .select("select new azar.cloud.entities.client.User(u.id, u.firstName, u.lastName, u.userName, u.userType) " +
+                            "from User u")
+                    .resultType(azar.cloud.entities.client.User.class)
+                    .mapper(Function.identity())
+                    .build();
+    // user_name is unique, so its index serves the name order
+    private static final Map<String, KeysetSort<azar.cloud.entities.client.User>> PAGE_SORTS = Map.of(
+            DEFAULT_PAGE_SORT, KeysetSort.<azar.cloud.entities.client.User>named(DEFAULT_PAGE_SORT)
+                    .thenById("u.id", Integer.class, azar.cloud.entities.client.User::getId),
+            "name", KeysetSort.<azar.cloud.entities.client.User>named("name")
+                    .asc("u.userName", String.class, azar.cloud.entities.client.User::getUserName)
+                    .thenById("u.id", Integer.class, azar.cloud.entities.client.User::getId));
 
     @Override
     public void persist(User user) {
@@ -41,6 +62,24 @@ public class UserDao extends GenericDao<User> {
         return find("userName=?1", userName).firstResult();
     }
 
+    /**
+     * Reads the page of users that follows a cursor.
+     *
+     * @param sort   - id or name
+     * @param cursor - the nextCursor of the previous page, null or blank for the first page
+     * @param limit  - the page size
+     *
+     * @return the page, the cursor of the next one and the approximate amount of users
+     * @throws IllegalArgumentException if the sort is unknown or the cursor is malformed
+     */
+    public PageResponse<azar.cloud.entities.client.User> getPage(String sort, String cursor, int limit) {
+        KeysetSort<azar.cloud.entities.client.User> keysetSort = PAGE_SORTS.get(sort);
+        if (keysetSort == null) {
+            throw new IllegalArgumentException("Unknown sort %s, expected one of %s".formatted(sort, PAGE_SORTS.keySet()));
+        }
+        return findPage(PAGE_QUERY, keysetSort, cursor, limit);
+    }
+
     public boolean isAdmin(String userName) {
         User user = getUserByUserName(userName);
         return user.getUserType().equals(UserType.ADMIN);
@@ -0,0 +1,61 @@
+package azar.shared.dal.keyset;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Encodes the position of a row in a KeysetSort as an opaque cursor, and back.
+ *          The sort name and key values are joined by NUL, which Postgres text can't hold
+ **/
+public class KeysetCursor {
+    private static final String SEPARATOR = "\0";
+
+    private KeysetCursor() {
+    }
+
+    public static <R> String encode(KeysetSort<R> sort, R row) {
+        StringJoiner position = new StringJoiner(SEPARATOR).add(sort.getName());
+        for (SortKey<R> key : sort.getKeys()) {
+            position.add(key.format(row));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param sort   - the sort the cursor was made for
+     * @param cursor - a cursor made by encode, null or blank for the first page
+     *
+     * @return the key values, in sort order, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another sort
+     */
+    public static <R> Object[] decode(KeysetSort<R> sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor %s".formatted(cursor), e);
+        }
+        if (position.length != sort.getKeys().size() + 1 || !position[0].equals(sort.getName())) {
+            throw new IllegalArgumentException("Cursor %s doesn't belong to sort %s".formatted(cursor, sort.getName()));
+        }
+
+        Object[] values = new Object[sort.getKeys().size()];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = sort.getKeys().get(i).parse(position[i + 1]);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException is an IllegalArgumentException
+            throw new IllegalArgumentException("Malformed cursor %s".formatted(cursor), e);
+        }
+        return values;
+    }
+
+}
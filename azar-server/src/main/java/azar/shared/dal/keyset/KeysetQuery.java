@@ -0,0 +1,32 @@
+package azar.shared.dal.keyset;
+
+import java.util.Map;
+import java.util.function.Function;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Describes what GenericDao.findPage pages over - the select, an optional filter and
+ *          how the selected results become rows. The paging condition and order are added to it
+ **/
+@Getter
+@Builder
+public class KeysetQuery<Q, R> {
+
+    // "select ... from Entity p", joins included, without where or order by
+    private final String select;
+
+    // the filter without the paging condition, null to page over everything
+    private final String where;
+
+    @Singular
+    private final Map<String, Object> parameters;
+
+    private final Class<Q> resultType;
+
+    private final Function<Q, R> mapper;
+
+}
@@ -0,0 +1,89 @@
+package azar.shared.dal.keyset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: An ordering that can be paged by seeking - sort keys that always end with the id,
+ *          so every row has a unique position. Back it with an index on the same columns
+ **/
+@Getter
+public class KeysetSort<R> {
+    public static final String PARAMETER_PREFIX = "keyset";
+
+    // written into the cursors, so a cursor of one sort isn't read with another
+    private final String name;
+    private final List<SortKey<R>> keys;
+
+    private KeysetSort(String name, List<SortKey<R>> keys) {
+        this.name = name;
+        this.keys = List.copyOf(keys);
+    }
+
+    public static <R> Builder<R> named(String name) {
+        return new Builder<>(name);
+    }
+
+    public String orderBy() {
+        return keys.stream()
+                .map(key -> key.getPath() + (key.isDescending() ? " desc" : " asc"))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * The condition selecting the rows after a position, its values bound as keyset0, keyset1...
+     * For (a, b, id) ascending: a >= :keyset0 and (a > :keyset0 or (a = :keyset0 and (b > :keyset1 or ...))).
+     * The leading bound lets the planner turn the condition into an index range.
+     */
+    public String after() {
+        StringBuilder condition = new StringBuilder();
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            SortKey<R> key = keys.get(i);
+            String past = "%s %s :%s%d".formatted(key.getPath(), key.isDescending() ? "<" : ">", PARAMETER_PREFIX, i);
+            if (condition.isEmpty()) {
+                condition.append(past);
+            } else {
+                condition.insert(0, "%s or (%s = :%s%d and (".formatted(past, key.getPath(), PARAMETER_PREFIX, i)).append("))");
+            }
+        }
+        if (keys.size() == 1) {
+            return condition.toString();
+        }
+        SortKey<R> first = keys.get(0);
+        return "%s %s :%s0 and (%s)".formatted(first.getPath(), first.isDescending() ? "<=" : ">=", PARAMETER_PREFIX, condition);
+    }
+
+    public static class Builder<R> {
+        private final String name;
+        private final List<SortKey<R>> keys = new ArrayList<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder<R> asc(String path, Class<?> type, Function<R, ?> extractor) {
+            keys.add(new SortKey<>(path, type, false, extractor));
+            return this;
+        }
+
+        public Builder<R> desc(String path, Class<?> type, Function<R, ?> extractor) {
+            keys.add(new SortKey<>(path, type, true, extractor));
+            return this;
+        }
+
+        /**
+         * Ends the sort with the id tiebreaker, in the direction of the last key so one index serves both.
+         */
+        public KeysetSort<R> thenById(String path, Class<?> type, Function<R, ?> extractor) {
+            boolean descending = !keys.isEmpty() && keys.get(keys.size() - 1).isDescending();
+            keys.add(new SortKey<>(path, type, descending, extractor));
+            return new KeysetSort<>(name, keys);
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package azar.shared.dal.keyset;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: One column of a keyset sort - its JPQL path, direction, and how to read it off a row.
+ *          Keyset paging can't place nulls, so only non-null columns make sense as sort keys
+ **/
+@Getter
+public class SortKey<R> {
+    // the value types a cursor can carry, with their parsers
+    private static final Map<Class<?>, Function<String, ?>> PARSERS = Map.of(
+            String.class, Function.identity(),
+            Integer.class, Integer::valueOf,
+            Long.class, Long::valueOf,
+            Instant.class, Instant::parse,
+            LocalDateTime.class, LocalDateTime::parse);
+
+    private final String path;
+    private final Class<?> type;
+    private final boolean descending;
+    private final Function<R, ?> extractor;
+
+    SortKey(String path, Class<?> type, boolean descending, Function<R, ?> extractor) {
+        if (!PARSERS.containsKey(type)) {
+            throw new IllegalArgumentException("Sort key %s can't be of type %s".formatted(path, type.getSimpleName()));
+        }
+        this.path = path;
+        this.type = type;
+        this.descending = descending;
+        this.extractor = extractor;
+    }
+
+    String format(R row) {
+        return String.valueOf(extractor.apply(row));
+    }
+
+    Object parse(String value) {
+        return PARSERS.get(type).apply(value);
+    }
+
+}
@@ -0,0 +1,87 @@
+package azar.shared.dal.lob;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Streams Postgres large objects in fixed-size chunks instead of loading them into the heap
+ **/
+@ApplicationScoped
+public class LargeObjectStreamer {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private final AgroalDataSource dataSource;
+
+    public LargeObjectStreamer(AgroalDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Builds a response body that copies a slice of a large object to the client.
+     * The read runs on its own connection and transaction, so it outlives the request transaction.
+     *
+     * @param oid    - the large object id
+     * @param offset - the first byte to send
+     * @param length - the amount of bytes to send
+     *
+     * @return a StreamingOutput writing the requested slice
+     */
+    public StreamingOutput stream(long oid, long offset, long length) {
+        return output -> {
+            try (Connection connection = dataSource.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                // LOB descriptors are only valid inside a transaction
+                connection.setAutoCommit(false);
+                try {
+                    copy(connection, oid, offset, length, output);
+                    connection.commit();
+                } catch (SQLException | IOException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                logger.warn("Failed streaming large object {}", oid, e);
+                throw new IOException("Failed streaming large object %s".formatted(oid), e);
+            }
+        };
+    }
+
+    private void copy(Connection connection, long oid, long offset, long length, OutputStream output)
+            throws SQLException, IOException {
+        LargeObjectManager largeObjectManager = connection.unwrap(PGConnection.class).getLargeObjectAPI();
+        LargeObject largeObject = largeObjectManager.open(oid, LargeObjectManager.READ);
+        try {
+            largeObject.seek64(offset, LargeObject.SEEK_SET);
+            byte[] buffer = new byte[CHUNK_SIZE];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = largeObject.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read <= 0) {
+                    break;
+                }
+                output.write(buffer, 0, read);
+                remaining -= read;
+            }
+            output.flush();
+        } finally {
+            largeObject.close();
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+package azar.shared.dal.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import azar.shared.dal.blob.BlobStorage;
+import azar.shared.dal.dao.BlobDao;
+import azar.shared.dal.dao.GenericDao;
+import azar.shared.entities.db.Blob;
+import azar.shared.properties.AppProperties;
+import azar.shared.utils.Utilities;
+import io.quarkus.arc.All;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Content-addressed storage shared by photos, PDFs and CVs.
+ *          Storing content that already exists only adds a reference, so duplicate uploads cost a hash.
+ *          New content goes to the configured BlobStorage, reads follow the storage recorded on each blob.
+ **/
+@ApplicationScoped
+public class BlobService extends GenericService<Blob> {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final BlobDao blobDao;
+    private final TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    private final Map<String, BlobStorage> storages;
+    private final BlobStorage defaultStorage;
+
+    public BlobService(BlobDao blobDao, AppProperties appProperties, @All List<BlobStorage> storages,
+                       TransactionSynchronizationRegistry transactionSynchronizationRegistry) {
+        this.blobDao = blobDao;
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+        this.storages = storages.stream().collect(Collectors.toMap(BlobStorage::getName, Function.identity()));
+        this.defaultStorage = getStorage(appProperties.getBlobStorage());
+    }
+
+    @Override
+    protected GenericDao<Blob> getDao() {
+        return blobDao;
+    }
+
+    /**
+     * Stores a file and takes a reference to it, must run inside a transaction.
+     * The file is hashed first, so already stored content is never copied again.
+     *
+     * @param file - the file to store
+     *
+     * @return the blob holding the content
+     */
+    public Blob store(Path file) {
+        try {
+            String hash = Utilities.sha256Hex(file);
+            Blob existing = acquire(hash);
+            return existing != null ? existing : insert(defaultStorage.write(hash, file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed storing %s".formatted(file), e);
+        }
+    }
+
+    /**
+     * Same as store(Path), for content that is already in memory.
+     *
+     * @param data - the content to store
+     *
+     * @return the blob holding the content
+     */
+    public Blob store(byte[] data) {
+        try {
+            String hash = Utilities.sha256Hex(data);
+            Blob existing = acquire(hash);
+            return existing != null ? existing : insert(defaultStorage.write(hash, data));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed storing content", e);
+        }
+    }
+
+    /**
+     * Drops a reference taken by store, the content is deleted together with its last reference.
+     *
+     * @param hash - the content hash, ignored if null
+     */
+    public void release(String hash) {
+        if (hash == null) {
+            return;
+        }
+        Blob deleted = blobDao.release(hash);
+        if (deleted != null) {
+            logger.debug("Content {} has no references left, deleting it", hash);
+            deleteContent(deleted, Status.STATUS_COMMITTED);
+        }
+    }
+
+    public Blob getByHash(String hash) {
+        return blobDao.getByHash(hash);
+    }
+
+    public byte[] read(String hash) {
+        Blob blob = hash == null ? null : blobDao.getByHash(hash);
+        if (blob == null) {
+            return new byte[0];
+        }
+        try {
+            return getStorage(blob.getStorage()).read(blob);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading content %s".formatted(hash), e);
+        }
+    }
+
+    public StreamingOutput stream(Blob blob, long offset, long length) {
+        return getStorage(blob.getStorage()).stream(blob, offset, length);
+    }
+
+    public Object responseBody(Blob blob, long offset, long length) {
+        return getStorage(blob.getStorage()).responseBody(blob, offset, length);
+    }
+
+    /**
+     * Moves content into another storage, must run inside a transaction.
+     * The copy is verified against the hash before the blob is pointed at it.
+     *
+     * @param blob        - a blob locked by the current transaction
+     * @param target      - the storage to move it to
+     * @param scratchFile - a file to copy the content through
+     *
+     * @return true if the blob was moved
+     */
+    public boolean moveTo(Blob blob, BlobStorage target, Path scratchFile) throws IOException {
+        getStorage(blob.getStorage()).export(blob, scratchFile);
+        if (!blob.getHash().equals(Utilities.sha256Hex(scratchFile))) {
+            logger.warn("Content {} doesn't match its hash, leaving it in {}", blob.getHash(), blob.getStorage());
+            return false;
+        }
+
+        Blob moved = target.write(blob.getHash(), scratchFile);
+        cleanupOnRollback(moved);
+        blobDao.updateLocation(moved);
+        deleteContent(blob, Status.STATUS_COMMITTED);
+        return true;
+    }
+
+    public List<Blob> lockBatchNotIn(String storage, long afterId, int batchSize) {
+        return blobDao.lockBatchNotIn(storage, afterId, batchSize);
+    }
+
+    public long countNotIn(String storage) {
+        return blobDao.countNotIn(storage);
+    }
+
+    public BlobStorage getStorage(String name) {
+        BlobStorage storage = storages.get(name);
+        if (storage == null) {
+            throw new IllegalArgumentException("Unknown blob storage %s, known storages are %s".formatted(name, storages.keySet()));
+        }
+        return storage;
+    }
+
+    private Blob acquire(String hash) {
+        Blob existing = blobDao.acquire(hash);
+        if (existing != null) {
+            logger.debug("Content {} is already stored, added a reference", hash);
+        }
+        return existing;
+    }
+
+    private Blob insert(Blob written) throws IOException {
+        Blob stored = blobDao.insertOrAcquire(written);
+        if (isSameContent(stored, written)) {
+            cleanupOnRollback(written);
+        } else {
+            // a concurrent upload stored the same content first
+            getStorage(written.getStorage()).delete(written);
+        }
+        return stored;
+    }
+
+    private void cleanupOnRollback(Blob written) {
+        BlobStorage storage = getStorage(written.getStorage());
+        if (!storage.isTransactional()) {
+            deleteContent(written, Status.STATUS_ROLLEDBACK);
+        }
+    }
+
+    /**
+     * Deletes content right away if its storage follows the transaction,
+     * otherwise once the transaction ends with the given status, so a rollback never leaves a row without content.
+     */
+    private void deleteContent(Blob blob, int whenStatus) {
+        BlobStorage storage = getStorage(blob.getStorage());
+        if (storage.isTransactional()) {
+            if (whenStatus == Status.STATUS_COMMITTED) {
+                deleteQuietly(storage, blob);
+            }
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == whenStatus) {
+                    deleteQuietly(storage, blob);
+                }
+            }
+        });
+    }
+
+    private void deleteQuietly(BlobStorage storage, Blob blob) {
+        try {
+            storage.delete(blob);
+        } catch (Exception e) {
+            logger.warn("Could not delete content {} from {}", blob.getHash(), storage.getName(), e);
+        }
+    }
+
+    private static boolean isSameContent(Blob stored, Blob written) {
+        return Objects.equals(stored.getStorage(), written.getStorage())
+                && Objects.equals(stored.getData(), written.getData())
+                && Objects.equals(stored.getLocation(), written.getLocation());
+    }
+
+}
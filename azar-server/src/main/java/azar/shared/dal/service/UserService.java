@@ -4,6 +4,7 @@ import java.util.List;
 import azar.shared.dal.dao.GenericDao;
 import azar.shared.dal.dao.UserDao;
 import azar.shared.entities.db.User;
+import azar.shared.entities.responses.PageResponse;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +50,10 @@ public class UserService extends GenericService<User> {
         return userDao.getAllPaginated(offset, limit);
     }
 
+    public PageResponse<azar.cloud.entities.client.User> getPage(String sort, String cursor, int limit) {
+        return userDao.getPage(sort, cursor, limit);
+    }
+
     public boolean isAdmin(String userName) {
         return userDao.isAdmin(userName);
     }
@@ -0,0 +1,60 @@
+package azar.shared.entities.db;
+
+import java.time.Instant;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: A distinct piece of content stored once as a large object and shared by every row holding the same bytes
+ **/
+@Entity
+@Table(name = "blobs")
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class Blob extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the content, hex encoded
+    @Column(name = "hash", nullable = false, unique = true)
+    private String hash;
+
+    // the BlobStorage holding the content
+    @Column(name = "storage", nullable = false)
+    private String storage;
+
+    // oid of the large object holding the content, for Postgres storage
+    @Column(name = "data", columnDefinition = "oid")
+    private Long data;
+
+    // path of the content relative to the storage root, for filesystem storage
+    @Column(name = "location")
+    private String location;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+
+}
@@ -0,0 +1,21 @@
+package azar.shared.entities.responses;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class BlobMigrationResponse {
+    private long migrated;
+
+    // blobs still stored outside the target storage
+    private long remaining;
+}
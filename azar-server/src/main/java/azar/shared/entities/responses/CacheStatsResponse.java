@@ -0,0 +1,32 @@
+package azar.shared.entities.responses;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class CacheStatsResponse {
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private double hitRate;
+
+    private long entries;
+
+    // total weight for weighted regions (e.g. bytes), entry count otherwise
+    private long weight;
+
+    // maximum weight for weighted regions, maximum entry count otherwise
+    private long limit;
+}
@@ -0,0 +1,25 @@
+package azar.shared.entities.responses;
+
+import java.util.List;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class PageResponse<T> {
+    private List<T> items;
+
+    // pass back as the cursor to read the next page, null on the last page
+    private String nextCursor;
+
+    // an estimate of the whole listing, refreshed about once a minute. null for filtered listings
+    private Long total;
+}
@@ -0,0 +1,23 @@
+package azar.shared.entities.responses;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class ThumbnailReencodeResponse {
+    private String format;
+    private long photos;
+    private long pdfs;
+
+    // thumbnails that couldn't be decoded, they are left as they are
+    private long failed;
+}
@@ -0,0 +1,27 @@
+package azar.shared.images;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Image bytes picked for a client, either as stored or transcoded into a format the client accepts
+ **/
+@Getter
+@AllArgsConstructor
+public class EncodedImage {
+    // null when the bytes aren't in a known format, they are sent as they are
+    private final ImageFormat format;
+    private final byte[] data;
+    private final boolean transcoded;
+
+    public static EncodedImage stored(byte[] data) {
+        return new EncodedImage(ImageFormat.detect(data), data, false);
+    }
+
+    public String getMediaType() {
+        return format == null ? "application/octet-stream" : format.getMediaType();
+    }
+
+}
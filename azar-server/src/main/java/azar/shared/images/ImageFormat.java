@@ -0,0 +1,144 @@
+package azar.shared.images;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: The image encodings the server stores and sends, recognized by their leading bytes
+ **/
+@Getter
+public enum ImageFormat {
+    PNG("image/png", "png", false),
+    JPEG("image/jpeg", "jpeg", true),
+    WEBP("image/webp", "webp", true);
+
+    private final String mediaType;
+    private final String formatName;
+    private final boolean lossy;
+
+    ImageFormat(String mediaType, String formatName, boolean lossy) {
+        this.mediaType = mediaType;
+        this.formatName = formatName;
+        this.lossy = lossy;
+    }
+
+    /**
+     * @return true if an ImageIO writer for this format is installed, WebP needs an extra plugin
+     */
+    public boolean isWritable() {
+        return ImageIO.getImageWritersByFormatName(formatName).hasNext();
+    }
+
+    /**
+     * Encodes an image, lossy formats with the given quality. Transparency is flattened onto white
+     * for formats that can't store it.
+     *
+     * @param image   - the image to encode
+     * @param quality - 0 to 1, ignored by lossless formats
+     *
+     * @return the encoded image
+     */
+    public byte[] encode(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("No writer is installed for %s".formatted(formatName));
+        }
+
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (lossy && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionTypes() != null && param.getCompressionType() == null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(this == JPEG ? withoutAlpha(image) : image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * @param mediaType - a media type, e.g. from an Accept header
+     *
+     * @return true if the media type names this format
+     */
+    public boolean matches(String mediaType) {
+        return this.mediaType.equalsIgnoreCase(mediaType);
+    }
+
+    /**
+     * @param data - encoded image bytes
+     *
+     * @return the format of the data, or null if it isn't one of the known formats
+     */
+    public static ImageFormat detect(byte[] data) {
+        if (data == null || data.length < 12) {
+            return null;
+        }
+        if ((data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return PNG;
+        }
+        if ((data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF) {
+            return JPEG;
+        }
+        if (data[0] == 'R' && data[1] == 'I' && data[2] == 'F' && data[3] == 'F'
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return WEBP;
+        }
+        return null;
+    }
+
+    /**
+     * @param name - a format name such as "jpeg", "jpg" or "webp", case-insensitive
+     *
+     * @return the format, or null if the name is unknown
+     */
+    public static ImageFormat fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase();
+        if (normalized.equals("jpg")) {
+            return JPEG;
+        }
+        for (ImageFormat format : values()) {
+            if (format.formatName.equals(normalized)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static BufferedImage withoutAlpha(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+}
@@ -0,0 +1,165 @@
+package azar.shared.images;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import javax.imageio.ImageIO;
+import azar.shared.cache.CacheKeys;
+import azar.shared.cache.CacheManager;
+import azar.shared.properties.AppProperties;
+import azar.shared.utils.Utilities;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: The thumbnail encoding policy - new thumbnails are written in the configured lossy format,
+ *          and stored thumbnails are transcoded on the way out when the client doesn't accept their format
+ **/
+@ApplicationScoped
+public class ThumbnailEncoder {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final float MIN_QUALITY = 0.1f;
+
+    private final CacheManager cacheManager;
+    private final ImageFormat format;
+    private final float quality;
+
+    public ThumbnailEncoder(AppProperties appProperties, CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+        this.format = resolveFormat(appProperties.getThumbnailFormat());
+        this.quality = Math.max(MIN_QUALITY, Math.min(1f, appProperties.getThumbnailQuality()));
+    }
+
+    public ImageFormat getFormat() {
+        return format;
+    }
+
+    public byte[] encode(BufferedImage image) throws IOException {
+        return format.encode(image, quality);
+    }
+
+    /**
+     * @param data - an encoded thumbnail
+     *
+     * @return the thumbnail in the configured format, the same array if it already is,
+     * or null if it can't be decoded
+     */
+    public byte[] toConfiguredFormat(byte[] data) {
+        return ImageFormat.detect(data) == format ? data : transcode(data, format);
+    }
+
+    /**
+     * Picks the representation of a stored thumbnail to send for an Accept header.
+     * The stored bytes are preferred, they are only transcoded when the client explicitly doesn't accept them.
+     * Transcoded variants are cached by content, so each is only encoded once.
+     *
+     * @param data   - the stored thumbnail
+     * @param accept - the raw Accept header, may be null
+     *
+     * @return the bytes to send and their format
+     */
+    public EncodedImage negotiate(byte[] data, String accept) {
+        EncodedImage stored = EncodedImage.stored(data);
+        if (stored.getFormat() == null || isAccepted(stored.getFormat(), accept)) {
+            return stored;
+        }
+
+        ImageFormat target = List.of(format, ImageFormat.JPEG, ImageFormat.PNG).stream()
+                .filter(candidate -> isAccepted(candidate, accept) && candidate.isWritable())
+                .findFirst()
+                .orElse(null);
+        if (target == null) {
+            return stored;
+        }
+
+        String cacheKey = CacheKeys.THUMBNAIL_VARIANT.formatted(Utilities.sha256Hex(data), target.getFormatName());
+        byte[] variant = cacheManager.getBytes(cacheKey);
+        if (variant == null) {
+            variant = transcode(data, target);
+            if (variant == null) {
+                return stored;
+            }
+            cacheManager.putBytes(cacheKey, variant);
+        }
+        return new EncodedImage(target, variant, true);
+    }
+
+    /**
+     * Checks a format against an Accept header. The most specific matching media range decides,
+     * so "image/webp;q=0" next to a wildcard still excludes WebP. A missing header accepts everything.
+     */
+    static boolean isAccepted(ImageFormat format, String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+
+        int bestSpecificity = -1;
+        double bestQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            String mediaRange = parts[0].trim();
+            int specificity;
+            if (format.matches(mediaRange)) {
+                specificity = 2;
+            } else if (mediaRange.equalsIgnoreCase("image/*")) {
+                specificity = 1;
+            } else if (mediaRange.equals("*/*")) {
+                specificity = 0;
+            } else {
+                continue;
+            }
+            if (specificity > bestSpecificity) {
+                bestSpecificity = specificity;
+                bestQuality = qualityOf(parts);
+            }
+        }
+        return bestQuality > 0;
+    }
+
+    private static double qualityOf(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private byte[] transcode(byte[] data, ImageFormat target) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+            if (image == null) {
+                logger.warn("Can't transcode a thumbnail into {}, its format isn't readable", target);
+                return null;
+            }
+            return target.encode(image, quality);
+        } catch (IOException e) {
+            logger.warn("Failed transcoding a thumbnail into {}", target, e);
+            return null;
+        }
+    }
+
+    private ImageFormat resolveFormat(String name) {
+        ImageFormat configured = ImageFormat.fromName(name);
+        if (configured == null) {
+            logger.warn("Unknown thumbnail format {}, using JPEG", name);
+            return ImageFormat.JPEG;
+        }
+        if (!configured.isWritable()) {
+            logger.warn("No ImageIO writer is installed for {}, thumbnails are written as JPEG", configured);
+            return ImageFormat.JPEG;
+        }
+        return configured;
+    }
+
+}
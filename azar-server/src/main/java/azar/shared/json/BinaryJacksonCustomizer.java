@@ -0,0 +1,21 @@
+package azar.shared.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.quarkus.jackson.ObjectMapperCustomizer;
+import jakarta.inject.Singleton;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Registers BinaryJsonSerializer for every byte[] written by the application's ObjectMapper
+ **/
+@Singleton
+public class BinaryJacksonCustomizer implements ObjectMapperCustomizer {
+
+    @Override
+    public void customize(ObjectMapper objectMapper) {
+        objectMapper.registerModule(new SimpleModule("binary").addSerializer(byte[].class, new BinaryJsonSerializer()));
+    }
+
+}
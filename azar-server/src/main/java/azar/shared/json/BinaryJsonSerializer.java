@@ -0,0 +1,44 @@
+package azar.shared.json;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Jackson serializer for byte[] that follows the request's BinaryMode
+ **/
+public class BinaryJsonSerializer extends StdSerializer<byte[]> {
+    private final transient Supplier<BinaryMode> mode;
+
+    public BinaryJsonSerializer() {
+        this(BinaryPolicy::currentMode);
+    }
+
+    public BinaryJsonSerializer(Supplier<BinaryMode> mode) {
+        super(byte[].class);
+        this.mode = mode;
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, byte[] value) {
+        return value.length == 0;
+    }
+
+    @Override
+    public void serialize(byte[] value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        // while a field value is written, the output context is the object holding it
+        String reference = mode.get().reference(generator.getOutputContext().getCurrentValue(),
+                generator.getOutputContext().getCurrentName(), value);
+        if (reference != null) {
+            generator.writeString(reference);
+            return;
+        }
+        // encodes into the generator's buffer, the Base64 text never exists as a String
+        generator.writeBinary(provider.getConfig().getBase64Variant(), value, 0, value.length);
+    }
+
+}
@@ -0,0 +1,203 @@
+package azar.shared.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Gson writer that writes byte[] values the way the request's BinaryMode asks.
+ *          It tracks the current field name and BinaryOwner, which Gson's own writer doesn't expose,
+ *          and streams Base64 straight into the underlying writer
+ **/
+public class BinaryJsonWriter extends JsonWriter {
+    // adapts byte[] values and BinaryOwner objects, register it on every Gson that writes into a BinaryJsonWriter
+    public static final TypeAdapterFactory ADAPTER_FACTORY = new BinaryAdapterFactory();
+
+    private final Writer out;
+    private final BinaryMode mode;
+    private final Deque<Object> owners = new ArrayDeque<>();
+    private final Deque<Integer> ownerDepths = new ArrayDeque<>();
+    private int depth;
+    private String name;
+
+    public BinaryJsonWriter(Writer out, BinaryMode mode) {
+        super(out);
+        this.out = out;
+        this.mode = mode;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        depth++;
+        return super.beginObject();
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        return super.endObject();
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        this.name = name;
+        return super.name(name);
+    }
+
+    /**
+     * Writes the bytes as a Base64 string, or as a URL when the mode is REFERENCE and the owner has one.
+     */
+    public void binaryValue(byte[] value) throws IOException {
+        // only fields of the owner itself are referenced, not fields of objects nested in it
+        Object owner = !ownerDepths.isEmpty() && ownerDepths.peek() == depth ? owners.peek() : null;
+        String reference = mode.reference(owner, name, value);
+        if (reference != null) {
+            value(reference);
+            return;
+        }
+
+        // jsonValue places the separators and opens the string, the Base64 text goes around JsonWriter
+        jsonValue("\"");
+        OutputStream base64 = Base64.getEncoder().wrap(new AsciiOutputStream(out));
+        base64.write(value);
+        // writes the padding, AsciiOutputStream keeps the underlying writer open
+        base64.close();
+        out.write('"');
+    }
+
+    private void enter(Object owner) {
+        // the owner's object begins right after this
+        owners.push(owner);
+        ownerDepths.push(depth + 1);
+    }
+
+    private void exit() {
+        owners.pop();
+        ownerDepths.pop();
+    }
+
+    private static class BinaryAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() == byte[].class) {
+                return (TypeAdapter<T>) new BinaryTypeAdapter();
+            }
+            if (!BinaryOwner.class.isAssignableFrom(type.getRawType())) {
+                return null;
+            }
+
+            TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<>() {
+                @Override
+                public void write(JsonWriter writer, T value) throws IOException {
+                    if (!(writer instanceof BinaryJsonWriter binaryWriter) || value == null) {
+                        delegate.write(writer, value);
+                        return;
+                    }
+                    binaryWriter.enter(value);
+                    try {
+                        delegate.write(writer, value);
+                    } finally {
+                        binaryWriter.exit();
+                    }
+                }
+
+                @Override
+                public T read(JsonReader reader) throws IOException {
+                    return delegate.read(reader);
+                }
+            };
+        }
+    }
+
+    private static class BinaryTypeAdapter extends TypeAdapter<byte[]> {
+
+        @Override
+        public void write(JsonWriter writer, byte[] value) throws IOException {
+            if (value == null) {
+                writer.nullValue();
+            } else if (writer instanceof BinaryJsonWriter binaryWriter) {
+                binaryWriter.binaryValue(value);
+            } else {
+                writer.value(Base64.getEncoder().encodeToString(value));
+            }
+        }
+
+        @Override
+        public byte[] read(JsonReader reader) throws IOException {
+            JsonToken token = reader.peek();
+            if (token == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            if (token == JsonToken.STRING) {
+                return Base64.getDecoder().decode(reader.nextString());
+            }
+
+            // clients that still send number arrays
+            List<Byte> bytes = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                bytes.add((byte) reader.nextInt());
+            }
+            reader.endArray();
+            byte[] value = new byte[bytes.size()];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = bytes.get(i);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Passes Base64 output, which is plain ASCII, to a character writer.
+     */
+    private static class AsciiOutputStream extends OutputStream {
+        private final Writer writer;
+        private final char[] buffer = new char[4 * 1024];
+
+        private AsciiOutputStream(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writer.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                int count = Math.min(length, buffer.length);
+                for (int i = 0; i < count; i++) {
+                    buffer[i] = (char) bytes[offset + i];
+                }
+                writer.write(buffer, 0, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        public void close() {
+            // the writer belongs to the JSON document
+        }
+    }
+
+}
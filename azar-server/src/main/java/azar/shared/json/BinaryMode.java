@@ -0,0 +1,46 @@
+package azar.shared.json;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: How byte[] fields are written into JSON responses
+ **/
+public enum BinaryMode {
+    // the bytes as one Base64 string, encoded straight into the response
+    BASE64,
+    // a URL of the endpoint that sends the bytes, for owners that have one
+    REFERENCE;
+
+    /**
+     * @param name - the mode name, case-insensitive
+     *
+     * @return the mode, or null if the name is blank or unknown
+     */
+    public static BinaryMode fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        for (BinaryMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name.trim())) {
+                return mode;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param owner - the object holding the field
+     * @param field - the field name
+     * @param value - the field value
+     *
+     * @return the URL to write instead of the bytes, or null if the bytes are written inline
+     */
+    public String reference(Object owner, String field, byte[] value) {
+        // empty content has nothing worth fetching, it stays an empty string
+        if (this != REFERENCE || value.length == 0 || !(owner instanceof BinaryOwner binaryOwner)) {
+            return null;
+        }
+        return binaryOwner.binaryUrl(field);
+    }
+
+}
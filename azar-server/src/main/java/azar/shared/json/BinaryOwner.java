@@ -0,0 +1,20 @@
+package azar.shared.json;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: An object whose byte[] fields can also be downloaded from dedicated endpoints,
+ *          so BinaryMode.REFERENCE can send their URLs instead of the bytes
+ **/
+public interface BinaryOwner {
+
+    /**
+     * Not a getter on purpose, so neither Jackson nor Gson writes it as a property.
+     *
+     * @param field - the name of the byte[] field
+     *
+     * @return the URL that sends the field content, or null to write it inline
+     */
+    String binaryUrl(String field);
+
+}
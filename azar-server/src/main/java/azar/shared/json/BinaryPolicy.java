@@ -0,0 +1,56 @@
+package azar.shared.json;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
+import io.quarkus.arc.Unremovable;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.RequestScoped;
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: The binary mode of the current request, picked by the "binary" query parameter or the
+ *          X-Binary-Mode header, Base64 by default
+ **/
+@RequestScoped
+@Unremovable
+@Getter
+public class BinaryPolicy {
+    public static final String QUERY_PARAM = "binary";
+    public static final String HEADER = "X-Binary-Mode";
+    public static final BinaryMode DEFAULT_MODE = BinaryMode.BASE64;
+
+    private final BinaryMode mode;
+
+    public BinaryPolicy(CurrentVertxRequest currentVertxRequest) {
+        this.mode = resolve(currentVertxRequest.getCurrent());
+    }
+
+    /**
+     * The serializers aren't beans, so they look the policy up here, hence @Unremovable.
+     *
+     * @return the mode of the request being answered, DEFAULT_MODE outside of a request
+     */
+    public static BinaryMode currentMode() {
+        ArcContainer container = Arc.container();
+        if (container == null || !container.requestContext().isActive()) {
+            return DEFAULT_MODE;
+        }
+        return container.instance(BinaryPolicy.class).get().getMode();
+    }
+
+    private static BinaryMode resolve(RoutingContext routingContext) {
+        if (routingContext == null || routingContext.request() == null) {
+            return DEFAULT_MODE;
+        }
+        BinaryMode mode = BinaryMode.fromName(routingContext.request().getParam(QUERY_PARAM));
+        if (mode == null) {
+            mode = BinaryMode.fromName(routingContext.request().getHeader(HEADER));
+        }
+        // an unknown mode isn't worth failing a response that is already being written
+        return mode != null ? mode : DEFAULT_MODE;
+    }
+
+}
@@ -12,6 +12,7 @@ import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonNull;
 import jakarta.annotation.Priority;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.Consumes;
@@ -27,6 +28,8 @@ import jakarta.ws.rs.ext.Provider;
  * This provider is bound to media type "application/gson+json" to avoid interfering with
  * the existing Jackson-based providers bound to "application/json". To use Gson for a specific
  * endpoint or client, set the Content-Type/Accept header to application/gson+json.
+ * <p>
+ * byte[] values are written as BinaryPolicy picks for the request, like the Jackson path.
  */
 @Provider
 @ApplicationScoped
@@ -38,6 +41,7 @@ public class GsonJsonProvider implements MessageBodyReader<Object>, MessageBodyW
     private final Gson gson = new GsonBuilder()
             .disableHtmlEscaping()
             .serializeNulls()
+            .registerTypeAdapterFactory(BinaryJsonWriter.ADAPTER_FACTORY)
             .create();
 
     @Override
@@ -65,7 +69,13 @@ public class GsonJsonProvider implements MessageBodyReader<Object>, MessageBodyW
                         jakarta.ws.rs.core.MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
             throws IOException {
         try (Writer writer = new OutputStreamWriter(entityStream, StandardCharsets.UTF_8)) {
-            gson.toJson(t, writer);
+            BinaryJsonWriter jsonWriter = new BinaryJsonWriter(writer, BinaryPolicy.currentMode());
+            if (t == null) {
+                gson.toJson(JsonNull.INSTANCE, jsonWriter);
+            } else {
+                gson.toJson(t, t.getClass(), jsonWriter);
+            }
+            jsonWriter.flush();
         }
     }
 
@@ -0,0 +1,215 @@
+package azar.shared.managers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Runs file jobs on a bounded pool of daemon threads, at most one job per key at a time.
+ *          Jobs get the file they were submitted with, or the content read back from the DB when they have none,
+ *          and the file is deleted once the job is done
+ **/
+public class AfterCommitWorkerPool<K> {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String name;
+    private final TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    private final Function<K, StreamingOutput> contentLoader;
+    private final Job<K> job;
+    private final ThreadPoolExecutor executor;
+    // keys that are queued or being worked on, so the same job never runs twice at once
+    private final Set<K> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param name                               - names the worker threads and temp files, e.g. pdf-thumbnail
+     * @param workers                            - the amount of worker threads
+     * @param queueSize                          - the amount of jobs that may wait, more are dropped
+     * @param transactionSynchronizationRegistry - for jobs submitted after commit
+     * @param contentLoader                      - reads a key's content in its own transaction, null if it's gone
+     * @param job                                - the work done per key
+     */
+    public AfterCommitWorkerPool(String name, int workers, int queueSize,
+                                 TransactionSynchronizationRegistry transactionSynchronizationRegistry,
+                                 Function<K, StreamingOutput> contentLoader, Job<K> job) {
+        this.name = name;
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+        this.contentLoader = contentLoader;
+        this.job = job;
+
+        int threads = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), workerThreadFactory(name));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queues a job once the current transaction commits, the file is deleted if it rolls back.
+     *
+     * @param key     - the job key
+     * @param jobFile - a file owned by the job, or null to read the content from the DB
+     */
+    public void submitAfterCommit(K key, Path jobFile) {
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    submit(key, jobFile);
+                } else {
+                    deleteQuietly(jobFile);
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues a job unless one is already queued or running for the key.
+     *
+     * @param key     - the job key
+     * @param jobFile - a file owned by the job, or null to read the content from the DB
+     *
+     * @return true if the job was queued
+     */
+    public boolean submit(K key, Path jobFile) {
+        if (!inFlight.add(key)) {
+            deleteQuietly(jobFile);
+            return false;
+        }
+        try {
+            executor.execute(() -> run(key, jobFile));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            deleteQuietly(jobFile);
+            logger.warn("The {} queue is full, {} is dropped until it is queued again", name, key);
+            return false;
+        }
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.contains(key);
+    }
+
+    /**
+     * Moves a file away from a location that is cleaned up, e.g. the request temp file, so a job can own it.
+     *
+     * @return the job file, or null if it couldn't be moved and the job should read the content from the DB
+     */
+    public Path claim(Path file) {
+        try {
+            return Files.move(file, newJobFile(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not take over file {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Copies a file that others still use, so a job can own the copy.
+     *
+     * @return the job file, or null if it couldn't be copied and the job should read the content from the DB
+     */
+    public Path copy(Path file) {
+        try {
+            return Files.copy(file, newJobFile(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not copy file {}", file, e);
+            return null;
+        }
+    }
+
+    private void run(K key, Path jobFile) {
+        Path file = jobFile;
+        try {
+            if (file == null) {
+                file = loadContent(key);
+                if (file == null) {
+                    logger.debug("{} was removed before its {} job ran", key, name);
+                    return;
+                }
+            }
+            job.run(key, file);
+        } catch (Exception e) {
+            logger.warn("The {} job failed for {}", name, key, e);
+        } finally {
+            inFlight.remove(key);
+            deleteQuietly(file);
+        }
+    }
+
+    private Path loadContent(K key) throws IOException {
+        StreamingOutput content = QuarkusTransaction.requiringNew().call(() -> contentLoader.apply(key));
+        if (content == null) {
+            return null;
+        }
+        Path target = newJobFile();
+        try (OutputStream outputStream = Files.newOutputStream(target)) {
+            content.write(outputStream);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        }
+        return target;
+    }
+
+    private Path newJobFile() throws IOException {
+        return Files.createTempFile(name + "-", ".tmp");
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            if (path != null) Files.deleteIfExists(path);
+        } catch (Exception ignored) {
+            logger.warn("Could not delete file {}", path);
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The work done for one key.
+     */
+    @FunctionalInterface
+    public interface Job<K> {
+        /**
+         * @param key  - the job key
+         * @param file - the content, deleted when the job returns
+         */
+        void run(K key, Path file) throws Exception;
+    }
+
+}
@@ -0,0 +1,102 @@
+package azar.shared.managers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import azar.shared.dal.blob.BlobStorage;
+import azar.shared.dal.service.BlobService;
+import azar.shared.entities.db.Blob;
+import azar.shared.entities.responses.BlobMigrationResponse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Moves stored content between blob storages in small batches, each batch in its own transaction
+ **/
+@ApplicationScoped
+public class BlobMigrationManager {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final BlobService blobService;
+
+    public BlobMigrationManager(BlobService blobService) {
+        this.blobService = blobService;
+    }
+
+    /**
+     * Moves blobs into the target storage until nothing is left or maxBatches were processed.
+     * Blobs are walked in id order, so blobs that fail verification stay where they are and the next batches
+     * continue after them.
+     *
+     * @param targetName - the storage to move content into
+     * @param batchSize  - the amount of blobs per transaction
+     * @param maxBatches - the maximum amount of batches to run
+     *
+     * @return how many blobs were moved and how many are still stored elsewhere
+     */
+    public BlobMigrationResponse migrate(String targetName, int batchSize, int maxBatches) {
+        BlobStorage target = blobService.getStorage(targetName);
+        long migrated = 0;
+        long afterId = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            long lastId = afterId;
+            MigratedBatch migratedBatch = QuarkusTransaction.requiringNew().call(() -> migrateBatch(target, lastId, batchSize));
+            if (migratedBatch.lastId == null) {
+                break;
+            }
+            migrated += migratedBatch.moved;
+            afterId = migratedBatch.lastId;
+        }
+
+        long remaining = QuarkusTransaction.requiringNew().call(() -> blobService.countNotIn(target.getName()));
+        logger.info("Moved {} blobs into {}, {} are still stored elsewhere", migrated, target.getName(), remaining);
+        return new BlobMigrationResponse(migrated, remaining);
+    }
+
+    private MigratedBatch migrateBatch(BlobStorage target, long afterId, int batchSize) {
+        List<Blob> blobs = blobService.lockBatchNotIn(target.getName(), afterId, batchSize);
+        MigratedBatch migratedBatch = new MigratedBatch();
+        if (blobs.isEmpty()) {
+            return migratedBatch;
+        }
+        Path scratchFile = null;
+        try {
+            scratchFile = Files.createTempFile("blob-migrate-", ".bin");
+            for (Blob blob : blobs) {
+                if (blobService.moveTo(blob, target, scratchFile)) {
+                    migratedBatch.moved++;
+                }
+            }
+            migratedBatch.lastId = blobs.getLast().getId();
+            return migratedBatch;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed moving blobs into %s".formatted(target.getName()), e);
+        } finally {
+            deleteQuietly(scratchFile);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete scratch file {}", file, e);
+        }
+    }
+
+    private static class MigratedBatch {
+        private int moved;
+        // null when there was nothing left to read
+        private Long lastId;
+    }
+
+}
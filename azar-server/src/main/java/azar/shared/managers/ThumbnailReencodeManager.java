@@ -0,0 +1,116 @@
+package azar.shared.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import azar.cloud.dal.service.PdfFileService;
+import azar.gallery.dal.service.PhotoService;
+import azar.shared.cache.CacheKeys;
+import azar.shared.cache.CacheManager;
+import azar.shared.entities.responses.ThumbnailReencodeResponse;
+import azar.shared.images.ImageFormat;
+import azar.shared.images.ThumbnailEncoder;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: Re-encodes thumbnails that were stored as PNG into the configured thumbnail format,
+ *          in small batches, each batch in its own transaction
+ **/
+@ApplicationScoped
+public class ThumbnailReencodeManager {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final PhotoService photoService;
+    private final PdfFileService pdfFileService;
+    private final ThumbnailEncoder thumbnailEncoder;
+    private final CacheManager cacheManager;
+
+    public ThumbnailReencodeManager(PhotoService photoService, PdfFileService pdfFileService,
+                                    ThumbnailEncoder thumbnailEncoder, CacheManager cacheManager) {
+        this.photoService = photoService;
+        this.pdfFileService = pdfFileService;
+        this.thumbnailEncoder = thumbnailEncoder;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Re-encodes photo and PDF thumbnails until none are left or maxBatches were processed for each.
+     * Thumbnails that can't be decoded are skipped, so a run always moves forward.
+     *
+     * @param batchSize  - the amount of thumbnails per transaction
+     * @param maxBatches - the maximum amount of batches to run per thumbnail kind
+     *
+     * @return how many thumbnails were re-encoded
+     */
+    public ThumbnailReencodeResponse reencode(int batchSize, int maxBatches) {
+        ImageFormat format = thumbnailEncoder.getFormat();
+        if (format == ImageFormat.PNG) {
+            return new ThumbnailReencodeResponse(format.getFormatName(), 0, 0, 0);
+        }
+
+        BatchCount photos = reencode(0, batchSize, maxBatches, photoService::getPngThumbnails,
+                photoService::updateThumbnail, id -> {
+                });
+        BatchCount pdfs = reencode(0L, batchSize, maxBatches, pdfFileService::getPngThumbnails,
+                pdfFileService::updateThumbnail, id -> cacheManager.removeBytes(CacheKeys.PDF_THUMBNAIL.formatted(id)));
+
+        logger.info("Re-encoded {} photo and {} PDF thumbnails as {}, {} failed",
+                photos.reencoded, pdfs.reencoded, format, photos.failed + pdfs.failed);
+        return new ThumbnailReencodeResponse(format.getFormatName(), photos.reencoded, pdfs.reencoded,
+                photos.failed + pdfs.failed);
+    }
+
+    /**
+     * Walks PNG thumbnails in id order, re-encoding a batch per transaction.
+     *
+     * @param reader   - reads a batch of PNG thumbnails after an id
+     * @param writer   - stores a re-encoded thumbnail
+     * @param onStored - runs for every re-encoded id once its batch committed
+     */
+    private <K> BatchCount reencode(K start, int batchSize, int maxBatches, BiFunction<K, Integer, Map<K, byte[]>> reader,
+                                    BiConsumer<K, byte[]> writer, Consumer<K> onStored) {
+        BatchCount count = new BatchCount();
+        K afterId = start;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            K lastId = afterId;
+            List<K> stored = new ArrayList<>();
+            List<K> read = QuarkusTransaction.requiringNew().call(() -> {
+                Map<K, byte[]> thumbnails = reader.apply(lastId, batchSize);
+                thumbnails.forEach((id, thumbnail) -> {
+                    byte[] reencoded = thumbnailEncoder.toConfiguredFormat(thumbnail);
+                    if (reencoded == null) {
+                        logger.warn("Could not re-encode thumbnail {}, leaving it as PNG", id);
+                        count.failed++;
+                        return;
+                    }
+                    writer.accept(id, reencoded);
+                    stored.add(id);
+                });
+                return new ArrayList<>(thumbnails.keySet());
+            });
+
+            stored.forEach(onStored);
+            count.reencoded += stored.size();
+            if (read.size() < batchSize) {
+                break;
+            }
+            // failed thumbnails are still PNG, continuing after the last read id skips them
+            afterId = read.getLast();
+        }
+        return count;
+    }
+
+    private static class BatchCount {
+        private long reencoded;
+        private long failed;
+    }
+
+}
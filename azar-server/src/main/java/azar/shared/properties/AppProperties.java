@@ -1,5 +1,6 @@
 package azar.shared.properties;
 
+import java.util.List;
 import jakarta.enterprise.context.ApplicationScoped;
 import lombok.Getter;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -24,4 +25,58 @@ public class AppProperties {
     @ConfigProperty(name = "azar.map.box.api.key")
     String mapBoxApiKey;
 
+    @ConfigProperty(name = "azar.thumbnail.workers", defaultValue = "2")
+    Integer thumbnailWorkers;
+
+    @ConfigProperty(name = "azar.thumbnail.queue.size", defaultValue = "200")
+    Integer thumbnailQueueSize;
+
+    @ConfigProperty(name = "azar.thumbnail.renderer", defaultValue = "pdfbox")
+    String thumbnailRenderer;
+
+    @ConfigProperty(name = "azar.thumbnail.dpi", defaultValue = "150")
+    Integer thumbnailDpi;
+
+    @ConfigProperty(name = "azar.thumbnail.format", defaultValue = "jpeg")
+    String thumbnailFormat;
+
+    @ConfigProperty(name = "azar.thumbnail.quality", defaultValue = "0.8")
+    Float thumbnailQuality;
+
+    @ConfigProperty(name = "azar.text.workers", defaultValue = "1")
+    Integer textWorkers;
+
+    @ConfigProperty(name = "azar.text.queue.size", defaultValue = "200")
+    Integer textQueueSize;
+
+    @ConfigProperty(name = "azar.text.max.chars", defaultValue = "500000")
+    Integer textMaxChars;
+
+    @ConfigProperty(name = "azar.photo.import.workers", defaultValue = "4")
+    Integer photoImportWorkers;
+
+    @ConfigProperty(name = "azar.photo.import.batch.size", defaultValue = "10")
+    Integer photoImportBatchSize;
+
+    @ConfigProperty(name = "server.file.max.size.mb", defaultValue = "50")
+    Integer fileMaxSizeMb;
+
+    @ConfigProperty(name = "azar.photo.import.zip.max.entries", defaultValue = "1000")
+    Integer photoImportZipMaxEntries;
+
+    @ConfigProperty(name = "azar.photo.import.zip.max.mb", defaultValue = "2048")
+    Integer photoImportZipMaxMb;
+
+    @ConfigProperty(name = "azar.photo.rendition.sizes", defaultValue = "200,800,1600")
+    List<Integer> photoRenditionSizes;
+
+    @ConfigProperty(name = "azar.cache.binary.max.mb", defaultValue = "64")
+    Integer binaryCacheMaxMb;
+
+    @ConfigProperty(name = "azar.blob.storage", defaultValue = "postgres")
+    String blobStorage;
+
+    @ConfigProperty(name = "azar.blob.storage.root", defaultValue = "blobs")
+    String blobStorageRoot;
+
 }
@@ -2,6 +2,7 @@ package azar.shared.resources;
 
 import java.io.IOException;
 import java.io.InputStream;
+import azar.shared.images.EncodedImage;
 import io.vertx.ext.web.RoutingContext;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.Response;
@@ -15,6 +16,9 @@ import org.slf4j.LoggerFactory;
 public abstract class BaseResource {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    // clients may keep a copy but must revalidate it with If-None-Match before using it
+    private static final String REVALIDATE = "private, no-cache";
+
     @Context
     RoutingContext routingContext;
 
@@ -26,6 +30,19 @@ public abstract class BaseResource {
         return sendResponse(Response.Status.OK, response, logMessage, true);
     }
 
+    /**
+     * Sends a JSON response tagged with an ETag, so later requests can be answered with notModified.
+     *
+     * @param response   - the response entity
+     * @param logMessage - message to log
+     * @param eTag       - the tag of the entity, may be null
+     *
+     * @return the response
+     */
+    protected Response ok(Object response, String logMessage, EntityTag eTag) {
+        return withValidators(sendResponse(Response.Status.OK, response, logMessage, true), eTag);
+    }
+
     protected Response created(Object response, String logMessage) {
         return sendResponse(Response.Status.CREATED, response, logMessage, true);
     }
@@ -46,6 +63,49 @@ public abstract class BaseResource {
         return sendResponse(Response.Status.INTERNAL_SERVER_ERROR, Response.Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), logMessage, false);
     }
 
+    protected Response badGateway(String logMessage) {
+        return sendResponse(Response.Status.BAD_GATEWAY, Response.Status.BAD_GATEWAY.getReasonPhrase(), logMessage, false);
+    }
+
+
+    /**
+     * @param eTag - the current tag of the requested content, may be null
+     *
+     * @return true if the client's If-None-Match already covers the content
+     */
+    protected boolean isNotModified(EntityTag eTag) {
+        return eTag != null && eTag.matches(getRequestHeader("If-None-Match"));
+    }
+
+    /**
+     * @param name - the header name
+     *
+     * @return the header value of the current request, or null if it wasn't sent
+     */
+    protected String getRequestHeader(String name) {
+        if (routingContext == null || routingContext.request() == null) {
+            return null;
+        }
+        return routingContext.request().getHeader(name);
+    }
+
+    protected Response notModified(EntityTag eTag, String logMessage) {
+        logger.debug("{} - {}", routingContext.normalizedPath(), logMessage);
+        return Response.notModified()
+                .header("ETag", eTag.toString())
+                .header("Cache-Control", REVALIDATE)
+                .build();
+    }
+
+    private Response withValidators(Response response, EntityTag eTag) {
+        if (eTag == null) {
+            return response;
+        }
+        return Response.fromResponse(response)
+                .header("ETag", eTag.toString())
+                .header("Cache-Control", REVALIDATE)
+                .build();
+    }
 
     private Response sendResponse(Response.Status statusCode, Object responseEntity, String logMessage,
                                   boolean isOk) {
@@ -82,22 +142,96 @@ public abstract class BaseResource {
     }
 
     protected Response okPdf(String logMessage, String fileName, byte[] data) {
+        return okPdf(logMessage, fileName, data, null);
+    }
+
+    protected Response okPdf(String logMessage, String fileName, byte[] data, EntityTag eTag) {
         logger.debug("{} - {}", routingContext.currentRoute().getPath(), logMessage);
-        return Response.status(Response.Status.OK)
+        return withValidators(Response.status(Response.Status.OK)
                 .header("Content-Type", "application/pdf")
                 .header("Content-Disposition", "attachment; filename=" + fileName)
                 .entity(data)
                 .type("application/pdf")
-                .build();
+                .build(), eTag);
     }
 
     protected Response okImage(String logMessage, byte[] data) {
+        return okImage(logMessage, data, null);
+    }
+
+    protected Response okImage(String logMessage, byte[] data, EntityTag eTag) {
+        return okImage(logMessage, EncodedImage.stored(data).getMediaType(), data, eTag);
+    }
+
+    /**
+     * Sends an image that was picked by the request's Accept header. Transcoded images are tagged
+     * as a variant of the stored content, so each encoding is validated on its own.
+     *
+     * @param logMessage - message to log
+     * @param image      - the negotiated image
+     * @param eTag       - the tag of the stored content, may be null
+     *
+     * @return the response, or 304 if the client already holds this encoding
+     */
+    protected Response okImage(String logMessage, EncodedImage image, EntityTag eTag) {
+        EntityTag imageTag = eTag != null && image.isTranscoded() ? eTag.variant(image.getFormat().getFormatName()) : eTag;
+        if (image.isTranscoded() && isNotModified(imageTag)) {
+            return Response.fromResponse(notModified(imageTag, logMessage)).header("Vary", "Accept").build();
+        }
+        return Response.fromResponse(okImage(logMessage, image.getMediaType(), image.getData(), imageTag))
+                .header("Vary", "Accept")
+                .build();
+    }
+
+    protected Response okImage(String logMessage, String contentType, byte[] data, EntityTag eTag) {
         logger.debug("{} - {}", routingContext.currentRoute().getPath(), logMessage);
-        return Response.status(Response.Status.OK)
-                .header("Content-Type", "image/png")
+        return withValidators(Response.status(Response.Status.OK)
+                .header("Content-Type", contentType)
                 .header("Content-Length", String.valueOf(data.length))
                 .entity(data)
-                .type("image/png")
+                .type(contentType)
+                .build(), eTag);
+    }
+
+    /**
+     * Sends a streamed body, answering with 206 and a Content-Range when only a part was requested.
+     *
+     * @param logMessage         - message to log
+     * @param contentType        - the body media type
+     * @param contentDisposition - Content-Disposition header value, may be null
+     * @param range              - the byte range being sent
+     * @param body               - writes exactly range.length() bytes, a StreamingOutput or a file region
+     * @param eTag               - the tag of the whole content, may be null
+     *
+     * @return the response
+     */
+    protected Response okStream(String logMessage, String contentType, String contentDisposition,
+                                ByteRange range, Object body, EntityTag eTag) {
+        logger.debug("{} - {}", routingContext.currentRoute().getPath(), logMessage);
+        Response.ResponseBuilder responseBuilder = Response
+                .status(range.isPartial() ? Response.Status.PARTIAL_CONTENT : Response.Status.OK)
+                .header("Content-Type", contentType)
+                .header("Accept-Ranges", "bytes")
+                .header("Content-Length", String.valueOf(range.length()))
+                .entity(body)
+                .type(contentType);
+        if (range.isPartial()) {
+            responseBuilder.header("Content-Range", range.toContentRange());
+        }
+        if (contentDisposition != null) {
+            responseBuilder.header("Content-Disposition", contentDisposition);
+        }
+        if (eTag != null) {
+            responseBuilder.header("ETag", eTag.toString());
+            responseBuilder.header("Cache-Control", REVALIDATE);
+        }
+        return responseBuilder.build();
+    }
+
+    protected Response rangeNotSatisfiable(long totalSize, String logMessage) {
+        logger.warn("{} - {}", routingContext.normalizedPath(), logMessage);
+        return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header("Content-Range", "bytes */" + totalSize)
                 .build();
     }
 
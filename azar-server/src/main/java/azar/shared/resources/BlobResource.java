@@ -0,0 +1,48 @@
+package azar.shared.resources;
+
+import static azar.cloud.utils.Constants.ADMIN_GROUP;
+import static azar.cloud.utils.Constants.ADMIN_PREFIX_STRING;
+import azar.shared.entities.requests.BaseRequest;
+import azar.shared.managers.BlobMigrationManager;
+import io.smallrye.common.annotation.Blocking;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Path("/api/c" + ADMIN_PREFIX_STRING + "/blobs")
+public class BlobResource extends BaseResource {
+
+    private final BlobMigrationManager blobMigrationManager;
+
+    public BlobResource(BlobMigrationManager blobMigrationManager) {
+        this.blobMigrationManager = blobMigrationManager;
+    }
+
+    @Path("/migrate")
+    @POST
+    @Blocking
+    @RolesAllowed(ADMIN_GROUP)
+    public Response migrate(@QueryParam("target") String target, @QueryParam("batchSize") @DefaultValue("50") int batchSize,
+                            @QueryParam("maxBatches") @DefaultValue("20") int maxBatches, BaseRequest baseRequest) {
+        if (target == null || target.isBlank()) {
+            return badRequest("A target storage is required.");
+        }
+        if (batchSize < 1 || maxBatches < 1) {
+            return badRequest("Batch size and max batches must be greater than 0.");
+        }
+
+        try {
+            return ok(blobMigrationManager.migrate(target, batchSize, maxBatches), "Moved blobs into %s".formatted(target));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+}
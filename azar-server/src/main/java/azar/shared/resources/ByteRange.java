@@ -0,0 +1,85 @@
+package azar.shared.resources;
+
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: A single satisfiable byte range of a resource, as requested by an HTTP Range header
+ **/
+@Getter
+public class ByteRange {
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+    private final long totalSize;
+    private final boolean partial;
+
+    private ByteRange(long start, long end, long totalSize, boolean partial) {
+        this.start = start;
+        this.end = end;
+        this.totalSize = totalSize;
+        this.partial = partial;
+    }
+
+    public static ByteRange full(long totalSize) {
+        return new ByteRange(0, totalSize - 1, totalSize, false);
+    }
+
+    /**
+     * Parses a Range header against a resource of the given size.
+     * Only single ranges are honored, multi-range requests are answered with the full content.
+     *
+     * @param rangeHeader - the raw Range header, may be null
+     * @param totalSize   - the size of the resource in bytes
+     *
+     * @return the range to send, or null if the range can't be satisfied
+     */
+    public static ByteRange parse(String rangeHeader, long totalSize) {
+        if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT) || rangeHeader.contains(",")) {
+            return full(totalSize);
+        }
+
+        String spec = rangeHeader.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return full(totalSize);
+        }
+
+        try {
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (from.isEmpty()) {
+                // suffix range: last N bytes
+                long suffixLength = Long.parseLong(to);
+                if (suffixLength <= 0) {
+                    return null;
+                }
+                start = Math.max(0, totalSize - suffixLength);
+                end = totalSize - 1;
+            } else {
+                start = Long.parseLong(from);
+                end = to.isEmpty() ? totalSize - 1 : Math.min(Long.parseLong(to), totalSize - 1);
+            }
+
+            if (start < 0 || start >= totalSize || end < start) {
+                return null;
+            }
+            return new ByteRange(start, end, totalSize, true);
+        } catch (NumberFormatException e) {
+            return full(totalSize);
+        }
+    }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String toContentRange() {
+        return "bytes %d-%d/%d".formatted(start, end, totalSize);
+    }
+
+}
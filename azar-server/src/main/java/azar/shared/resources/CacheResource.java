@@ -0,0 +1,31 @@
+package azar.shared.resources;
+
+import static azar.cloud.utils.Constants.ADMIN_GROUP;
+import static azar.cloud.utils.Constants.ADMIN_PREFIX_STRING;
+import azar.shared.cache.CacheManager;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Path("/api/c" + ADMIN_PREFIX_STRING + "/cache")
+public class CacheResource extends BaseResource {
+
+    private final CacheManager cacheManager;
+
+    public CacheResource(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Path("/stats")
+    @GET
+    @RolesAllowed(ADMIN_GROUP)
+    public Response getStats() {
+        return ok(cacheManager.getStats(), "Sent cache stats back to client");
+    }
+
+}
@@ -0,0 +1,85 @@
+package azar.shared.resources;
+
+import lombok.Getter;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ * Purpose: An HTTP entity tag built from a content hash that was stored when the content was written
+ **/
+@Getter
+public class EntityTag {
+    private final String value;
+    private final boolean weak;
+
+    private EntityTag(String value, boolean weak) {
+        this.value = value;
+        this.weak = weak;
+    }
+
+    /**
+     * For byte-identical representations, e.g. images and PDFs.
+     *
+     * @param hash - the stored content hash, may be null
+     *
+     * @return the tag, or null if there's no hash
+     */
+    public static EntityTag strong(String hash) {
+        return hash == null || hash.isBlank() ? null : new EntityTag(hash, false);
+    }
+
+    /**
+     * For representations that may differ in bytes while carrying the same content, e.g. JSON vs Gson output.
+     *
+     * @param hash - the stored content hash, may be null
+     *
+     * @return the tag, or null if there's no hash
+     */
+    public static EntityTag weak(String hash) {
+        return hash == null || hash.isBlank() ? null : new EntityTag(hash, true);
+    }
+
+    /**
+     * Tags a different encoding of the same content, e.g. a thumbnail transcoded for the client.
+     *
+     * @param suffix - identifies the encoding
+     *
+     * @return the tag of the encoding
+     */
+    public EntityTag variant(String suffix) {
+        return new EntityTag(value + "-" + suffix, weak);
+    }
+
+    /**
+     * Checks an If-None-Match header against this tag, using weak comparison as If-None-Match requires.
+     *
+     * @param ifNoneMatch - the raw If-None-Match header, may be null
+     *
+     * @return true if the client already holds this representation
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")
+                    && tag.substring(1, tag.length() - 1).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return (weak ? "W/" : "") + "\"" + value + "\"";
+    }
+
+}
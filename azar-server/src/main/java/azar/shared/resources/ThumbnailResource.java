@@ -0,0 +1,41 @@
+package azar.shared.resources;
+
+import static azar.cloud.utils.Constants.ADMIN_GROUP;
+import static azar.cloud.utils.Constants.ADMIN_PREFIX_STRING;
+import azar.shared.entities.requests.BaseRequest;
+import azar.shared.managers.ThumbnailReencodeManager;
+import io.smallrye.common.annotation.Blocking;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Author: Shahar Azar
+ * Date:   18/10/2026
+ **/
+@Path("/api/c" + ADMIN_PREFIX_STRING + "/thumbnails")
+public class ThumbnailResource extends BaseResource {
+
+    private final ThumbnailReencodeManager thumbnailReencodeManager;
+
+    public ThumbnailResource(ThumbnailReencodeManager thumbnailReencodeManager) {
+        this.thumbnailReencodeManager = thumbnailReencodeManager;
+    }
+
+    @Path("/reencode")
+    @POST
+    @Blocking
+    @RolesAllowed(ADMIN_GROUP)
+    public Response reencode(@QueryParam("batchSize") @DefaultValue("50") int batchSize,
+                             @QueryParam("maxBatches") @DefaultValue("20") int maxBatches, BaseRequest baseRequest) {
+        if (batchSize < 1 || maxBatches < 1) {
+            return badRequest("Batch size and max batches must be greater than 0.");
+        }
+
+        return ok(thumbnailReencodeManager.reencode(batchSize, maxBatches), "Re-encoded stored thumbnails");
+    }
+
+}
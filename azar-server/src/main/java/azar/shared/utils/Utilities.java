@@ -1,7 +1,13 @@
 package azar.shared.utils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.regex.Pattern;
 
 /**
@@ -33,7 +39,10 @@ public class Utilities {
         if (data == null) {
             return "0 B";
         }
-        long size = data.length;
+        return getHumanReadableSize(data.length);
+    }
+
+    public static String getHumanReadableSize(long size) {
         String[] units = {"B", "KB", "MB", "GB", "TB"};
         int unitIndex = 0;
 
@@ -46,33 +55,43 @@ public class Utilities {
         return String.format("%.2f %s", sizeInUnits, units[unitIndex]);
     }
 
-    public static byte[] generateThumbnail(byte[] pdfBytes) {
+    public static MessageDigest newSha256() {
         try {
-            Path tmpPdf = Files.createTempFile("thumb-", ".pdf");
-            Files.write(tmpPdf, pdfBytes);
-
-            Path out = Files.createTempFile("thumb-out-", "");
-            // Render page 1 at 150 DPI to PNG
-            Process p = new ProcessBuilder(
-                    "pdftoppm", "-singlefile", "-f", "1", "-l", "1",
-                    "-png", "-r", "150",
-                    tmpPdf.toString(), out.toString()
-            ).inheritIO().start();
-
-            if (p.waitFor() != 0) return new byte[0];
-
-            Path png = Path.of(out.toString() + ".png");
-            byte[] bytes = Files.readAllBytes(png);
-
-            Files.deleteIfExists(png);
-            Files.deleteIfExists(tmpPdf);
-            Files.deleteIfExists(out);
-            return bytes;
-        } catch (Exception e) {
-            return new byte[0];
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't available", e);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256Hex(byte[] data) {
+        if (data == null) {
+            return null;
         }
+        return HexFormat.of().formatHex(newSha256().digest(data));
     }
 
+    public static String sha256Hex(String data) {
+        if (data == null) {
+            return null;
+        }
+        return sha256Hex(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256Hex(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest);
+    }
 
     public static boolean isValidEmail(String email) {
         return email != null && Pattern.matches(EMAIL_REGEX, email);
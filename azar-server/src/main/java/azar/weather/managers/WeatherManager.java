@@ -1,5 +1,10 @@
 package azar.weather.managers;
 
+import java.time.Duration;
+import azar.shared.cache.CacheKeys;
+import azar.shared.cache.CacheManager;
+import azar.shared.cache.CacheRegion;
+import azar.shared.cache.CacheRegionSpec;
 import azar.shared.properties.AppProperties;
 import azar.weather.entities.external.api.open_weather_map.forecast_response.OWMForecastResponse;
 import azar.weather.entities.external.api.open_weather_map.lat_long_response.OWMLatLongResponse;
@@ -9,6 +14,8 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Author: Shahar Azar
@@ -16,15 +23,46 @@ import jakarta.ws.rs.core.Response;
  **/
 @ApplicationScoped
 public class WeatherManager {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     private final Client client;
     private final String apiKey;
+    private final CacheRegion<String, OWMLatLongResponse> weatherCache;
+    private final CacheRegion<String, OWMForecastResponse> forecastCache;
 
-    public WeatherManager(AppProperties appProperties) {
+    public WeatherManager(AppProperties appProperties, CacheManager cacheManager) {
         this.apiKey = appProperties.getOpenWeatherApiKey();
         this.client = ClientBuilder.newClient();
+        this.weatherCache = cacheManager.region(CacheRegionSpec.<String, OWMLatLongResponse>builder()
+                .name(CacheKeys.WEATHER_REGION)
+                .valueType(OWMLatLongResponse.class)
+                .ttl(Duration.ofMinutes(10))
+                .maximumSize(1_000)
+                .build());
+        this.forecastCache = cacheManager.region(CacheRegionSpec.<String, OWMForecastResponse>builder()
+                .name(CacheKeys.FORECAST_REGION)
+                .valueType(OWMForecastResponse.class)
+                .ttl(Duration.ofMinutes(30))
+                .maximumSize(1_000)
+                .build());
     }
 
+    /**
+     * Nearby coordinates (~1km) share one cached OpenWeatherMap response
+     */
     public OWMLatLongResponse weatherUsingLatLong(double latitude, double longitude) {
+        double lat = round(latitude);
+        double lon = round(longitude);
+        return weatherCache.getOrLoad(CacheKeys.LAT_LONG.formatted(lat, lon), key -> fetchWeather(lat, lon));
+    }
+
+    public OWMForecastResponse forecastUsingLatLong(double latitude, double longitude) {
+        double lat = round(latitude);
+        double lon = round(longitude);
+        return forecastCache.getOrLoad(CacheKeys.LAT_LONG.formatted(lat, lon), key -> fetchForecast(lat, lon));
+    }
+
+    private OWMLatLongResponse fetchWeather(double latitude, double longitude) {
         Response response = client
                 .target(WEATHER_BASE_URL)
                 .queryParam("lat", String.valueOf(latitude))
@@ -33,10 +71,13 @@ public class WeatherManager {
                 .queryParam("units", "metric") //temperatureUnit.equalsIgnoreCase(CELSIUS) ? "metric" : "imperial"
                 .request().get();
 
+        if (isFailed(response)) {
+            return null;
+        }
         return response.readEntity(OWMLatLongResponse.class);
     }
 
-    public OWMForecastResponse forecastUsingLatLong(double latitude, double longitude) {
+    private OWMForecastResponse fetchForecast(double latitude, double longitude) {
         Response response = client
                 .target(FORECAST_BASE_URL)
                 .queryParam("lat", String.valueOf(latitude))
@@ -45,7 +86,24 @@ public class WeatherManager {
                 .queryParam("units", "metric") //temperatureUnit.equalsIgnoreCase(CELSIUS) ? "metric" : "imperial"
                 .request().get();
 
+        if (isFailed(response)) {
+            return null;
+        }
         return response.readEntity(OWMForecastResponse.class);
     }
 
+    // failed calls aren't cached, so they're retried on the next request
+    private boolean isFailed(Response response) {
+        if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            logger.warn("OpenWeatherMap call failed with status {}", response.getStatus());
+            response.close();
+            return true;
+        }
+        return false;
+    }
+
+    private static double round(double coordinate) {
+        return Math.round(coordinate * 100) / 100.0;
+    }
+
 }
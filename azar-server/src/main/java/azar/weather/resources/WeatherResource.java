@@ -2,6 +2,8 @@ package azar.weather.resources;
 
 import azar.shared.resources.BaseResource;
 import azar.weather.dal.service.WeatherCityService;
+import azar.weather.entities.external.api.open_weather_map.forecast_response.OWMForecastResponse;
+import azar.weather.entities.external.api.open_weather_map.lat_long_response.OWMLatLongResponse;
 import azar.weather.entities.requests.OWMCitiesByInputRequest;
 import azar.weather.entities.requests.OWMForecastLatLongRequest;
 import azar.weather.entities.requests.OWMWeatherLatLongRequest;
@@ -37,7 +39,11 @@ public class WeatherResource extends BaseResource {
         double latitude = owmWeatherLatLongRequest.getLatitude();
         double longitude = owmWeatherLatLongRequest.getLongitude();
 
-        return ok(weatherManager.weatherUsingLatLong(latitude, longitude));
+        OWMLatLongResponse weather = weatherManager.weatherUsingLatLong(latitude, longitude);
+        if (weather == null) {
+            return badGateway("Could not get the weather for %s, %s".formatted(latitude, longitude));
+        }
+        return ok(weather);
     }
 
     @Path("/getCitiesByInput")
@@ -56,7 +62,11 @@ public class WeatherResource extends BaseResource {
         double latitude = owmForecastLatLongRequest.getLatitude();
         double longitude = owmForecastLatLongRequest.getLongitude();
 
-        return ok(weatherManager.forecastUsingLatLong(latitude, longitude));
+        OWMForecastResponse forecast = weatherManager.forecastUsingLatLong(latitude, longitude);
+        if (forecast == null) {
+            return badGateway("Could not get the forecast for %s, %s".formatted(latitude, longitude));
+        }
+        return ok(forecast);
     }
 
 }
@@ -1,6 +1,8 @@
 package azar.whoami.dal.dao;
 
+import java.util.List;
 import azar.shared.dal.dao.GenericDao;
+import azar.shared.entities.db.Blob;
 import azar.whoami.entities.db.CV;
 import jakarta.enterprise.context.ApplicationScoped;
 
@@ -11,4 +13,43 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class CVDao extends GenericDao<CV> {
 
+    /**
+     * Reads only the stored hash of the first row, without loading its content.
+     */
+    public String getDataHash() {
+        return getEntityManager()
+                .createQuery("select c.dataHash from CV c order by c.id", String.class)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Points the first CV at new content, creating it if there's no CV yet.
+     *
+     * @param fileName - the new file name
+     * @param blob     - the stored content
+     *
+     * @return the hash of the content the CV pointed at before, or null if it was created
+     */
+    public String replaceFirst(String fileName, Blob blob) {
+        List<?> previous = getEntityManager()
+                .createNativeQuery("WITH first AS (SELECT id, dataHash FROM cv ORDER BY id LIMIT 1 FOR UPDATE) " +
+                        "UPDATE cv c SET fileName = :fileName, dataHash = :hash " +
+                        "FROM first f WHERE c.id = f.id RETURNING f.dataHash")
+                .setParameter("fileName", fileName)
+                .setParameter("hash", blob.getHash())
+                .getResultList();
+        if (!previous.isEmpty()) {
+            return (String) previous.get(0);
+        }
+        getEntityManager()
+                .createNativeQuery("INSERT INTO cv (fileName, dataHash) VALUES (:fileName, :hash)")
+                .setParameter("fileName", fileName)
+                .setParameter("hash", blob.getHash())
+                .executeUpdate();
+        return null;
+    }
+
 }
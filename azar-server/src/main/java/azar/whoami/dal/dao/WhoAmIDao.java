@@ -11,4 +11,16 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class WhoAmIDao extends GenericDao<WhoAmIData> {
 
+    /**
+     * Reads only the stored hash of the first row, without loading its content.
+     */
+    public String getContentHash() {
+        return getEntityManager()
+                .createQuery("select w.contentHash from WhoAmIData w order by w.id", String.class)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
 }
@@ -2,9 +2,12 @@ package azar.whoami.dal.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import static azar.cloud.utils.Constants.DEFAULT_CV_FILE_PATH;
 import azar.shared.dal.dao.GenericDao;
+import azar.shared.dal.service.BlobService;
 import azar.shared.dal.service.GenericService;
+import azar.shared.entities.db.Blob;
 import azar.whoami.dal.dao.CVDao;
 import azar.whoami.entities.db.CV;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -20,9 +23,11 @@ public class CVService extends GenericService<CV> {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final CVDao cvDao;
+    private final BlobService blobService;
 
-    public CVService(CVDao cvDao) {
+    public CVService(CVDao cvDao, BlobService blobService) {
         this.cvDao = cvDao;
+        this.blobService = blobService;
     }
 
     @Override
@@ -30,6 +35,18 @@ public class CVService extends GenericService<CV> {
         return cvDao;
     }
 
+    /**
+     * Returns the CV with its content read from the blob store, or null if there's no CV yet.
+     */
+    @Override
+    public CV getFirst() {
+        CV cv = super.getFirst();
+        if (cv != null) {
+            cv.setData(blobService.read(cv.getDataHash()));
+        }
+        return cv;
+    }
+
     public CV getDefault() {
         CV cv = new CV();
         cv.setFileName(DEFAULT_CV_FILE_PATH);
@@ -51,4 +68,22 @@ public class CVService extends GenericService<CV> {
         }
         return fileContent;
     }
+
+    /**
+     * Replaces the CV content with a file, releasing the previous content blob.
+     *
+     * @param fileName - the CV file name
+     * @param file     - the uploaded file
+     *
+     * @return the hash of the new content
+     */
+    public String replace(String fileName, Path file) {
+        Blob blob = blobService.store(file);
+        blobService.release(cvDao.replaceFirst(fileName, blob));
+        return blob.getHash();
+    }
+
+    public String getDataHash() {
+        return cvDao.getDataHash();
+    }
 }
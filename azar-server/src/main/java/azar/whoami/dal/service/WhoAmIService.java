@@ -23,4 +23,8 @@ public class WhoAmIService extends GenericService<WhoAmIData> {
     protected GenericDao<WhoAmIData> getDao() {
         return whoAmIDao;
     }
+
+    public String getContentHash() {
+        return whoAmIDao.getContentHash();
+    }
 }
@@ -6,8 +6,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -27,7 +27,10 @@ public class CV extends PanacheEntityBase {
     @Column(nullable = false)
     private String fileName;
 
-    @Lob
-    @Column(nullable = false)
+    // the content of the dataHash blob, filled by CVService when the CV is read
+    @Transient
     private byte[] data;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    private String dataHash;
 }
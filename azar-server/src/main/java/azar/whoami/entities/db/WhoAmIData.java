@@ -2,12 +2,15 @@ package azar.whoami.entities.db;
 
 import java.util.ArrayList;
 import java.util.List;
+import azar.shared.utils.Utilities;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
@@ -51,4 +54,16 @@ public class WhoAmIData extends PanacheEntityBase {
 
     @Column(name = "photos", columnDefinition = "text[]")
     private List<String> photos = new ArrayList<>();
+
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @PrePersist
+    @PreUpdate
+    protected void updateContentHash() {
+        // Postgres text never holds NUL, so it keeps the fields apart
+        contentHash = Utilities.sha256Hex(String.join("\u0000", headerTitle, headerIntro, mainContentQuestion,
+                mainContentFirstTitle, String.valueOf(mainContentFirstData), mainContentSecondTitle,
+                String.valueOf(mainContentSecondData), cvButton, String.valueOf(photos)));
+    }
 }
@@ -1,11 +1,11 @@
 package azar.whoami.resources;
 
-import java.nio.file.Files;
 import static azar.cloud.utils.Constants.ADMIN_GROUP;
 import static azar.cloud.utils.Constants.ADMIN_PREFIX_STRING;
 import static azar.cloud.utils.Constants.DEFAULT_CV_FILE_PATH;
 import azar.shared.dal.service.UserService;
 import azar.shared.resources.BaseResource;
+import azar.shared.resources.EntityTag;
 import azar.shared.utils.Utilities;
 import azar.shared.utils.email.EmailManager;
 import azar.whoami.dal.service.CVService;
@@ -48,12 +48,18 @@ public class CVResource extends BaseResource {
     @Transactional
     @PermitAll
     public Response getCV() {
+        EntityTag eTag = EntityTag.strong(cvService.getDataHash());
+        if (isNotModified(eTag)) {
+            return notModified(eTag, "CV wasn't modified");
+        }
+
         CV optionalCV = cvService.getFirst();
         if (optionalCV == null) {
             logger.warn("Could not get cv from db, returning default value..");
             return okPdf("Return default CV to client..", DEFAULT_CV_FILE_PATH, getFileContent(DEFAULT_CV_FILE_PATH));
         }
-        return okPdf("Return CV to client..", optionalCV.getFileName(), optionalCV.getData());
+        return okPdf("Return CV to client..", optionalCV.getFileName(), optionalCV.getData(),
+                EntityTag.strong(optionalCV.getDataHash()));
     }
 
     @Path("/sendToEmail")
@@ -88,19 +94,16 @@ public class CVResource extends BaseResource {
         if (!userService.isAdmin(userName)) {
             return unauthorized("User %s is not authorized to add users!".formatted(userName));
         }
-        byte[] bytes;
+        String dataHash;
         try {
-            bytes = Files.readAllBytes(file.filePath());
+            dataHash = cvService.replace(file.fileName(), file.filePath());
         } catch (Exception e) {
-            return internalError("Failed to read uploaded file: %s".formatted(e.getMessage()));
-        }
-        CV cv = cvService.getFirst();
-        if (cv == null) {
-            cv = new CV();
+            return internalError("Failed to store uploaded file: %s".formatted(e.getMessage()));
         }
+        CV cv = new CV();
         cv.setFileName(file.fileName());
-        cv.setData(bytes);
-        cvService.merge(cv);
+        cv.setData(new byte[0]);
+        cv.setDataHash(dataHash);
 
         return ok(cv);
     }
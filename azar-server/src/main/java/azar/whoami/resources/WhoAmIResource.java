@@ -10,6 +10,7 @@ import static azar.cloud.utils.Constants.DEFAULT_PHOTO_1_FILE_PATH;
 import static azar.cloud.utils.Constants.DEFAULT_PHOTO_2_FILE_PATH;
 import static azar.cloud.utils.Constants.DEFAULT_PHOTO_3_FILE_PATH;
 import azar.shared.resources.BaseResource;
+import azar.shared.resources.EntityTag;
 import azar.whoami.dal.service.WhoAmIService;
 import azar.whoami.entities.db.WhoAmIData;
 import azar.whoami.entities.requests.UpdateWhoAmIDataRequest;
@@ -42,12 +43,18 @@ public class WhoAmIResource extends BaseResource {
     @Transactional(Transactional.TxType.SUPPORTS)
     @PermitAll
     public Response getWhoAmI() {
+        // weak, since the same data is sent as either Jackson or Gson JSON
+        EntityTag eTag = EntityTag.weak(whoAmIService.getContentHash());
+        if (isNotModified(eTag)) {
+            return notModified(eTag, "WhoAmIData wasn't modified");
+        }
+
         WhoAmIData whoAmIData = whoAmIService.getFirst();
         if (whoAmIData == null) {
             logger.warn("Could not get WhoAmI data from db, returning default value..");
             return ok(getDefaultData(), "Sent DEFAULT WhoAmIData back to client");
         }
-        return ok(whoAmIData, "Sent WhoAmIData back to client");
+        return ok(whoAmIData, "Sent WhoAmIData back to client", EntityTag.weak(whoAmIData.getContentHash()));
     }
 
     @Path(ADMIN_PREFIX_STRING + "/update")
@@ -0,0 +1,2 @@
+-- keyset pagination of the gallery reads photos in (uploaded_at, id) order
+CREATE INDEX idx_photos_uploaded_at_id ON Photos (uploaded_at, id);
@@ -0,0 +1,57 @@
+-- spatial lookups scan geohash prefixes instead of the whole table, (0, 0) is "no location" and gets no hash
+ALTER TABLE gps_metadata
+    ADD COLUMN geohash VARCHAR(12);
+
+CREATE FUNCTION pg_temp.geohash_encode(lat DOUBLE PRECISION, lon DOUBLE PRECISION, hash_length INT) RETURNS VARCHAR AS
+$$
+DECLARE
+    base32   CONSTANT TEXT := '0123456789bcdefghjkmnpqrstuvwxyz';
+    min_lat  DOUBLE PRECISION := -90;
+    max_lat  DOUBLE PRECISION := 90;
+    min_lon  DOUBLE PRECISION := -180;
+    max_lon  DOUBLE PRECISION := 180;
+    mid      DOUBLE PRECISION;
+    hash     TEXT := '';
+    is_lon   BOOLEAN := TRUE;
+    bits     INT := 0;
+    idx      INT := 0;
+BEGIN
+    WHILE length(hash) < hash_length LOOP
+        idx := idx * 2;
+        IF is_lon THEN
+            mid := (min_lon + max_lon) / 2;
+            IF lon >= mid THEN
+                idx := idx + 1;
+                min_lon := mid;
+            ELSE
+                max_lon := mid;
+            END IF;
+        ELSE
+            mid := (min_lat + max_lat) / 2;
+            IF lat >= mid THEN
+                idx := idx + 1;
+                min_lat := mid;
+            ELSE
+                max_lat := mid;
+            END IF;
+        END IF;
+        is_lon := NOT is_lon;
+        bits := bits + 1;
+        IF bits = 5 THEN
+            hash := hash || substr(base32, idx + 1, 1);
+            bits := 0;
+            idx := 0;
+        END IF;
+    END LOOP;
+    RETURN hash;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+UPDATE gps_metadata
+SET geohash = pg_temp.geohash_encode(latitude, longitude, 12)
+WHERE latitude IS NOT NULL
+  AND longitude IS NOT NULL
+  AND NOT (latitude = 0 AND longitude = 0);
+
+-- text_pattern_ops lets LIKE 'prefix%' use the index regardless of the database collation
+CREATE INDEX idx_gps_metadata_geohash ON gps_metadata (geohash text_pattern_ops);
@@ -0,0 +1,17 @@
+-- downscaled copies of a photo per size preset, generated on first request, the content lives in blobs
+CREATE TABLE photo_renditions
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    photo_id     INTEGER                                 NOT NULL,
+    size         INTEGER                                 NOT NULL,
+    content_hash VARCHAR(64)                             NOT NULL,
+    content_type VARCHAR(64)                             NOT NULL,
+    width        INTEGER                                 NOT NULL,
+    height       INTEGER                                 NOT NULL,
+    CONSTRAINT pk_photo_renditions PRIMARY KEY (id),
+    CONSTRAINT uc_photo_renditions_photo_size UNIQUE (photo_id, size)
+);
+
+-- no cascade, deleting a photo has to release the rendition blobs first
+ALTER TABLE photo_renditions
+    ADD CONSTRAINT FK_PHOTO_RENDITIONS_ON_PHOTO FOREIGN KEY (photo_id) REFERENCES Photos (id);
@@ -0,0 +1,3 @@
+-- keyset pagination of the PDF listing, newest first or by file name, the id breaks ties
+CREATE INDEX idx_pdf_files_uploaded_at_id ON pdf_files (uploadedAt, id);
+CREATE INDEX idx_pdf_files_file_name_id ON pdf_files (fileName, id);
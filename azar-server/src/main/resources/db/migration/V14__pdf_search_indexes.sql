@@ -0,0 +1,9 @@
+-- the entity binds labels as a varchar array, Postgres has no array operators between text[] and varchar[].
+-- No length limit, so existing labels of any length convert as they are
+ALTER TABLE pdf_files
+    ALTER COLUMN labels TYPE VARCHAR[];
+
+-- PDF search: any / all labels (&& and @>), owner with an upload date range, case-insensitive file name prefix
+CREATE INDEX idx_pdf_files_labels ON pdf_files USING GIN (labels);
+CREATE INDEX idx_pdf_files_uploaded_by_uploaded_at_id ON pdf_files (uploadedBy, uploadedAt, id);
+CREATE INDEX idx_pdf_files_file_name_prefix ON pdf_files (lower(fileName) text_pattern_ops);
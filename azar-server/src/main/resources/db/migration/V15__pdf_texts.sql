@@ -0,0 +1,17 @@
+-- Text extracted from PDF content for full-text search. It is keyed by content hash, so identical uploads
+-- share one extraction and a PDF is only extracted again when its content changes
+CREATE TABLE pdf_texts
+(
+    dataHash      VARCHAR(64)                 NOT NULL,
+    status        VARCHAR(255)                NOT NULL,
+    content       TEXT                        NOT NULL DEFAULT '',
+    search_vector TSVECTOR GENERATED ALWAYS AS (to_tsvector('simple', content)) STORED,
+    extractedAt   TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT (now() AT TIME ZONE 'UTC'),
+    CONSTRAINT pk_pdf_texts PRIMARY KEY (dataHash),
+    CONSTRAINT FK_PDF_TEXTS_ON_BLOB FOREIGN KEY (dataHash) REFERENCES blobs (hash) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_pdf_texts_search_vector ON pdf_texts USING GIN (search_vector);
+
+-- text matches are joined back to the PDFs that hold the content
+CREATE INDEX idx_pdf_files_data_hash ON pdf_files (dataHash);
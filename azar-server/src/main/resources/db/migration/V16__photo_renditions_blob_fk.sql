@@ -0,0 +1,8 @@
+-- renditions reference their content like every other blob owner, so it can't be deleted under them.
+-- Renditions whose content is already gone are dropped, they are generated again on their next request
+DELETE
+FROM photo_renditions r
+WHERE NOT EXISTS (SELECT 1 FROM blobs b WHERE b.hash = r.content_hash);
+
+ALTER TABLE photo_renditions
+    ADD CONSTRAINT FK_PHOTO_RENDITIONS_ON_BLOB FOREIGN KEY (content_hash) REFERENCES blobs (hash);
@@ -0,0 +1,10 @@
+-- The thumbnail hash is stored when the thumbnail is written and served as its ETag,
+-- so a revalidation is answered without reading or hashing the thumbnail
+ALTER TABLE Photos
+    ADD COLUMN thumbnail_hash VARCHAR(64);
+
+UPDATE Photos
+SET thumbnail_hash = encode(sha256(thumbnail), 'hex');
+
+ALTER TABLE Photos
+    ALTER COLUMN thumbnail_hash SET NOT NULL;
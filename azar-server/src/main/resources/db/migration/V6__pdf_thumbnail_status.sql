@@ -0,0 +1,6 @@
+-- Thumbnails are rendered in the background, so a PDF may exist before its thumbnail does
+ALTER TABLE pdf_files
+    ADD COLUMN thumbnailStatus VARCHAR(255) NOT NULL DEFAULT 'READY';
+
+ALTER TABLE pdf_files
+    ALTER COLUMN thumbnail DROP NOT NULL;
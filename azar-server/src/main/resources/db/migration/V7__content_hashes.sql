@@ -0,0 +1,27 @@
+-- Content hashes are stored when content is written and served as ETags,
+-- so conditional requests can be answered without reading the blobs
+ALTER TABLE pdf_files
+    ADD COLUMN dataHash VARCHAR(64);
+
+ALTER TABLE pdf_files
+    ADD COLUMN thumbnailHash VARCHAR(64);
+
+UPDATE pdf_files
+SET dataHash = encode(sha256(lo_get(data)), 'hex');
+
+UPDATE pdf_files
+SET thumbnailHash = encode(sha256(lo_get(thumbnail)), 'hex')
+WHERE thumbnail IS NOT NULL;
+
+ALTER TABLE cv
+    ADD COLUMN dataHash VARCHAR(64);
+
+UPDATE cv
+SET dataHash = encode(sha256(lo_get(data)), 'hex');
+
+-- existing rows only need a distinct tag, the application recomputes it on the next update
+ALTER TABLE who_am_i
+    ADD COLUMN content_hash VARCHAR(64);
+
+UPDATE who_am_i w
+SET content_hash = encode(sha256(convert_to(row_to_json(w)::text, 'UTF8')), 'hex');
@@ -0,0 +1,84 @@
+-- Content-addressed store: every distinct content is kept once as a large object,
+-- photos, PDFs and CVs reference it by hash and ref_count tracks how many rows do
+CREATE TABLE blobs
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    hash       VARCHAR(64)                             NOT NULL,
+    data       OID                                     NOT NULL,
+    size       BIGINT                                  NOT NULL,
+    ref_count  INTEGER                                 NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE             NOT NULL DEFAULT (now() AT TIME ZONE 'UTC'),
+    CONSTRAINT pk_blobs PRIMARY KEY (id),
+    CONSTRAINT uc_blobs_hash UNIQUE (hash)
+);
+
+-- PDFs and CVs already hold large objects, the first one of every hash is kept
+CREATE TEMPORARY TABLE blob_refs ON COMMIT DROP AS
+SELECT dataHash AS hash, data AS oid
+FROM pdf_files
+UNION ALL
+SELECT dataHash, data
+FROM cv;
+
+INSERT INTO blobs (hash, data, size, ref_count)
+SELECT hash, MIN(oid), 0, COUNT(*)
+FROM blob_refs
+GROUP BY hash;
+
+UPDATE blobs
+SET size = lo_lseek64(lo_open(data, 262144), 0, 2);
+
+SELECT lo_unlink(r.oid)
+FROM (SELECT DISTINCT oid FROM blob_refs) r
+WHERE NOT EXISTS (SELECT 1 FROM blobs b WHERE b.data = r.oid);
+
+UPDATE pdf_files p
+SET data = b.data
+FROM blobs b
+WHERE b.hash = p.dataHash
+  AND p.data <> b.data;
+
+UPDATE cv c
+SET data = b.data
+FROM blobs b
+WHERE b.hash = c.dataHash
+  AND c.data <> b.data;
+
+-- photos move their bytea content into the store
+ALTER TABLE Photos
+    ADD COLUMN data_hash VARCHAR(64);
+
+UPDATE Photos
+SET data_hash = encode(sha256(data), 'hex');
+
+UPDATE blobs b
+SET ref_count = b.ref_count + g.refs
+FROM (SELECT data_hash, COUNT(*) AS refs FROM Photos GROUP BY data_hash) g
+WHERE b.hash = g.data_hash;
+
+INSERT INTO blobs (hash, data, size, ref_count)
+SELECT d.data_hash, lo_from_bytea(0, d.data), length(d.data), g.refs
+FROM (SELECT DISTINCT ON (data_hash) data_hash, data FROM Photos ORDER BY data_hash, id) d
+         JOIN (SELECT data_hash, COUNT(*) AS refs FROM Photos GROUP BY data_hash) g ON g.data_hash = d.data_hash
+WHERE NOT EXISTS (SELECT 1 FROM blobs b WHERE b.hash = d.data_hash);
+
+ALTER TABLE Photos
+    DROP COLUMN data;
+
+ALTER TABLE Photos
+    ALTER COLUMN data_hash SET NOT NULL;
+
+ALTER TABLE pdf_files
+    ALTER COLUMN dataHash SET NOT NULL;
+
+ALTER TABLE cv
+    ALTER COLUMN dataHash SET NOT NULL;
+
+ALTER TABLE Photos
+    ADD CONSTRAINT FK_PHOTOS_ON_BLOB FOREIGN KEY (data_hash) REFERENCES blobs (hash);
+
+ALTER TABLE pdf_files
+    ADD CONSTRAINT FK_PDF_FILES_ON_BLOB FOREIGN KEY (dataHash) REFERENCES blobs (hash);
+
+ALTER TABLE cv
+    ADD CONSTRAINT FK_CV_ON_BLOB FOREIGN KEY (dataHash) REFERENCES blobs (hash);
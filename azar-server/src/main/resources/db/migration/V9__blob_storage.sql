@@ -0,0 +1,16 @@
+-- Blob content may live outside Postgres, so content is always read through the blobs table
+ALTER TABLE blobs
+    ADD COLUMN storage VARCHAR(32) NOT NULL DEFAULT 'postgres';
+
+ALTER TABLE blobs
+    ADD COLUMN location VARCHAR(255);
+
+ALTER TABLE blobs
+    ALTER COLUMN data DROP NOT NULL;
+
+-- these only duplicated blobs.data
+ALTER TABLE pdf_files
+    DROP COLUMN data;
+
+ALTER TABLE cv
+    DROP COLUMN data;
@@ -0,0 +1,75 @@
+package azar.cloud.dal.service;
+
+import java.util.List;
+import java.util.Map;
+import azar.cloud.dal.dao.PdfFileDao;
+import azar.cloud.entities.client.PdfFile;
+import azar.cloud.entities.requests.pdf.PdfSearchRequest;
+import azar.cloud.entities.responses.PdfSearchResponse;
+import azar.shared.dal.service.BlobService;
+import azar.shared.entities.responses.PageResponse;
+import azar.testinfra.BaseUnitTest;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PdfFileServiceUnitTest extends BaseUnitTest {
+
+    @Mock
+    PdfFileDao pdfFileDao;
+    @Mock
+    BlobService blobService;
+
+    PdfFileService service;
+
+    private final PdfSearchRequest request = PdfSearchRequest.builder().anyLabels(List.of("tax")).build();
+    private final List<PdfFile> pdfs = List.of(new PdfFile(), new PdfFile());
+
+    @BeforeEach
+    void setUp() {
+        service = new PdfFileService(pdfFileDao, blobService);
+    }
+
+    @Test
+    void search_firstPage_countsMatchesAndFacets() {
+        when(pdfFileDao.search(request, "newest", null, 2)).thenReturn(new PageResponse<>(pdfs, "next", null));
+        when(pdfFileDao.countMatches(request)).thenReturn(9L);
+        when(pdfFileDao.getLabelFacets(request, 50)).thenReturn(Map.of("tax", 9L));
+
+        PdfSearchResponse response = service.search(request, "newest", null, 2);
+
+        assertThat(response.getItems()).isSameAs(pdfs);
+        assertThat(response.getNextCursor()).isEqualTo("next");
+        assertThat(response.getTotal()).isEqualTo(9L);
+        assertThat(response.getLabelFacets()).containsEntry("tax", 9L);
+    }
+
+    @Test
+    void search_unfilteredFirstPage_keepsTheApproximateTotal() {
+        when(pdfFileDao.search(null, "id", "", 2)).thenReturn(new PageResponse<>(pdfs, "next", 1000L));
+        when(pdfFileDao.getLabelFacets(null, 50)).thenReturn(Map.of());
+
+        assertThat(service.search(null, "id", "", 2).getTotal()).isEqualTo(1000L);
+        verify(pdfFileDao, never()).countMatches(any());
+    }
+
+    @Test
+    void search_laterPage_skipsTheAggregations() {
+        when(pdfFileDao.search(request, "id", "cursor", 2)).thenReturn(new PageResponse<>(pdfs, null, null));
+
+        PdfSearchResponse response = service.search(request, "id", "cursor", 2);
+
+        assertThat(response.getItems()).isSameAs(pdfs);
+        assertThat(response.getTotal()).isNull();
+        assertThat(response.getLabelFacets()).isNull();
+        verify(pdfFileDao, never()).countMatches(any());
+        verify(pdfFileDao, never()).getLabelFacets(any(), anyInt());
+    }
+
+}
@@ -1,27 +1,50 @@
 package azar.cloud.resources;
 
+import java.awt.image.BufferedImage;
 import java.lang.reflect.Field;
-import java.util.Base64;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import azar.cloud.dal.service.PdfFileService;
 import azar.cloud.entities.db.PdfFile;
+import azar.cloud.entities.db.ThumbnailStatus;
 import azar.cloud.entities.requests.pdf.PdfDeleteRequest;
+import azar.cloud.entities.requests.pdf.PdfSearchRequest;
+import azar.cloud.entities.responses.PdfSearchResponse;
+import azar.cloud.entities.responses.PdfTextHit;
+import azar.cloud.managers.PdfTextManager;
+import azar.cloud.managers.PdfThumbnailManager;
 import azar.shared.cache.CacheManager;
+import azar.shared.dal.blob.BlobRef;
+import azar.shared.entities.db.Blob;
 import azar.shared.entities.requests.BaseRequest;
+import azar.shared.entities.responses.PageResponse;
+import azar.shared.images.ImageFormat;
+import azar.shared.images.ThumbnailEncoder;
 import azar.testinfra.BaseUnitTest;
+import azar.testinfra.TestDataFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.quarkus.security.identity.SecurityIdentity;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.BeforeEach;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class PdfResourceUnitTest extends BaseUnitTest {
@@ -29,9 +52,15 @@ class PdfResourceUnitTest extends BaseUnitTest {
     @Mock
     PdfFileService pdfFileService;
     @Mock
+    PdfThumbnailManager pdfThumbnailManager;
+    @Mock
+    PdfTextManager pdfTextManager;
+    @Mock
     CacheManager cacheManager;
     @Mock
     ObjectMapper objectMapper;
+    @Spy
+    ThumbnailEncoder thumbnailEncoder = TestDataFactory.thumbnailEncoder("jpeg");
 
     @InjectMocks
     PdfResource resource;
@@ -64,7 +93,8 @@ class PdfResourceUnitTest extends BaseUnitTest {
 
     @Test
     void getAllPdfs_validParams_returnsOkWithList() {
-        when(pdfFileService.getAllClientPaginated(1, 5)).thenReturn(List.of(new PdfFile(), new PdfFile()));
+        when(pdfFileService.getAllClientPaginated(1, 5)).thenReturn(List.of(new azar.cloud.entities.client.PdfFile(),
+                new azar.cloud.entities.client.PdfFile()));
 
         Response r = resource.getAllPdfs(1, 5, new BaseRequest());
         assertThat(r.getStatus()).isEqualTo(200);
@@ -72,6 +102,89 @@ class PdfResourceUnitTest extends BaseUnitTest {
         verify(pdfFileService).getAllClientPaginated(1, 5);
     }
 
+    @Test
+    void getPdfPage_limitOutOfRange_returnsBadRequest() {
+        Response r = resource.getPdfPage(null, 0, "id");
+        assertThat(r.getStatus()).isEqualTo(400);
+
+        r = resource.getPdfPage(null, 101, "id");
+        assertThat(r.getStatus()).isEqualTo(400);
+        verifyNoInteractions(pdfFileService);
+    }
+
+    @Test
+    void getPdfPage_unknownSortOrCursor_returnsBadRequest() {
+        when(pdfFileService.getPage("size", null, 10)).thenThrow(new IllegalArgumentException("Unknown sort size"));
+
+        Response r = resource.getPdfPage(null, 10, "size");
+        assertThat(r.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    void getPdfPage_returnsPageFromService() {
+        PageResponse<azar.cloud.entities.client.PdfFile> page = new PageResponse<>(
+                List.of(new azar.cloud.entities.client.PdfFile()), "next", 3L);
+        when(pdfFileService.getPage("newest", "c", 10)).thenReturn(page);
+
+        Response r = resource.getPdfPage("c", 10, "newest");
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getEntity()).isSameAs(page);
+    }
+
+    @Test
+    void searchPdfs_limitOutOfRange_returnsBadRequest() {
+        Response r = resource.searchPdfs(null, 0, "id", new PdfSearchRequest());
+        assertThat(r.getStatus()).isEqualTo(400);
+        verifyNoInteractions(pdfFileService);
+    }
+
+    @Test
+    void searchPdfs_invalidFilter_returnsBadRequest() {
+        PdfSearchRequest request = new PdfSearchRequest();
+        when(pdfFileService.search(request, "id", null, 10)).thenThrow(new IllegalArgumentException("uploadedFrom must be before uploadedTo"));
+
+        Response r = resource.searchPdfs(null, 10, "id", request);
+        assertThat(r.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    void searchPdfs_returnsMatchesFromService() {
+        PdfSearchRequest request = PdfSearchRequest.builder().allLabels(List.of("tax")).build();
+        PdfSearchResponse response = new PdfSearchResponse(List.of(new azar.cloud.entities.client.PdfFile()), null, 1L,
+                Map.of("tax", 1L));
+        when(pdfFileService.search(request, "name", null, 10)).thenReturn(response);
+
+        Response r = resource.searchPdfs(null, 10, "name", request);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getEntity()).isSameAs(response);
+    }
+
+    @Test
+    void searchPdfText_blankQuery_returnsBadRequest() {
+        Response r = resource.searchPdfText(" ", 20);
+        assertThat(r.getStatus()).isEqualTo(400);
+        verifyNoInteractions(pdfFileService);
+    }
+
+    @Test
+    void searchPdfText_returnsHitsFromService() {
+        List<PdfTextHit> hits = List.of(new PdfTextHit(3L, "invoice.pdf", "alice", Instant.EPOCH, 0.5, "<b>invoice</b> total"));
+        when(pdfFileService.searchText("invoice", 20)).thenReturn(hits);
+
+        Response r = resource.searchPdfText("invoice", 20);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getEntity()).isSameAs(hits);
+    }
+
+    @Test
+    void reindexPdfText_queuesMissingContents() {
+        when(pdfTextManager.queueMissing(500)).thenReturn(7);
+
+        Response r = resource.reindexPdfText(500, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getEntity()).isEqualTo(7);
+    }
+
     @Test
     void deletePdf_ownerDeletes_returnsOk() {
         int id = 42;
@@ -111,20 +224,237 @@ class PdfResourceUnitTest extends BaseUnitTest {
 
     @Test
     void getPdfById_whenNotFound_returns404() {
-        when(pdfFileService.getById(99)).thenReturn(null);
+        when(pdfFileService.getDataRef(99)).thenReturn(null);
         Response r = resource.getPdfById(99, new BaseRequest());
         assertThat(r.getStatus()).isEqualTo(404);
     }
 
     @Test
-    void getThumbnailById_cacheHit_usesBase64CacheAndReturnsImage() throws Exception {
+    void getPdfById_streamsWholeFile() {
+        BlobRef ref = dataRef(null);
+        StreamingOutput body = output -> {
+        };
+        when(pdfFileService.getDataRef(60)).thenReturn(ref);
+        when(pdfFileService.responseBody(ref, 0, 100)).thenReturn(body);
+
+        Response r = resource.getPdfById(60, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("Content-Length")).isEqualTo("100");
+        assertThat(r.getHeaderString("Accept-Ranges")).isEqualTo("bytes");
+        assertThat(r.getEntity()).isSameAs(body);
+    }
+
+    @Test
+    void streamPdfById_withRange_returnsPartialContent() {
+        BlobRef ref = dataRef(null);
+        when(pdfFileService.getDataRef(61)).thenReturn(ref);
+        when(pdfFileService.responseBody(ref, 10, 20)).thenReturn(new Object());
+
+        Response r = resource.streamPdfById(61, "bytes=10-29");
+        assertThat(r.getStatus()).isEqualTo(206);
+        assertThat(r.getHeaderString("Content-Range")).isEqualTo("bytes 10-29/100");
+        assertThat(r.getHeaderString("Content-Length")).isEqualTo("20");
+    }
+
+    @Test
+    void streamPdfById_withSuffixRange_returnsTail() {
+        BlobRef ref = dataRef(null);
+        when(pdfFileService.getDataRef(62)).thenReturn(ref);
+        when(pdfFileService.responseBody(ref, 90, 10)).thenReturn(new Object());
+
+        Response r = resource.streamPdfById(62, "bytes=-10");
+        assertThat(r.getStatus()).isEqualTo(206);
+        assertThat(r.getHeaderString("Content-Range")).isEqualTo("bytes 90-99/100");
+    }
+
+    @Test
+    void streamPdfById_rangeOutOfBounds_returns416() {
+        when(pdfFileService.getDataRef(63)).thenReturn(dataRef(null));
+
+        Response r = resource.streamPdfById(63, "bytes=500-");
+        assertThat(r.getStatus()).isEqualTo(416);
+        assertThat(r.getHeaderString("Content-Range")).isEqualTo("bytes */100");
+        verify(pdfFileService, never()).responseBody(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void getThumbnailById_cacheHit_returnsStoredBytes() throws Exception {
         int id = 55;
         byte[] thumb = new byte[]{1, 2, 3, 4};
-        String b64 = Base64.getEncoder().encodeToString(thumb);
-        when(cacheManager.get(azar.shared.cache.CacheKeys.PDF_THUMBNAIL.formatted(id))).thenReturn(b64);
+        when(cacheManager.getBytes(azar.shared.cache.CacheKeys.PDF_THUMBNAIL.formatted(id))).thenReturn(thumb);
+
+        Response r = resource.getThumbnailById(id, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getEntity()).isSameAs(thumb);
+        verify(pdfFileService, never()).getThumbnailById(anyInt());
+    }
+
+    @Test
+    void getThumbnailById_matchingETag_returns304WithoutReadingBytes() throws Exception {
+        int id = 56;
+        when(pdfFileService.getThumbnailHash(id)).thenReturn("abc");
+        azar.testinfra.ResourceTestUtil.injectMockRoutingContext(resource, "/api/c/admin/pdf",
+                Map.of("If-None-Match", "\"abc\""));
+
+        Response r = resource.getThumbnailById(id, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(304);
+        assertThat(r.getHeaderString("ETag")).isEqualTo("\"abc\"");
+        verify(cacheManager, never()).getBytes(any());
+        verify(pdfFileService, never()).getThumbnailById(anyInt());
+    }
+
+    @Test
+    void getThumbnailById_staleETag_returnsBytesWithNewETag() throws Exception {
+        int id = 57;
+        byte[] thumb = new byte[]{7};
+        when(pdfFileService.getThumbnailHash(id)).thenReturn("new");
+        when(pdfFileService.getThumbnailById(id)).thenReturn(thumb);
+        azar.testinfra.ResourceTestUtil.injectMockRoutingContext(resource, "/api/c/admin/pdf",
+                Map.of("If-None-Match", "\"old\""));
 
         Response r = resource.getThumbnailById(id, new BaseRequest());
         assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("ETag")).isEqualTo("\"new\"");
+        assertThat(r.getHeaderString("Cache-Control")).isEqualTo("private, no-cache");
         assertThat((byte[]) r.getEntity()).containsExactly(thumb);
     }
+
+    @Test
+    void getThumbnailById_pngNotAccepted_sendsJpegVariantWithItsOwnETag() throws Exception {
+        int id = 59;
+        byte[] png = ImageFormat.PNG.encode(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), 1f);
+        when(pdfFileService.getThumbnailHash(id)).thenReturn("abc");
+        when(cacheManager.getBytes(azar.shared.cache.CacheKeys.PDF_THUMBNAIL.formatted(id))).thenReturn(png);
+        azar.testinfra.ResourceTestUtil.injectMockRoutingContext(resource, "/api/c/admin/pdf",
+                Map.of("Accept", "image/jpeg, image/png;q=0"));
+
+        Response r = resource.getThumbnailById(id, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("Content-Type")).isEqualTo("image/jpeg");
+        assertThat(r.getHeaderString("ETag")).isEqualTo("\"abc-jpeg\"");
+        assertThat(r.getHeaderString("Vary")).isEqualTo("Accept");
+        assertThat(ImageFormat.detect((byte[]) r.getEntity())).isEqualTo(ImageFormat.JPEG);
+    }
+
+    @Test
+    void getThumbnailById_matchingVariantETag_returns304() throws Exception {
+        int id = 60;
+        byte[] png = ImageFormat.PNG.encode(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), 1f);
+        when(pdfFileService.getThumbnailHash(id)).thenReturn("abc");
+        when(cacheManager.getBytes(azar.shared.cache.CacheKeys.PDF_THUMBNAIL.formatted(id))).thenReturn(png);
+        azar.testinfra.ResourceTestUtil.injectMockRoutingContext(resource, "/api/c/admin/pdf",
+                Map.of("Accept", "image/jpeg", "If-None-Match", "\"abc-jpeg\""));
+
+        Response r = resource.getThumbnailById(id, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(304);
+        assertThat(r.getHeaderString("ETag")).isEqualTo("\"abc-jpeg\"");
+    }
+
+    @Test
+    void streamPdfById_matchingETag_returns304BeforeRange() {
+        when(pdfFileService.getDataRef(64)).thenReturn(dataRef("h"));
+        azar.testinfra.ResourceTestUtil.injectMockRoutingContext(resource, "/api/c/admin/pdf",
+                Map.of("If-None-Match", "W/\"x\", \"h\""));
+
+        Response r = resource.streamPdfById(64, "bytes=500-");
+        assertThat(r.getStatus()).isEqualTo(304);
+        verify(pdfFileService, never()).responseBody(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void getThumbnailById_cacheMiss_readsDbAndCachesBytes() throws Exception {
+        int id = 58;
+        byte[] thumb = new byte[]{5, 6};
+        when(pdfFileService.getThumbnailById(id)).thenReturn(thumb);
+
+        Response r = resource.getThumbnailById(id, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat((byte[]) r.getEntity()).containsExactly(thumb);
+        verify(cacheManager).putBytes(azar.shared.cache.CacheKeys.PDF_THUMBNAIL.formatted(id), thumb);
+    }
+
+    @Test
+    void uploadPdf_emptyFile_returnsBadRequest() {
+        FileUpload upload = mock(FileUpload.class);
+        when(upload.size()).thenReturn(0L);
+
+        Response r = resource.uploadPdf("alice", upload);
+        assertThat(r.getStatus()).isEqualTo(400);
+        verifyNoInteractions(pdfFileService);
+    }
+
+    @Test
+    void uploadPdf_savesFromTheTempPathWithTheUploadSize() {
+        Path tmp = Path.of("big-upload.pdf");
+        FileUpload upload = mock(FileUpload.class);
+        when(upload.size()).thenReturn(5L * 1024 * 1024);
+        when(upload.fileName()).thenReturn("big.pdf");
+        when(upload.filePath()).thenReturn(tmp);
+        when(pdfFileService.saveStreamed(any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Response r = resource.uploadPdf("alice", upload);
+        assertThat(r.getStatus()).isEqualTo(201);
+        PdfFile saved = (PdfFile) r.getEntity();
+        // the content is never read into the entity, it goes from the temp file into the blob store
+        verify(pdfFileService).saveStreamed(saved, tmp);
+        assertThat(saved.getSize()).isEqualTo("5.00 MB");
+        assertThat(saved.getData()).isNull();
+    }
+
+    @Test
+    void uploadPdf_storesFileAndQueuesTextAndThumbnail() {
+        Path tmp = Path.of("upload.pdf");
+        FileUpload upload = mock(FileUpload.class);
+        when(upload.size()).thenReturn(2048L);
+        when(upload.fileName()).thenReturn("doc.pdf");
+        when(upload.filePath()).thenReturn(tmp);
+        when(pdfFileService.saveStreamed(any(), any())).thenAnswer(invocation -> {
+            PdfFile pdf = invocation.getArgument(0);
+            pdf.setId(70L);
+            pdf.setDataHash("hash");
+            return pdf;
+        });
+
+        Response r = resource.uploadPdf("alice", upload);
+        assertThat(r.getStatus()).isEqualTo(201);
+        PdfFile saved = (PdfFile) r.getEntity();
+        assertThat(saved.getThumbnailStatus()).isEqualTo(ThumbnailStatus.PENDING);
+        assertThat(saved.getSize()).isEqualTo("2.00 KB");
+        verify(pdfFileService).saveStreamed(saved, tmp);
+        // the thumbnail job moves the upload away, so the text job has to copy it first
+        InOrder order = inOrder(pdfTextManager, pdfThumbnailManager);
+        order.verify(pdfTextManager).submitAfterCommit("hash", tmp);
+        order.verify(pdfThumbnailManager).submitAfterCommit(70L, tmp);
+    }
+
+    @Test
+    void getThumbnailById_pending_returnsPlaceholderAndQueues() throws Exception {
+        int id = 56;
+        byte[] placeholder = new byte[]{9, 9};
+        when(pdfFileService.getThumbnailById(id)).thenReturn(new byte[0]);
+        when(pdfFileService.getThumbnailStatus(id)).thenReturn(ThumbnailStatus.PENDING);
+        when(pdfThumbnailManager.getPlaceholder()).thenReturn(placeholder);
+
+        Response r = resource.getThumbnailById(id, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat((byte[]) r.getEntity()).containsExactly(placeholder);
+        verify(pdfThumbnailManager).ensureQueued(56L);
+        verify(cacheManager, never()).putBytes(any(), any());
+    }
+
+    @Test
+    void getThumbnailById_failed_returnsPlaceholderWithoutQueueing() throws Exception {
+        int id = 57;
+        when(pdfFileService.getThumbnailById(id)).thenReturn(new byte[0]);
+        when(pdfFileService.getThumbnailStatus(id)).thenReturn(ThumbnailStatus.FAILED);
+        when(pdfThumbnailManager.getPlaceholder()).thenReturn(new byte[]{9});
+
+        Response r = resource.getThumbnailById(id, new BaseRequest());
+        assertThat(r.getStatus()).isEqualTo(200);
+        verify(pdfThumbnailManager, never()).ensureQueued(any());
+    }
+
+    private static BlobRef dataRef(String hash) {
+        return new BlobRef("a.pdf", Blob.builder().hash(hash).storage("postgres").data(1234L).size(100).build());
+    }
 }
@@ -0,0 +1,54 @@
+package azar.cloud.resources;
+
+import java.util.List;
+import azar.cloud.entities.client.User;
+import azar.shared.dal.service.UserService;
+import azar.shared.entities.db.UserType;
+import azar.shared.entities.responses.PageResponse;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+class UserResourceHttpTest {
+
+    @InjectMock
+    UserService userService;
+
+    @Test
+    @TestSecurity(user = "user", roles = {"User"})
+    void getUserPage_notAdmin_forbidden403() {
+        given()
+                .when()
+                .get("/api/c/user/admin/page")
+                .then()
+                .statusCode(403);
+
+        verify(userService, never()).getPage(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    @TestSecurity(user = "admin", roles = {"Admin"})
+    void getUserPage_admin_listsUsersWithoutPasswords() {
+        User alice = new User(1, "Alice", "Smith", "alice", UserType.STANDARD);
+        when(userService.getPage("id", null, 50)).thenReturn(new PageResponse<>(List.of(alice), null, 1L));
+
+        given()
+                .when()
+                .get("/api/c/user/admin/page")
+                .then()
+                .statusCode(200)
+                .body("items[0].userName", equalTo("alice"))
+                .body("items[0]", not(hasKey("password")));
+    }
+}
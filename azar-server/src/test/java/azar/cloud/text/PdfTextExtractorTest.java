@@ -0,0 +1,64 @@
+package azar.cloud.text;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import azar.testinfra.BaseUnitTest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PdfTextExtractorTest extends BaseUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void extract_readsEveryPage() throws Exception {
+        Path pdf = writePdf("quarterly invoice", "tax refund");
+
+        String text = new PdfTextExtractor(1000).extract(pdf);
+
+        assertThat(text).contains("quarterly invoice").contains("tax refund");
+    }
+
+    @Test
+    void extract_stopsAtMaxChars() throws Exception {
+        Path pdf = writePdf("first page text", "second page text");
+
+        assertThat(new PdfTextExtractor(5).extract(pdf)).isEqualTo("first");
+    }
+
+    @Test
+    void extract_notAPdf_throws() throws Exception {
+        Path notPdf = Files.writeString(tempDir.resolve("x.pdf"), "not a pdf");
+
+        assertThatThrownBy(() -> new PdfTextExtractor(1000).extract(notPdf)).isInstanceOf(IOException.class);
+    }
+
+    private Path writePdf(String... pages) throws IOException {
+        Path pdf = tempDir.resolve("text.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (String pageText : pages) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(pageText);
+                    content.endText();
+                }
+            }
+            document.save(pdf.toFile());
+        }
+        return pdf;
+    }
+
+}
@@ -0,0 +1,58 @@
+package azar.cloud.thumbnails;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import javax.imageio.ImageIO;
+import static azar.cloud.utils.Constants.DEFAULT_CV_FILE_PATH;
+import azar.shared.images.ImageFormat;
+import azar.testinfra.BaseUnitTest;
+import azar.testinfra.TestDataFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class PdfBoxThumbnailRendererTest extends BaseUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Timeout(20)
+    void render_firstPageAtRequestedDpi() throws Exception {
+        Path pdf = tempDir.resolve("cv.pdf");
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(DEFAULT_CV_FILE_PATH)) {
+            Files.copy(inputStream, pdf, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        byte[] thumbnail = new PdfBoxThumbnailRenderer(36, TestDataFactory.thumbnailEncoder("jpeg")).render(pdf);
+
+        assertThat(ImageFormat.detect(thumbnail)).isEqualTo(ImageFormat.JPEG);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        assertThat(image).isNotNull();
+        // A4/Letter at 36 DPI is roughly 300x420
+        assertThat(image.getWidth()).isBetween(250, 350);
+    }
+
+    @Test
+    void render_notAPdf_returnsEmpty() throws Exception {
+        Path notPdf = Files.writeString(tempDir.resolve("x.pdf"), "not a pdf");
+
+        assertThat(new PdfBoxThumbnailRenderer(72, TestDataFactory.thumbnailEncoder("jpeg")).render(notPdf)).isEmpty();
+    }
+
+    @Test
+    void withFallback_usedOnlyWhenPrimaryFails() {
+        PdfThumbnailRenderer failing = path -> new byte[0];
+        PdfThumbnailRenderer working = path -> new byte[]{1};
+
+        assertThat(failing.withFallback(working).render(tempDir)).containsExactly(1);
+        assertThat(working.withFallback(path -> {
+            throw new AssertionError("fallback should not run");
+        }).render(tempDir)).containsExactly(1);
+    }
+}
@@ -0,0 +1,79 @@
+package azar.cloud.thumbnails;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import static azar.cloud.utils.Constants.DEFAULT_CV_FILE_PATH;
+import azar.testinfra.TestDataFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the in-process PDFBox renderer with the pdftoppm process renderer on the bundled CV PDF.
+ * <p>
+ * Not part of the test suite, run it with the main method after {@code mvn test-compile}.
+ * The pdftoppm numbers are only meaningful on hosts where poppler is installed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfThumbnailRendererBenchmark {
+
+    @Param({"72", "150"})
+    int dpi;
+
+    private Path pdfPath;
+    private PdfThumbnailRenderer pdfBox;
+    private PdfThumbnailRenderer pdftoppm;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pdfPath = Files.createTempFile("bench-", ".pdf");
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(DEFAULT_CV_FILE_PATH)) {
+            Files.copy(inputStream, pdfPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        pdfBox = new PdfBoxThumbnailRenderer(dpi, TestDataFactory.thumbnailEncoder("jpeg"));
+        pdftoppm = new PdftoppmThumbnailRenderer(dpi);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(pdfPath);
+    }
+
+    @Benchmark
+    public byte[] pdfBox() {
+        return pdfBox.render(pdfPath);
+    }
+
+    @Benchmark
+    public byte[] pdftoppm() {
+        return pdftoppm.render(pdfPath);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PdfThumbnailRendererBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,111 @@
+package azar.gallery.dal.service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import javax.imageio.ImageIO;
+import azar.gallery.dal.dao.PhotoDao;
+import azar.gallery.dal.dao.PhotoRenditionDao;
+import azar.gallery.entities.db.PhotoRendition;
+import azar.shared.cache.CacheManager;
+import azar.shared.dal.service.BlobService;
+import azar.shared.entities.db.Blob;
+import azar.shared.properties.AppProperties;
+import azar.testinfra.BaseUnitTest;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PhotoRenditionServiceUnitTest extends BaseUnitTest {
+
+    @Mock
+    PhotoRenditionDao photoRenditionDao;
+    @Mock
+    PhotoDao photoDao;
+    @Mock
+    BlobService blobService;
+    @Mock
+    AppProperties appProperties;
+
+    PhotoRenditionService service;
+
+    @BeforeEach
+    void setUp() {
+        when(appProperties.getBinaryCacheMaxMb()).thenReturn(1);
+        when(appProperties.getPhotoRenditionSizes()).thenReturn(List.of(200, 800));
+        service = new PhotoRenditionService(photoRenditionDao, photoDao, blobService, new CacheManager(appProperties),
+                appProperties);
+    }
+
+    @Test
+    void getOrCreate_storedRendition_isNotRenderedAgain() {
+        PhotoRendition stored = PhotoRendition.builder().photoId(1).size(200).contentHash("r").build();
+        when(photoRenditionDao.getByPhotoAndSize(1, 200)).thenReturn(stored);
+
+        assertThat(service.getOrCreate(1, 200)).isSameAs(stored);
+        verify(photoDao, never()).getDataHash(any());
+    }
+
+    @Test
+    void getOrCreate_missingPhoto_returnsNull() {
+        when(photoDao.getDataHash(2)).thenReturn(null);
+
+        assertThat(service.getOrCreate(2, 200)).isNull();
+        verify(blobService, never()).store(any(byte[].class));
+    }
+
+    @Test
+    void getOrCreate_firstRequest_rendersScaledJpegAndStoresIt() throws IOException {
+        when(photoDao.getDataHash(3)).thenReturn("original");
+        when(blobService.read("original")).thenReturn(png(1600, 1200));
+        ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+        when(blobService.store(content.capture())).thenReturn(Blob.builder().hash("r").build());
+        when(photoRenditionDao.insertIfAbsent(any())).thenReturn(true);
+
+        PhotoRendition rendition = service.getOrCreate(3, 200);
+
+        assertThat(rendition.getWidth()).isEqualTo(200);
+        assertThat(rendition.getHeight()).isEqualTo(150);
+        assertThat(rendition.getContentType()).isEqualTo("image/jpeg");
+        BufferedImage stored = ImageIO.read(new ByteArrayInputStream(content.getValue()));
+        assertThat(stored.getWidth()).isEqualTo(200);
+    }
+
+    @Test
+    void getOrCreate_renderedConcurrently_releasesItsCopyAndReturnsTheStoredOne() throws IOException {
+        PhotoRendition stored = PhotoRendition.builder().photoId(4).size(800).contentHash("first").build();
+        when(photoRenditionDao.getByPhotoAndSize(4, 800)).thenReturn(null, stored);
+        when(photoDao.getDataHash(4)).thenReturn("original");
+        when(blobService.read("original")).thenReturn(png(300, 200));
+        when(blobService.store(any(byte[].class))).thenReturn(Blob.builder().hash("second").build());
+        when(photoRenditionDao.insertIfAbsent(any())).thenReturn(false);
+
+        assertThat(service.getOrCreate(4, 800)).isSameAs(stored);
+        verify(blobService).release("second");
+    }
+
+    @Test
+    void readContent_isCachedByContentHash() {
+        PhotoRendition rendition = PhotoRendition.builder().contentHash("r").build();
+        when(blobService.read("r")).thenReturn(new byte[]{1, 2});
+
+        service.readContent(rendition);
+        assertThat(service.readContent(rendition)).containsExactly(1, 2);
+        verify(blobService, times(1)).read("r");
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
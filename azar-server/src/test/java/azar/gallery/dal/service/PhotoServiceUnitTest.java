@@ -0,0 +1,220 @@
+package azar.gallery.dal.service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import azar.gallery.dal.dao.PhotoDao;
+import azar.gallery.entities.db.GpsMetadata;
+import azar.gallery.entities.db.Photo;
+import azar.gallery.entities.db.PhotoMetadata;
+import azar.gallery.entities.responses.HeatmapPoint;
+import azar.gallery.entities.responses.PhotoIdsResponse;
+import azar.gallery.entities.responses.PhotoPageResponse;
+import azar.gallery.metadata.PhotoMetadataExtractor;
+import azar.gallery.utils.GeoHash;
+import azar.gallery.utils.HeatmapGrid;
+import azar.shared.cache.CacheManager;
+import azar.shared.dal.service.BlobService;
+import azar.shared.entities.responses.PageResponse;
+import azar.shared.properties.AppProperties;
+import azar.testinfra.BaseUnitTest;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PhotoServiceUnitTest extends BaseUnitTest {
+
+    @Mock
+    PhotoDao photoDao;
+    @Mock
+    PhotoMetadataExtractor photoMetadataExtractor;
+    @Mock
+    BlobService blobService;
+    @Mock
+    PhotoRenditionService photoRenditionService;
+    @Mock
+    AppProperties appProperties;
+    @Mock
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    PhotoService service;
+
+    @BeforeEach
+    void setUp() {
+        when(appProperties.getBinaryCacheMaxMb()).thenReturn(1);
+        service = new PhotoService(photoDao, photoMetadataExtractor, blobService, photoRenditionService,
+                new CacheManager(appProperties), transactionSynchronizationRegistry);
+    }
+
+    @Test
+    void getWithPhotoById_readsContentFromBlobStore() {
+        Photo photo = Photo.builder().id(1).dataHash("h").data(new byte[0]).thumbnail(new byte[0]).build();
+        when(photoDao.getWithPhotoById(1)).thenReturn(photo);
+        when(blobService.read("h")).thenReturn(new byte[]{1, 2});
+
+        Photo result = service.getWithPhotoById(1);
+
+        assertThat(result.getData()).containsExactly(1, 2);
+        assertThat(result.getThumbnail()).isEmpty();
+    }
+
+    @Test
+    void getWithPhotoById_missingPhoto_returnsNullWithoutReadingContent() {
+        when(photoDao.getWithPhotoById(2)).thenReturn(null);
+
+        assertThat(service.getWithPhotoById(2)).isNull();
+        verify(blobService, never()).read(any(String.class));
+    }
+
+    @Test
+    void getPage_keepsTheCursorAndTotalOfTheDaoPage() {
+        List<Photo> photos = List.of(Photo.builder().id(1).build(), Photo.builder().id(2).build());
+        when(photoDao.getPage("c", 2, true)).thenReturn(new PageResponse<>(photos, "next", 7L));
+
+        PhotoPageResponse page = service.getPage("c", 2, true);
+
+        assertThat(page.getPhotos()).isSameAs(photos);
+        assertThat(page.getNextCursor()).isEqualTo("next");
+        assertThat(page.getTotal()).isEqualTo(7L);
+    }
+
+    @Test
+    void getPage_malformedCursor_throwsIllegalArgument() {
+        when(photoDao.getPage("bad", 2, true)).thenThrow(new IllegalArgumentException("Malformed cursor bad"));
+        assertThatThrownBy(() -> service.getPage("bad", 2, true)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getPhotoIds_isCachedUntilAPhotoIsRemoved() {
+        when(photoDao.getPhotosId()).thenReturn(List.of(1, 2), List.of(2));
+        when(photoDao.getLightWeightById(1)).thenReturn(Photo.builder().id(1).dataHash("h").build());
+        when(photoDao.deleteById(1)).thenReturn(true);
+
+        PhotoIdsResponse before = service.getPhotoIds();
+        assertThat(service.getPhotoIds()).isSameAs(before);
+        service.removeById(1);
+        PhotoIdsResponse after = service.getPhotoIds();
+
+        assertThat(before.getIds()).containsExactly(1, 2);
+        assertThat(after.getIds()).containsExactly(2);
+        assertThat(after.getVersion()).isNotEqualTo(before.getVersion());
+        verify(photoDao, times(2)).getPhotosId();
+    }
+
+    @Test
+    void getHeatmap_cachesTilesUntilAPhotoInsideThemIsRemoved() {
+        HeatmapPoint telAviv = new HeatmapPoint(32.08, 34.78, 3);
+        HeatmapPoint newYork = new HeatmapPoint(40.71, -74.0, 1);
+        when(photoDao.getHeatmapCells(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(List.of(telAviv, newYork), List.of(telAviv));
+        GpsMetadata gps = new GpsMetadata();
+        gps.setLatitude(40.71);
+        gps.setLongitude(-74.0);
+        when(photoDao.getLightWeightById(1)).thenReturn(Photo.builder().id(1).dataHash("h")
+                .photoMetadata(PhotoMetadata.builder().gps(gps).build()).build());
+        when(photoDao.deleteById(1)).thenReturn(true);
+
+        List<HeatmapPoint> before = service.getHeatmap(1, -90, 90, -180, 180);
+        assertThat(service.getHeatmap(1, -90, 90, -180, 180)).containsExactlyInAnyOrderElementsOf(before);
+        service.removeById(1);
+        List<HeatmapPoint> after = service.getHeatmap(1, -90, 90, -180, 180);
+
+        assertThat(before).containsExactlyInAnyOrder(telAviv, newYork);
+        assertThat(after).containsExactly(telAviv);
+        verify(photoDao, times(2)).getHeatmapCells(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getHeatmap_tooManyTiles_throwsIllegalArgument() {
+        assertThatThrownBy(() -> service.getHeatmap(HeatmapGrid.MAX_ZOOM, -90, 90, -180, 180))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(photoDao, never()).getHeatmapCells(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getNearest_widensTheRadiusUntilEnoughPhotosAreFound() {
+        Photo near = located(1, 32.08, 34.78);
+        Photo far = located(2, 31.77, 35.21);
+        rankInDao(far, near);
+
+        assertThat(service.getNearest(32.08, 34.78, 1)).containsExactly(near);
+        assertThat(service.getNearest(32.08, 34.78, 2)).containsExactly(near, far);
+        assertThat(service.getWithinRadius(32.08, 34.78, 10, 5)).containsExactly(near);
+    }
+
+    @Test
+    void getNearest_stopsWideningAfterTheLastRound() {
+        Photo near = located(1, 32.08, 34.78);
+        Photo otherSide = located(2, -33.87, 151.21);
+        rankInDao(near, otherSide);
+
+        assertThat(service.getNearest(32.08, 34.78, 2)).containsExactly(near);
+        verify(photoDao, times(6)).getClosestInBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyDouble(), anyInt());
+    }
+
+    @Test
+    void getWithinRadius_onlyLoadsTheRankedPhotos() {
+        Photo near = located(1, 32.08, 34.78);
+        Photo far = located(2, 32.09, 34.79);
+        rankInDao(far, near);
+
+        assertThat(service.getWithinRadius(32.08, 34.78, 10, 1)).containsExactly(near);
+        verify(photoDao).getByIds(List.of(1));
+    }
+
+    /**
+     * Answers the DAO ranking like the database does, over the given photos.
+     */
+    private void rankInDao(Photo... photos) {
+        when(photoDao.getClosestInBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyInt()))
+                .thenAnswer(invocation -> {
+                    double latitude = invocation.getArgument(0);
+                    double longitude = invocation.getArgument(1);
+                    double radiusKm = invocation.getArgument(2);
+                    Map<Integer, Double> distances = new LinkedHashMap<>();
+                    Stream.of(photos)
+                            .filter(photo -> isInside(photo, invocation.getArgument(3), invocation.getArgument(4),
+                                    invocation.getArgument(5), invocation.getArgument(6)))
+                            .sorted(Comparator.comparingDouble(photo -> distanceKm(photo, latitude, longitude)))
+                            .filter(photo -> distanceKm(photo, latitude, longitude) <= radiusKm)
+                            .limit(invocation.<Integer>getArgument(7))
+                            .forEach(photo -> distances.put(photo.getId(), distanceKm(photo, latitude, longitude)));
+                    return distances;
+                });
+        when(photoDao.getByIds(any())).thenAnswer(invocation -> Stream.of(photos)
+                .filter(photo -> invocation.<List<Integer>>getArgument(0).contains(photo.getId()))
+                .toList());
+    }
+
+    private static double distanceKm(Photo photo, double latitude, double longitude) {
+        GpsMetadata gps = photo.getPhotoMetadata().getGps();
+        return GeoHash.distanceKm(latitude, longitude, gps.getLatitude(), gps.getLongitude());
+    }
+
+    private static Photo located(int id, double latitude, double longitude) {
+        GpsMetadata gps = new GpsMetadata();
+        gps.setLatitude(latitude);
+        gps.setLongitude(longitude);
+        return Photo.builder().id(id).photoMetadata(PhotoMetadata.builder().gps(gps).build()).build();
+    }
+
+    private static boolean isInside(Photo photo, double minLat, double maxLat, double minLon, double maxLon) {
+        GpsMetadata gps = photo.getPhotoMetadata().getGps();
+        return gps.getLatitude() >= minLat && gps.getLatitude() <= maxLat
+                && gps.getLongitude() >= minLon && gps.getLongitude() <= maxLon;
+    }
+}
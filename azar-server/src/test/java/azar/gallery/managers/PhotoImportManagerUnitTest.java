@@ -0,0 +1,110 @@
+package azar.gallery.managers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import azar.gallery.dal.service.PhotoService;
+import azar.gallery.entities.responses.PhotoImportResponse;
+import azar.gallery.entities.responses.PhotoImportResult;
+import azar.gallery.metadata.PhotoMetadataExtractor;
+import azar.gallery.metadata.PhotoProcessor;
+import azar.shared.properties.AppProperties;
+import azar.testinfra.BaseUnitTest;
+import azar.testinfra.TestDataFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PhotoImportManagerUnitTest extends BaseUnitTest {
+
+    @Mock
+    AppProperties appProperties;
+    @Mock
+    PhotoService photoService;
+
+    @TempDir
+    Path tempDir;
+
+    PhotoImportManager manager;
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void importPhotos_zipEntryOverTheUploadLimit_stopsTheArchive() throws IOException {
+        manager = manager(1, 100, 100);
+        FileUpload zip = zip("photos.zip", "a.png", new byte[10], "big.png", new byte[2 * 1024 * 1024], "c.png", new byte[10]);
+
+        PhotoImportResponse response = manager.importPhotos(List.of(zip));
+
+        assertThat(response.getImported()).isZero();
+        assertThat(response.getResults()).extracting(PhotoImportResult::getFileName).containsExactly("a.png", "photos.zip");
+        assertThat(response.getResults().get(1).getError()).startsWith("Entry big.png is larger than 1.00 MB");
+    }
+
+    @Test
+    void importPhotos_zipWithTooManyEntries_stopsTheArchive() throws IOException {
+        manager = manager(1, 2, 100);
+        FileUpload zip = zip("photos.zip", "a.png", new byte[10], "b.png", new byte[10], "c.png", new byte[10]);
+
+        PhotoImportResponse response = manager.importPhotos(List.of(zip));
+
+        assertThat(response.getResults()).extracting(PhotoImportResult::getFileName).containsExactly("a.png", "b.png", "photos.zip");
+        assertThat(response.getResults().get(2).getError()).isEqualTo("Archive has more than 2 entries, the rest were skipped");
+    }
+
+    @Test
+    void importPhotos_zipOverTheTotalLimit_stopsTheArchive() throws IOException {
+        manager = manager(1, 100, 1);
+        FileUpload zip = zip("photos.zip", "a.png", new byte[600 * 1024], "b.png", new byte[600 * 1024]);
+
+        PhotoImportResponse response = manager.importPhotos(List.of(zip));
+
+        assertThat(response.getResults()).extracting(PhotoImportResult::getFileName).containsExactly("a.png", "photos.zip");
+        assertThat(response.getResults().get(1).getError()).startsWith("Archive expands to more than 1.00 MB");
+    }
+
+    private PhotoImportManager manager(int maxEntryMb, int maxEntries, int maxZipMb) {
+        when(appProperties.getPhotoImportWorkers()).thenReturn(1);
+        when(appProperties.getPhotoImportBatchSize()).thenReturn(10);
+        when(appProperties.getFileMaxSizeMb()).thenReturn(maxEntryMb);
+        when(appProperties.getPhotoImportZipMaxEntries()).thenReturn(maxEntries);
+        when(appProperties.getPhotoImportZipMaxMb()).thenReturn(maxZipMb);
+        PhotoMetadataExtractor extractor = new PhotoMetadataExtractor();
+        // entries that aren't images fail in preparing, so nothing reaches the DB
+        return new PhotoImportManager(appProperties, photoService, extractor,
+                new PhotoProcessor(extractor, TestDataFactory.thumbnailEncoder("jpeg")));
+    }
+
+    /**
+     * @param entries - pairs of entry name and content
+     */
+    private FileUpload zip(String fileName, Object... entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) entries[i]));
+                zip.write((byte[]) entries[i + 1]);
+                zip.closeEntry();
+            }
+        }
+        Path file = Files.write(tempDir.resolve(fileName), out.toByteArray());
+        FileUpload upload = mock(FileUpload.class);
+        when(upload.fileName()).thenReturn(fileName);
+        when(upload.filePath()).thenReturn(file);
+        return upload;
+    }
+}
@@ -0,0 +1,167 @@
+package azar.gallery.metadata;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * Builds small JPEGs with hand-written EXIF segments, so metadata tests and benchmarks
+ * don't depend on camera files.
+ */
+final class ExifTestData {
+    private static final int GPS_IFD_POINTER = 0x8825;
+    private static final short ASCII = 2;
+    private static final short BYTE = 1;
+    private static final short LONG = 4;
+    private static final short RATIONAL = 5;
+
+    private ExifTestData() {
+    }
+
+    static byte[] jpeg(int width, int height, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * A GPS IFD with the usual rational degrees, minutes and seconds.
+     */
+    static Ifd gps(String latitudeRef, double latitude, String longitudeRef, double longitude, int altitudeRef, double altitude) {
+        return new Ifd()
+                .ascii(0x0001, latitudeRef)
+                .rationals(0x0002, dms(latitude))
+                .ascii(0x0003, longitudeRef)
+                .rationals(0x0004, dms(longitude))
+                .bytes(0x0005, altitudeRef)
+                .rationals(0x0006, Math.round(altitude * 100), 100);
+    }
+
+    /**
+     * Inserts an EXIF APP1 segment right after SOI. IFD0 holds the camera make and points at the GPS IFD.
+     */
+    static byte[] withExif(byte[] jpeg, String make, Ifd gps) {
+        Ifd ifd0 = new Ifd().ascii(0x010F, make);
+        int ifd0Offset = 8;
+        int gpsOffset = gps == null ? 0 : ifd0Offset + ifd0.size(1);
+        if (gps != null) {
+            ifd0.long32(GPS_IFD_POINTER, gpsOffset);
+        }
+
+        ByteBuffer tiff = ByteBuffer.allocate(8 + ifd0.size(0) + (gps == null ? 0 : gps.size(0)));
+        tiff.put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(ifd0Offset);
+        ifd0.write(tiff, ifd0Offset);
+        if (gps != null) {
+            gps.write(tiff, gpsOffset);
+        }
+
+        byte[] preamble = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        int segmentLength = 2 + preamble.length + tiff.capacity();
+        ByteBuffer result = ByteBuffer.allocate(jpeg.length + 2 + segmentLength);
+        result.put(jpeg, 0, 2);
+        result.put((byte) 0xFF).put((byte) 0xE1).putShort((short) segmentLength).put(preamble).put(tiff.array());
+        result.put(jpeg, 2, jpeg.length - 2);
+        return result.array();
+    }
+
+    private static long[] dms(double decimal) {
+        double value = Math.abs(decimal);
+        long degrees = (long) value;
+        long minutes = (long) ((value - degrees) * 60);
+        long seconds = Math.round(((value - degrees) * 60 - minutes) * 60 * 1000);
+        return new long[]{degrees, 1, minutes, 1, seconds, 1000};
+    }
+
+    static final class Ifd {
+        private final List<Entry> entries = new ArrayList<>();
+
+        Ifd ascii(int tag, String value) {
+            byte[] bytes = (value + "\0").getBytes(StandardCharsets.ISO_8859_1);
+            entries.add(new Entry(tag, ASCII, bytes.length, bytes));
+            return this;
+        }
+
+        Ifd bytes(int tag, int value) {
+            entries.add(new Entry(tag, BYTE, 1, new byte[]{(byte) value}));
+            return this;
+        }
+
+        Ifd long32(int tag, int value) {
+            entries.add(new Entry(tag, LONG, 1, ByteBuffer.allocate(4).putInt(value).array()));
+            return this;
+        }
+
+        /**
+         * @param numeratorsAndDenominators - numerator, denominator pairs
+         */
+        Ifd rationals(int tag, long... numeratorsAndDenominators) {
+            ByteBuffer value = ByteBuffer.allocate(numeratorsAndDenominators.length * 4);
+            for (long part : numeratorsAndDenominators) {
+                value.putInt((int) part);
+            }
+            entries.add(new Entry(tag, RATIONAL, numeratorsAndDenominators.length / 2, value.array()));
+            return this;
+        }
+
+        private int size(int extraEntries) {
+            int size = 2 + (entries.size() + extraEntries) * 12 + 4;
+            for (Entry entry : entries) {
+                if (entry.value.length > 4) {
+                    size += entry.value.length + (entry.value.length % 2);
+                }
+            }
+            return size;
+        }
+
+        private void write(ByteBuffer tiff, int offset) {
+            int dataOffset = offset + 2 + entries.size() * 12 + 4;
+            tiff.position(offset);
+            tiff.putShort((short) entries.size());
+            List<byte[]> data = new ArrayList<>();
+            for (Entry entry : entries) {
+                tiff.putShort((short) entry.tag).putShort(entry.type).putInt(entry.count);
+                if (entry.value.length > 4) {
+                    tiff.putInt(dataOffset);
+                    dataOffset += entry.value.length + (entry.value.length % 2);
+                    data.add(entry.value);
+                } else {
+                    tiff.put(ByteBuffer.allocate(4).put(entry.value).array());
+                }
+            }
+            tiff.putInt(0);
+            for (byte[] value : data) {
+                tiff.put(value);
+                if (value.length % 2 == 1) {
+                    tiff.put((byte) 0);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final int tag;
+        private final short type;
+        private final int count;
+        private final byte[] value;
+
+        private Entry(int tag, short type, int count, byte[] value) {
+            this.tag = tag;
+            this.type = type;
+            this.count = count;
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package azar.gallery.metadata;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import azar.gallery.entities.db.PhotoMetadata;
+import com.drew.metadata.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures metadata extraction over a corpus of JPEGs, one operation being a pass over the whole corpus,
+ * the way a metadata refresh walks the library.
+ * <p>
+ * The corpus is the bundled backup photos plus generated photos carrying GPS data. Point the
+ * {@code azar.bench.corpus} system property at a directory to add real camera files.
+ * Not part of the test suite, run it with the main method after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhotoMetadataExtractorBenchmark {
+    private static final String[] BUNDLED_PHOTOS = {"backup/photo-1.jpg", "backup/photo-2.jpg", "backup/photo-3.jpg"};
+    private static final int GENERATED_PHOTOS = 50;
+
+    private final PhotoMetadataExtractor extractor = new PhotoMetadataExtractor();
+    private List<byte[]> corpus;
+    private List<Metadata> parsed;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        corpus = new ArrayList<>();
+        for (String photo : BUNDLED_PHOTOS) {
+            try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(photo)) {
+                corpus.add(inputStream.readAllBytes());
+            }
+        }
+        for (int i = 0; i < GENERATED_PHOTOS; i++) {
+            double latitude = -60 + i * 2.4;
+            double longitude = -170 + i * 6.8;
+            corpus.add(ExifTestData.withExif(ExifTestData.jpeg(64, 48, Color.GRAY), "Cam",
+                    ExifTestData.gps(latitude < 0 ? "S" : "N", latitude, longitude < 0 ? "W" : "E", longitude, i % 2, i * 10.5)));
+        }
+        String directory = System.getProperty("azar.bench.corpus");
+        if (directory != null) {
+            try (Stream<Path> files = Files.list(Path.of(directory))) {
+                for (Path file : files.filter(path -> path.toString().toLowerCase().matches(".*\\.jpe?g")).toList()) {
+                    corpus.add(Files.readAllBytes(file));
+                }
+            }
+        }
+
+        parsed = corpus.stream().map(extractor::readMetadata).toList();
+    }
+
+    @Benchmark
+    public void readMetadata(Blackhole blackhole) {
+        for (byte[] photo : corpus) {
+            blackhole.consume(extractor.readMetadata(photo));
+        }
+    }
+
+    @Benchmark
+    public void extract(Blackhole blackhole) {
+        for (Metadata metadata : parsed) {
+            PhotoMetadata photoMetadata = extractor.extract(metadata);
+            blackhole.consume(photoMetadata);
+        }
+    }
+
+    @Benchmark
+    public void extractMetadataFromBytes(Blackhole blackhole) {
+        for (byte[] photo : corpus) {
+            blackhole.consume(extractor.extractMetadataFromBytes(photo));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PhotoMetadataExtractorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
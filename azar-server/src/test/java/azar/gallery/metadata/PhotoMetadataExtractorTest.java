@@ -0,0 +1,72 @@
+package azar.gallery.metadata;
+
+import java.awt.Color;
+import java.io.IOException;
+import azar.gallery.entities.db.GpsMetadata;
+import azar.gallery.entities.db.PhotoMetadata;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.Test;
+
+class PhotoMetadataExtractorTest {
+
+    private final PhotoMetadataExtractor extractor = new PhotoMetadataExtractor();
+
+    @Test
+    void extract_southWestLocation_keepsTheSigns() throws IOException {
+        byte[] photo = ExifTestData.withExif(ExifTestData.jpeg(40, 30, Color.RED), "Cam",
+                ExifTestData.gps("S", 33.8688, "W", 151.2093, 0, 58.5));
+
+        PhotoMetadata metadata = extractor.extractMetadataFromBytes(photo);
+
+        GpsMetadata gps = metadata.getGps();
+        assertThat(gps.getLatitude()).isCloseTo(-33.8688, within(1e-6));
+        assertThat(gps.getLongitude()).isCloseTo(-151.2093, within(1e-6));
+        assertThat(gps.getAltitude()).isCloseTo(58.5, within(1e-9));
+        assertThat(metadata.getCameraMake()).isEqualTo("Cam");
+        assertThat(metadata.getImageWidth()).startsWith("40");
+    }
+
+    @Test
+    void extract_belowSeaLevel_negatesAltitude() throws IOException {
+        byte[] photo = ExifTestData.withExif(ExifTestData.jpeg(40, 30, Color.RED), "Cam",
+                ExifTestData.gps("N", 31.5, "E", 35.5, 1, 430.25));
+
+        GpsMetadata gps = extractor.extractMetadataFromBytes(photo).getGps();
+
+        assertThat(gps.getLatitude()).isCloseTo(31.5, within(1e-6));
+        assertThat(gps.getAltitude()).isCloseTo(-430.25, within(1e-9));
+    }
+
+    @Test
+    void extract_coordinatesWrittenAsText_fallsBackToParsingThem() throws IOException {
+        ExifTestData.Ifd gps = new ExifTestData.Ifd()
+                .ascii(0x0001, "S")
+                .ascii(0x0002, "12° 30' 36.00\"")
+                .ascii(0x0004, "45° 15' 0.00\"");
+        byte[] photo = ExifTestData.withExif(ExifTestData.jpeg(40, 30, Color.RED), "Cam", gps);
+
+        GpsMetadata location = extractor.extractMetadataFromBytes(photo).getGps();
+
+        assertThat(location.getLatitude()).isCloseTo(-12.51, within(1e-9));
+        assertThat(location.getLongitude()).isCloseTo(45.25, within(1e-9));
+        assertThat(location.getAltitude()).isNull();
+    }
+
+    @Test
+    void extract_withoutExif_leavesLocationEmpty() throws IOException {
+        PhotoMetadata metadata = extractor.extractMetadataFromBytes(ExifTestData.jpeg(40, 30, Color.RED));
+
+        assertThat(metadata.getGps().getLatitude()).isNull();
+        assertThat(metadata.getGps().getLongitude()).isNull();
+        assertThat(metadata.getCameraMake()).isEmpty();
+    }
+
+    @Test
+    void extractAltitude_readsTheFirstNumber() {
+        assertThat(extractor.extractAltitude("-12.5 metres")).isEqualTo(-12.5);
+        assertThat(extractor.extractAltitude("unknown")).isEqualTo(0.0);
+        assertThat(extractor.extractAltitude(null)).isEqualTo(0.0);
+    }
+
+}
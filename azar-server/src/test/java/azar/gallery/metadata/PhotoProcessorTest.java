@@ -0,0 +1,116 @@
+package azar.gallery.metadata;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.imageio.ImageIO;
+import azar.shared.images.ImageFormat;
+import azar.testinfra.TestDataFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class PhotoProcessorTest {
+
+    private final PhotoProcessor processor = new PhotoProcessor(new PhotoMetadataExtractor(),
+            TestDataFactory.thumbnailEncoder("jpeg"));
+
+    @Test
+    void process_withoutEmbeddedThumbnail_decodesThePhoto() throws IOException {
+        byte[] photo = jpeg(2000, 1500, Color.RED);
+
+        ProcessedPhoto processed = processor.process(photo);
+
+        assertThat(ImageFormat.detect(processed.getThumbnail())).isEqualTo(ImageFormat.JPEG);
+        BufferedImage thumbnail = read(processed.getThumbnail());
+        assertThat(thumbnail.getWidth()).isEqualTo(100);
+        assertThat(thumbnail.getHeight()).isEqualTo(75);
+        assertThat(isRed(thumbnail)).isTrue();
+        assertThat(processed.getPhotoMetadata().getImageWidth()).startsWith("2000");
+    }
+
+    @Test
+    void process_withEmbeddedThumbnail_usesItInsteadOfDecodingThePhoto() throws IOException {
+        byte[] photo = withExifThumbnail(jpeg(2000, 1500, Color.RED), jpeg(160, 120, Color.BLUE));
+
+        ProcessedPhoto processed = processor.process(photo);
+
+        BufferedImage thumbnail = read(processed.getThumbnail());
+        assertThat(thumbnail.getWidth()).isEqualTo(100);
+        assertThat(isRed(thumbnail)).isFalse();
+        assertThat(processed.getPhotoMetadata().getCameraMake()).isEqualTo("Cam");
+    }
+
+    @Test
+    void process_withLetterboxedEmbeddedThumbnail_decodesThePhoto() throws IOException {
+        byte[] photo = withExifThumbnail(jpeg(1500, 2000, Color.RED), jpeg(160, 120, Color.BLUE));
+
+        ProcessedPhoto processed = processor.process(photo);
+
+        BufferedImage thumbnail = read(processed.getThumbnail());
+        assertThat(thumbnail.getHeight()).isEqualTo(133);
+        assertThat(isRed(thumbnail)).isTrue();
+    }
+
+    @Test
+    void process_notAnImage_returnsEmptyThumbnail() {
+        ProcessedPhoto processed = processor.process("not an image".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(processed.getThumbnail()).isEmpty();
+        assertThat(processed.getPhotoMetadata()).isNotNull();
+    }
+
+    private static boolean isRed(BufferedImage image) {
+        Color center = new Color(image.getRGB(image.getWidth() / 2, image.getHeight() / 2));
+        return center.getRed() > 200 && center.getBlue() < 50;
+    }
+
+    private static BufferedImage read(byte[] image) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(image));
+    }
+
+    private static byte[] jpeg(int width, int height, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Inserts an EXIF APP1 segment right after SOI, with IFD0 holding the camera make
+     * and IFD1 pointing at the embedded thumbnail.
+     */
+    private static byte[] withExifThumbnail(byte[] jpeg, byte[] thumbnail) {
+        int ifd1 = 8 + 2 + 12 + 4;
+        int thumbnailOffset = ifd1 + 2 + 3 * 12 + 4;
+        ByteBuffer tiff = ByteBuffer.allocate(thumbnailOffset + thumbnail.length);
+        tiff.put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8);
+        // IFD0: Make = "Cam"
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x010F).putShort((short) 2).putInt(4).put("Cam\0".getBytes(StandardCharsets.US_ASCII));
+        tiff.putInt(ifd1);
+        // IFD1: JPEG compression, thumbnail offset and length
+        tiff.putShort((short) 3);
+        tiff.putShort((short) 0x0103).putShort((short) 3).putInt(1).putShort((short) 6).putShort((short) 0);
+        tiff.putShort((short) 0x0201).putShort((short) 4).putInt(1).putInt(thumbnailOffset);
+        tiff.putShort((short) 0x0202).putShort((short) 4).putInt(1).putInt(thumbnail.length);
+        tiff.putInt(0);
+        tiff.put(thumbnail);
+
+        byte[] preamble = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        int segmentLength = 2 + preamble.length + tiff.capacity();
+        ByteBuffer result = ByteBuffer.allocate(jpeg.length + 2 + segmentLength);
+        result.put(jpeg, 0, 2);
+        result.put((byte) 0xFF).put((byte) 0xE1).putShort((short) segmentLength).put(preamble).put(tiff.array());
+        result.put(jpeg, 2, jpeg.length - 2);
+        return result.array();
+    }
+}
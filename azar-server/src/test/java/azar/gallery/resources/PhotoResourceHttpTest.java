@@ -1,7 +1,9 @@
 package azar.gallery.resources;
 
+import java.util.Base64;
 import java.util.List;
 import azar.gallery.dal.service.PhotoService;
+import azar.gallery.entities.db.Photo;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.security.TestSecurity;
@@ -9,6 +11,7 @@ import static io.restassured.RestAssured.given;
 import io.restassured.http.ContentType;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import org.junit.jupiter.api.Test;
 import static org.mockito.Mockito.when;
 
@@ -60,4 +63,54 @@ class PhotoResourceHttpTest {
                 .then()
                 .statusCode(403);
     }
+
+    @Test
+    @TestSecurity(user = "any", roles = {"USER"})
+    void getWithThumbnail_byDefault_sendsBase64() {
+        when(photoService.getWithThumbnailById(7)).thenReturn(photo());
+
+        given()
+                .when().post("/api/g/photo/getWithThumbnail/7")
+                .then()
+                .statusCode(200)
+                .body("thumbnail", equalTo(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4})))
+                .body("data", nullValue());
+    }
+
+    @Test
+    @TestSecurity(user = "any", roles = {"USER"})
+    void getWithThumbnail_referenceMode_sendsUrls() {
+        when(photoService.getWithThumbnailById(7)).thenReturn(photo());
+
+        given()
+                .queryParam("binary", "reference")
+                .when().post("/api/g/photo/getWithThumbnail/7")
+                .then()
+                .statusCode(200)
+                .body("thumbnail", equalTo("/api/g/photo/thumbnail/7"));
+    }
+
+    @Test
+    @TestSecurity(user = "any", roles = {"USER"})
+    void getWithThumbnail_gsonReferenceHeader_sendsUrls() {
+        when(photoService.getWithThumbnailById(7)).thenReturn(photo().toBuilder().data(new byte[]{9}).build());
+
+        given()
+                .accept("application/gson+json")
+                .header("X-Binary-Mode", "reference")
+                .when().post("/api/g/photo/getWithThumbnail/7")
+                .then()
+                .statusCode(200)
+                .body("thumbnail", equalTo("/api/g/photo/thumbnail/7"))
+                .body("data", equalTo("/api/g/photo/7/original"));
+    }
+
+    private static Photo photo() {
+        return Photo.builder()
+                .id(7)
+                .name("p.jpg")
+                .description("")
+                .thumbnail(new byte[]{1, 2, 3, 4})
+                .build();
+    }
 }
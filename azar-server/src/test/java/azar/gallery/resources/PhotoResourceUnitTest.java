@@ -1,23 +1,46 @@
 package azar.gallery.resources;
 
+import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.Map;
+import azar.gallery.dal.service.PhotoRenditionService;
 import azar.gallery.dal.service.PhotoService;
 import azar.gallery.entities.db.GpsMetadata;
 import azar.gallery.entities.db.Photo;
 import azar.gallery.entities.db.PhotoMetadata;
+import azar.gallery.entities.db.PhotoRendition;
 import azar.gallery.entities.requests.photo.PhotoUpdateRequest;
+import azar.gallery.entities.responses.PhotoIdsResponse;
+import azar.gallery.entities.responses.PhotoImportResponse;
+import azar.gallery.entities.responses.PhotoImportResult;
+import azar.gallery.entities.responses.PhotoPageResponse;
 import azar.gallery.managers.GeocodeManager;
-import azar.gallery.metadata.PhotoMetadataExtractor;
+import azar.gallery.managers.PhotoImportManager;
+import azar.gallery.metadata.PhotoProcessor;
+import azar.shared.dal.blob.BlobRef;
+import azar.shared.entities.db.Blob;
+import azar.shared.images.ImageFormat;
+import azar.shared.images.ThumbnailEncoder;
 import azar.testinfra.BaseUnitTest;
 import azar.testinfra.ResourceTestUtil;
+import azar.testinfra.TestDataFactory;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import static org.assertj.core.api.Assertions.assertThat;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class PhotoResourceUnitTest extends BaseUnitTest {
@@ -33,9 +56,15 @@ class PhotoResourceUnitTest extends BaseUnitTest {
     @Mock
     PhotoService photoService;
     @Mock
-    PhotoMetadataExtractor photoMetadataExtractor;
+    PhotoProcessor photoProcessor;
     @Mock
     GeocodeManager geocodeManager;
+    @Mock
+    PhotoImportManager photoImportManager;
+    @Mock
+    PhotoRenditionService photoRenditionService;
+    @Spy
+    ThumbnailEncoder thumbnailEncoder = TestDataFactory.thumbnailEncoder("jpeg");
 
     @InjectMocks
     PhotoResource resource;
@@ -135,4 +164,211 @@ class PhotoResourceUnitTest extends BaseUnitTest {
         Response r = resource.updatePhoto(req);
         assertThat(r.getStatus()).isEqualTo(500);
     }
+
+    @Test
+    void getPage_limitOutOfRange_returns400() {
+        Response r = resource.getPage(null, 0, true);
+        assertThat(r.getStatus()).isEqualTo(400);
+        verify(photoService, never()).getPage(any(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void getPage_malformedCursor_returns400() {
+        when(photoService.getPage("bad", 10, true)).thenThrow(new IllegalArgumentException("Malformed cursor bad"));
+        Response r = resource.getPage("bad", 10, true);
+        assertThat(r.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    void getPage_returnsPageFromService() {
+        PhotoPageResponse page = new PhotoPageResponse(List.of(Photo.builder().id(1).build()), "next", 1L);
+        when(photoService.getPage("c", 10, false)).thenReturn(page);
+        Response r = resource.getPage("c", 10, false);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getEntity()).isSameAs(page);
+    }
+
+    @Test
+    void getThumbnail_missingPhoto_returns404() {
+        when(photoService.getThumbnailHash(14)).thenReturn(null);
+        Response r = resource.getThumbnail(14);
+        assertThat(r.getStatus()).isEqualTo(404);
+        verify(photoService, never()).getThumbnailById(anyInt());
+    }
+
+    @Test
+    void getThumbnail_returnsImageBytes() {
+        byte[] thumbnail = {1, 2, 3};
+        when(photoService.getThumbnailHash(15)).thenReturn("t15");
+        when(photoService.getThumbnailById(15)).thenReturn(thumbnail);
+        Response r = resource.getThumbnail(15);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("Content-Length")).isEqualTo("3");
+        assertThat(r.getHeaderString("ETag")).isEqualTo("\"t15\"");
+        assertThat(r.getEntity()).isSameAs(thumbnail);
+    }
+
+    @Test
+    void getThumbnail_matchingETag_returns304WithoutReadingIt() {
+        when(photoService.getThumbnailHash(17)).thenReturn("t17");
+        ResourceTestUtil.injectMockRoutingContext(resource, "/api/g/photo", Map.of("If-None-Match", "\"t17\""));
+
+        Response r = resource.getThumbnail(17);
+        assertThat(r.getStatus()).isEqualTo(304);
+        assertThat(r.getHeaderString("Vary")).isEqualTo("Accept");
+        verify(photoService, never()).getThumbnailById(anyInt());
+    }
+
+    @Test
+    void getThumbnail_sendsStoredFormatAsContentType() throws Exception {
+        byte[] thumbnail = ImageFormat.JPEG.encode(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), 0.8f);
+        when(photoService.getThumbnailHash(16)).thenReturn("t16");
+        when(photoService.getThumbnailById(16)).thenReturn(thumbnail);
+        ResourceTestUtil.injectMockRoutingContext(resource, "/api/g/photo", Map.of("Accept", "image/webp,image/*"));
+
+        Response r = resource.getThumbnail(16);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("Content-Type")).isEqualTo("image/jpeg");
+        assertThat(r.getHeaderString("Vary")).isEqualTo("Accept");
+        assertThat(r.getEntity()).isSameAs(thumbnail);
+    }
+
+    @Test
+    void getIdList_sendsVersionAsETag() {
+        when(photoService.getPhotoIds()).thenReturn(new PhotoIdsResponse("v1", List.of(1, 2)));
+        Response r = resource.getIdList();
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("ETag")).isEqualTo("W/\"v1\"");
+    }
+
+    @Test
+    void getIdList_matchingVersion_returns304() {
+        when(photoService.getPhotoIds()).thenReturn(new PhotoIdsResponse("v1", List.of(1, 2)));
+        ResourceTestUtil.injectMockRoutingContext(resource, "/api/g/photo", Map.of("If-None-Match", "W/\"v1\""));
+        Response r = resource.getIdList();
+        assertThat(r.getStatus()).isEqualTo(304);
+        assertThat(r.getEntity()).isNull();
+    }
+
+    @Test
+    void getInArea_invertedBox_returnsBadRequest() {
+        Response r = resource.getInArea(10, 5, 0, 1, 10);
+        assertThat(r.getStatus()).isEqualTo(400);
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void getNearest_missingLocation_returnsBadRequest() {
+        Response r = resource.getNearest(null, 34.78, 5);
+        assertThat(r.getStatus()).isEqualTo(400);
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void getNear_delegatesToService() {
+        Photo p = Photo.builder().id(8).name("n").build();
+        when(photoService.getWithinRadius(32.08, 34.78, 2, 50)).thenReturn(List.of(p));
+        Response r = resource.getNear(32.08, 34.78, 2, 50);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat((List<Photo>) r.getEntity()).containsExactly(p);
+    }
+
+    @Test
+    void uploadPhotos_noFiles_returnsBadRequest() {
+        Response r = resource.uploadPhotos(List.of());
+        assertThat(r.getStatus()).isEqualTo(400);
+        verifyNoInteractions(photoImportManager);
+    }
+
+    @Test
+    void uploadPhotos_returnsImportReport() {
+        FileUpload upload = mock(FileUpload.class);
+        PhotoImportResponse report = new PhotoImportResponse(1, 1, List.of(
+                PhotoImportResult.imported("a.jpg", 4), PhotoImportResult.failed("b.mov", "Not a supported image")));
+        when(photoImportManager.importPhotos(List.of(upload))).thenReturn(report);
+
+        Response r = resource.uploadPhotos(List.of(upload));
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getEntity()).isSameAs(report);
+    }
+
+    @Test
+    void getRendition_unsupportedSize_returnsBadRequest() {
+        when(photoRenditionService.isSupportedSize(333)).thenReturn(false);
+        when(photoRenditionService.getSizes()).thenReturn(List.of(200, 800));
+
+        Response r = resource.getRendition(1, 333);
+        assertThat(r.getStatus()).isEqualTo(400);
+        verify(photoRenditionService, never()).getOrCreate(anyInt(), anyInt());
+    }
+
+    @Test
+    void getRendition_sendsJpegWithContentHashETag() {
+        PhotoRendition rendition = PhotoRendition.builder().photoId(1).size(800).contentHash("abc").contentType("image/jpeg").build();
+        when(photoRenditionService.isSupportedSize(800)).thenReturn(true);
+        when(photoRenditionService.getOrCreate(1, 800)).thenReturn(rendition);
+        when(photoRenditionService.readContent(rendition)).thenReturn(new byte[]{1, 2, 3});
+
+        Response r = resource.getRendition(1, 800);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("Content-Type")).isEqualTo("image/jpeg");
+        assertThat(r.getHeaderString("ETag")).isEqualTo("\"abc\"");
+    }
+
+    @Test
+    void getRendition_missingPhoto_returnsNotFound() {
+        when(photoRenditionService.isSupportedSize(200)).thenReturn(true);
+        when(photoRenditionService.getOrCreate(9, 200)).thenReturn(null);
+
+        assertThat(resource.getRendition(9, 200).getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void getOriginal_missingPhoto_returnsNotFound() {
+        when(photoService.getDataRef(20)).thenReturn(null);
+
+        assertThat(resource.getOriginal(20, null).getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void getOriginal_streamsWholePhotoWithItsContentType() {
+        BlobRef ref = dataRef();
+        StreamingOutput body = output -> {
+        };
+        when(photoService.getDataRef(21)).thenReturn(ref);
+        when(photoService.responseBody(ref, 0, 100)).thenReturn(body);
+
+        Response r = resource.getOriginal(21, null);
+        assertThat(r.getStatus()).isEqualTo(200);
+        assertThat(r.getHeaderString("Content-Type")).isEqualTo("image/jpeg");
+        assertThat(r.getHeaderString("Content-Length")).isEqualTo("100");
+        assertThat(r.getHeaderString("Accept-Ranges")).isEqualTo("bytes");
+        assertThat(r.getHeaderString("ETag")).isEqualTo("\"d21\"");
+        assertThat(r.getEntity()).isSameAs(body);
+    }
+
+    @Test
+    void getOriginal_withRange_returnsPartialContent() {
+        BlobRef ref = dataRef();
+        when(photoService.getDataRef(22)).thenReturn(ref);
+        when(photoService.responseBody(ref, 50, 50)).thenReturn(new Object());
+
+        Response r = resource.getOriginal(22, "bytes=50-");
+        assertThat(r.getStatus()).isEqualTo(206);
+        assertThat(r.getHeaderString("Content-Range")).isEqualTo("bytes 50-99/100");
+    }
+
+    @Test
+    void getOriginal_matchingETag_returns304BeforeRange() {
+        when(photoService.getDataRef(23)).thenReturn(dataRef());
+        ResourceTestUtil.injectMockRoutingContext(resource, "/api/g/photo", Map.of("If-None-Match", "\"d21\""));
+
+        Response r = resource.getOriginal(23, "bytes=500-");
+        assertThat(r.getStatus()).isEqualTo(304);
+        verify(photoService, never()).responseBody(any(), anyLong(), anyLong());
+    }
+
+    private static BlobRef dataRef() {
+        return new BlobRef("IMG_1.JPG", Blob.builder().hash("d21").storage("postgres").data(1234L).size(100).build());
+    }
 }
@@ -0,0 +1,43 @@
+package azar.gallery.utils;
+
+import java.util.Set;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.Test;
+
+class GeoHashTest {
+
+    @Test
+    void encode_matchesReferenceHashes() {
+        assertThat(GeoHash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(GeoHash.encode(42.6, -5.6, 5)).isEqualTo("ezs42");
+    }
+
+    @Test
+    void cover_smallBox_usesLongPrefixesOfEveryCorner() {
+        Set<String> prefixes = GeoHash.cover(32.07, 32.09, 34.77, 34.79);
+
+        assertThat(prefixes).hasSizeLessThanOrEqualTo(GeoHash.MAX_COVER_CELLS);
+        assertThat(prefixes.iterator().next().length()).isGreaterThanOrEqualTo(4);
+        for (double[] corner : new double[][]{{32.07, 34.77}, {32.07, 34.79}, {32.09, 34.77}, {32.09, 34.79}}) {
+            String hash = GeoHash.encode(corner[0], corner[1], GeoHash.PRECISION);
+            assertThat(prefixes).anyMatch(hash::startsWith);
+        }
+    }
+
+    @Test
+    void cover_wholeWorld_fallsBackToTheEmptyPrefix() {
+        assertThat(GeoHash.cover(-90, 90, -180, 180)).containsExactly("");
+    }
+
+    @Test
+    void cover_hemisphere_usesSingleCharacterCells() {
+        assertThat(GeoHash.cover(0, 90, 0, 180)).hasSize(8).allMatch(prefix -> prefix.length() == 1);
+    }
+
+    @Test
+    void distanceKm_matchesKnownDistance() {
+        // Tel Aviv to Jerusalem
+        assertThat(GeoHash.distanceKm(32.0853, 34.7818, 31.7683, 35.2137)).isCloseTo(53.8, within(1.0));
+    }
+}
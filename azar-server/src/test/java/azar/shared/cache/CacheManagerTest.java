@@ -0,0 +1,185 @@
+package azar.shared.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import azar.shared.entities.responses.CacheStatsResponse;
+import azar.shared.properties.AppProperties;
+import azar.testinfra.BaseUnitTest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+
+class CacheManagerTest extends BaseUnitTest {
+
+    @Mock
+    AppProperties appProperties;
+
+    CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        when(appProperties.getBinaryCacheMaxMb()).thenReturn(1);
+        cacheManager = new CacheManager(appProperties);
+    }
+
+    @Test
+    void binaryCache_recordsHitsAndMisses() {
+        byte[] value = new byte[]{1, 2, 3};
+        cacheManager.putBytes("a", value);
+
+        assertThat(cacheManager.getBytes("a")).isSameAs(value);
+        assertThat(cacheManager.getBytes("b")).isNull();
+
+        CacheStatsResponse stats = cacheManager.getStats().get(CacheKeys.BINARY_REGION);
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getWeight()).isEqualTo(3);
+        assertThat(stats.getLimit()).isEqualTo(1024 * 1024);
+    }
+
+    @Test
+    void binaryCache_evictsWhenBudgetIsExceeded() {
+        for (int i = 0; i < 8; i++) {
+            cacheManager.putBytes("k" + i, new byte[256 * 1024]);
+        }
+
+        CacheStatsResponse stats = cacheManager.getStats().get(CacheKeys.BINARY_REGION);
+        assertThat(stats.getWeight()).isLessThanOrEqualTo(1024 * 1024);
+        assertThat(stats.getEvictionCount()).isGreaterThan(0);
+    }
+
+    @Test
+    void region_getOrLoad_readsThroughAndCaches() {
+        AtomicInteger loads = new AtomicInteger();
+        CacheRegion<Integer, String> region = cacheManager.region(CacheRegionSpec.<Integer, String>builder()
+                .name("numbers")
+                .valueType(String.class)
+                .ttl(Duration.ofMinutes(1))
+                .loader(key -> {
+                    loads.incrementAndGet();
+                    return "n" + key;
+                })
+                .build());
+
+        assertThat(region.getOrLoad(1)).isEqualTo("n1");
+        assertThat(region.getOrLoad(1)).isEqualTo("n1");
+        assertThat(loads).hasValue(1);
+        assertThat(cacheManager.getStats()).containsKeys("numbers", CacheKeys.DEFAULT_REGION, CacheKeys.BINARY_REGION);
+    }
+
+    @Test
+    void region_getOrLoad_nullIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        CacheRegion<String, String> region = cacheManager.region(CacheRegionSpec.<String, String>builder()
+                .name("nulls")
+                .valueType(String.class)
+                .build());
+
+        assertThat(region.getOrLoad("a", key -> {
+            loads.incrementAndGet();
+            return null;
+        })).isNull();
+        assertThat(region.getOrLoad("a", key -> {
+            loads.incrementAndGet();
+            return "x";
+        })).isEqualTo("x");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void region_getOrLoad_collapsesConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CacheRegion<String, String> region = cacheManager.region(CacheRegionSpec.<String, String>builder()
+                .name("slow")
+                .valueType(String.class)
+                .loader(key -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "v";
+                })
+                .build());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> region.getOrLoad("k"));
+            loading.await();
+            Future<String> second = executor.submit(() -> region.getOrLoad("k"));
+            Future<String> third = executor.submit(() -> region.getOrLoad("k"));
+            release.countDown();
+
+            assertThat(first.get()).isEqualTo("v");
+            assertThat(second.get()).isEqualTo("v");
+            assertThat(third.get()).isEqualTo("v");
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void region_sameNameWithOtherValueType_isRejected() {
+        assertThatThrownBy(() -> cacheManager.region(CacheRegionSpec.<String, Integer>builder()
+                .name(CacheKeys.DEFAULT_REGION)
+                .valueType(Integer.class)
+                .build()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void region_sameNameWithOtherTtlOrBound_isRejected() {
+        assertThatThrownBy(() -> cacheManager.region(CacheRegionSpec.<String, String>builder()
+                .name(CacheKeys.DEFAULT_REGION)
+                .valueType(String.class)
+                .ttl(Duration.ofMinutes(5))
+                .maximumSize(10000)
+                .build()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("ttl");
+        assertThatThrownBy(() -> cacheManager.region(CacheRegionSpec.<String, String>builder()
+                .name(CacheKeys.DEFAULT_REGION)
+                .valueType(String.class)
+                .ttl(Duration.ofHours(1))
+                .maximumSize(10)
+                .build()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("maximum size");
+        assertThatThrownBy(() -> cacheManager.region(CacheRegionSpec.<String, String>builder()
+                .name(CacheKeys.DEFAULT_REGION)
+                .valueType(String.class)
+                .ttl(Duration.ofHours(1))
+                .maximumWeight(10000)
+                .weigher(String::length)
+                .build()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("weigher");
+    }
+
+    @Test
+    void region_sameNameWithSameSpec_returnsTheSameRegion() {
+        CacheRegionSpec<String, Long> spec = CacheRegionSpec.<String, Long>builder()
+                .name("counts")
+                .valueType(Long.class)
+                .build();
+        CacheRegion<String, Long> region = cacheManager.region(spec);
+
+        assertThat(cacheManager.region(spec)).isSameAs(region);
+        assertThat(cacheManager.region(CacheRegionSpec.<String, Long>builder()
+                .name("counts")
+                .valueType(Long.class)
+                .build())).isSameAs(region);
+    }
+}
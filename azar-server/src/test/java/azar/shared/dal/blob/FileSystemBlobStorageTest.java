@@ -0,0 +1,74 @@
+package azar.shared.dal.blob;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import azar.shared.entities.db.Blob;
+import azar.testinfra.BaseUnitTest;
+import azar.testinfra.TempDirUtil;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.jboss.resteasy.reactive.PathPart;
+import org.junit.jupiter.api.Test;
+
+class FileSystemBlobStorageTest extends BaseUnitTest {
+
+    private static final String HASH = "abcdef0123456789";
+
+    @Test
+    void write_bytes_storesShardedFileThatReadsBack() throws Exception {
+        try (TempDirUtil tmp = TempDirUtil.create()) {
+            FileSystemBlobStorage storage = new FileSystemBlobStorage(tmp.resolve("blobs"));
+
+            Blob blob = storage.write(HASH, "hello".getBytes(StandardCharsets.UTF_8));
+
+            assertThat(blob.getStorage()).isEqualTo(FileSystemBlobStorage.NAME);
+            assertThat(blob.getLocation()).startsWith("ab/cd/" + HASH);
+            assertThat(blob.getSize()).isEqualTo(5);
+            assertThat(storage.read(blob)).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void write_sameContentTwice_usesSeparateFiles() throws Exception {
+        try (TempDirUtil tmp = TempDirUtil.create()) {
+            FileSystemBlobStorage storage = new FileSystemBlobStorage(tmp.resolve("blobs"));
+            Path file = tmp.writeString("a.pdf", "pdf content");
+
+            Blob first = storage.write(HASH, file);
+            Blob second = storage.write(HASH, file);
+            storage.delete(first);
+
+            assertThat(first.getLocation()).isNotEqualTo(second.getLocation());
+            assertThat(Files.exists(tmp.resolve("blobs").resolve(first.getLocation()))).isFalse();
+            assertThat(storage.read(second)).isEqualTo("pdf content".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void stream_range_sendsOnlyTheSlice() throws Exception {
+        try (TempDirUtil tmp = TempDirUtil.create()) {
+            FileSystemBlobStorage storage = new FileSystemBlobStorage(tmp.resolve("blobs"));
+            Blob blob = storage.write(HASH, "0123456789".getBytes(StandardCharsets.UTF_8));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            storage.stream(blob, 3, 4).write(output);
+
+            assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("3456");
+        }
+    }
+
+    @Test
+    void responseBody_isTheFileRegionOfTheSlice() throws Exception {
+        try (TempDirUtil tmp = TempDirUtil.create()) {
+            FileSystemBlobStorage storage = new FileSystemBlobStorage(tmp.resolve("blobs"));
+            Blob blob = storage.write(HASH, "0123456789".getBytes(StandardCharsets.UTF_8));
+
+            PathPart body = (PathPart) storage.responseBody(blob, 3, 4);
+
+            assertThat(body.file).isEqualTo(tmp.resolve("blobs").toAbsolutePath().resolve(blob.getLocation()));
+            assertThat(body.offset).isEqualTo(3);
+            assertThat(body.count).isEqualTo(4);
+        }
+    }
+}
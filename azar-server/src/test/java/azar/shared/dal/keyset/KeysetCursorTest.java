@@ -0,0 +1,76 @@
+package azar.shared.dal.keyset;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    private final KeysetSort<Row> byName = KeysetSort.<Row>named("name")
+            .asc("r.name", String.class, Row::name)
+            .thenById("r.id", Long.class, Row::id);
+    private final KeysetSort<Row> byTime = KeysetSort.<Row>named("time")
+            .desc("r.at", Instant.class, Row::at)
+            .thenById("r.id", Long.class, Row::id);
+
+    @Test
+    void decode_readsBackTheEncodedPosition() {
+        Row row = new Row(42L, "a|b.c\nd", Instant.parse("2026-01-01T10:00:00.123456Z"));
+
+        assertThat(KeysetCursor.decode(byName, KeysetCursor.encode(byName, row))).containsExactly("a|b.c\nd", 42L);
+        assertThat(KeysetCursor.decode(byTime, KeysetCursor.encode(byTime, row))).containsExactly(row.at(), 42L);
+    }
+
+    @Test
+    void decode_blankCursor_isTheFirstPage() {
+        assertThat(KeysetCursor.decode(byName, null)).isNull();
+        assertThat(KeysetCursor.decode(byName, " ")).isNull();
+    }
+
+    @Test
+    void decode_cursorOfAnotherSort_throws() {
+        String cursor = KeysetCursor.encode(byTime, new Row(1L, "a", Instant.EPOCH));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(byName, cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("doesn't belong to sort name");
+    }
+
+    @Test
+    void decode_malformedCursor_throws() {
+        String badTime = Base64.getUrlEncoder().encodeToString(String.join("\0", "time", "yesterday", "1").getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(byName, "not base64!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(byTime, badTime))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Malformed cursor");
+    }
+
+    private static class Row {
+        private final Long id;
+        private final String name;
+        private final Instant at;
+
+        private Row(Long id, String name, Instant at) {
+            this.id = id;
+            this.name = name;
+            this.at = at;
+        }
+
+        private Long id() {
+            return id;
+        }
+
+        private String name() {
+            return name;
+        }
+
+        private Instant at() {
+            return at;
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package azar.shared.dal.keyset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+class KeysetSortTest {
+
+    @Test
+    void idOnly_seeksPastTheId() {
+        KeysetSort<Long> sort = KeysetSort.<Long>named("id").thenById("p.id", Long.class, id -> id);
+
+        assertThat(sort.orderBy()).isEqualTo("p.id asc");
+        assertThat(sort.after()).isEqualTo("p.id > :keyset0");
+    }
+
+    @Test
+    void descendingKey_tiebreakerFollowsItsDirection() {
+        KeysetSort<Long> sort = KeysetSort.<Long>named("newest")
+                .desc("p.uploadedAt", String.class, id -> "")
+                .thenById("p.id", Long.class, id -> id);
+
+        assertThat(sort.orderBy()).isEqualTo("p.uploadedAt desc, p.id desc");
+        assertThat(sort.after()).isEqualTo(
+                "p.uploadedAt <= :keyset0 and (p.uploadedAt < :keyset0 or (p.uploadedAt = :keyset0 and (p.id < :keyset1)))");
+    }
+
+    @Test
+    void mixedKeys_eachOneSeeksInItsOwnDirection() {
+        KeysetSort<Long> sort = KeysetSort.<Long>named("mixed")
+                .asc("p.a", String.class, id -> "")
+                .desc("p.b", Integer.class, id -> 0)
+                .thenById("p.id", Long.class, id -> id);
+
+        assertThat(sort.orderBy()).isEqualTo("p.a asc, p.b desc, p.id desc");
+        assertThat(sort.after()).isEqualTo("p.a >= :keyset0 and (p.a > :keyset0 or (p.a = :keyset0 and " +
+                "(p.b < :keyset1 or (p.b = :keyset1 and (p.id < :keyset2)))))");
+    }
+
+    @Test
+    void unsupportedKeyType_isRejected() {
+        assertThatThrownBy(() -> KeysetSort.<Long>named("bad").asc("p.bytes", byte[].class, id -> null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,118 @@
+package azar.shared.dal.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import azar.shared.dal.blob.BlobStorage;
+import azar.shared.dal.dao.BlobDao;
+import azar.shared.entities.db.Blob;
+import azar.shared.properties.AppProperties;
+import azar.shared.utils.Utilities;
+import azar.testinfra.BaseUnitTest;
+import azar.testinfra.TempDirUtil;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlobServiceUnitTest extends BaseUnitTest {
+
+    @Mock
+    BlobDao blobDao;
+    @Mock
+    AppProperties appProperties;
+    @Mock
+    BlobStorage storage;
+    @Mock
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    BlobService service;
+
+    @BeforeEach
+    void setUp() {
+        when(storage.getName()).thenReturn("filesystem");
+        when(appProperties.getBlobStorage()).thenReturn("filesystem");
+        service = new BlobService(blobDao, appProperties, List.of(storage), transactionSynchronizationRegistry);
+    }
+
+    @Test
+    void store_existingContent_onlyAddsReference() throws Exception {
+        byte[] data = {1, 2, 3};
+        String hash = Utilities.sha256Hex(data);
+        Blob existing = Blob.builder().hash(hash).storage("filesystem").location("a").size(3).build();
+        when(blobDao.acquire(hash)).thenReturn(existing);
+
+        Blob blob = service.store(data);
+
+        assertThat(blob).isSameAs(existing);
+        verify(storage, never()).write(anyString(), any(byte[].class));
+        verify(blobDao, never()).insertOrAcquire(any());
+    }
+
+    @Test
+    void store_newFile_writesThroughDefaultStorageAndCleansUpOnRollback() throws Exception {
+        try (TempDirUtil tmp = TempDirUtil.create()) {
+            Path file = tmp.writeString("a.pdf", "pdf content");
+            String hash = Utilities.sha256Hex(file);
+            Blob written = Blob.builder().hash(hash).storage("filesystem").location("new").size(11).build();
+            when(storage.write(hash, file)).thenReturn(written);
+            when(storage.isTransactional()).thenReturn(false);
+            when(blobDao.insertOrAcquire(written)).thenReturn(written);
+
+            Blob blob = service.store(file);
+
+            assertThat(blob.getLocation()).isEqualTo("new");
+            ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+            verify(transactionSynchronizationRegistry).registerInterposedSynchronization(synchronization.capture());
+            synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+            verify(storage, never()).delete(any());
+            synchronization.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+            verify(storage).delete(written);
+        }
+    }
+
+    @Test
+    void store_concurrentlyStoredContent_dropsOwnCopy() throws Exception {
+        byte[] data = {4, 5};
+        String hash = Utilities.sha256Hex(data);
+        Blob written = Blob.builder().hash(hash).storage("filesystem").location("ours").size(2).build();
+        when(storage.write(hash, data)).thenReturn(written);
+        when(blobDao.insertOrAcquire(written))
+                .thenReturn(Blob.builder().hash(hash).storage("filesystem").location("theirs").size(2).build());
+
+        Blob blob = service.store(data);
+
+        assertThat(blob.getLocation()).isEqualTo("theirs");
+        verify(storage).delete(written);
+    }
+
+    @Test
+    void release_lastReference_deletesContentAfterCommit() throws Exception {
+        Blob deleted = Blob.builder().hash("h").storage("filesystem").location("x").size(1).build();
+        when(blobDao.release("h")).thenReturn(deleted);
+        when(storage.isTransactional()).thenReturn(false);
+
+        service.release("h");
+
+        verify(storage, never()).delete(any());
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionSynchronizationRegistry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+        verify(storage).delete(deleted);
+    }
+
+    @Test
+    void release_nullHash_isIgnored() {
+        service.release(null);
+
+        verify(blobDao, never()).release(any());
+    }
+}
@@ -0,0 +1,108 @@
+package azar.shared.images;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import azar.shared.cache.CacheManager;
+import azar.shared.properties.AppProperties;
+import azar.testinfra.BaseUnitTest;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ThumbnailEncoderTest extends BaseUnitTest {
+
+    @Mock
+    AppProperties appProperties;
+    @Mock
+    CacheManager cacheManager;
+
+    @Test
+    void constructor_formatWithoutWriter_fallsBackToJpeg() {
+        assertThat(encoder("webp").getFormat()).isEqualTo(ImageFormat.WEBP.isWritable() ? ImageFormat.WEBP : ImageFormat.JPEG);
+        assertThat(encoder("gif").getFormat()).isEqualTo(ImageFormat.JPEG);
+    }
+
+    @Test
+    void encode_transparentImage_writesJpegOnWhite() throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+
+        byte[] thumbnail = encoder("jpg").encode(image);
+
+        assertThat(ImageFormat.detect(thumbnail)).isEqualTo(ImageFormat.JPEG);
+    }
+
+    @Test
+    void negotiate_storedFormatAccepted_sendsStoredBytes() throws IOException {
+        byte[] png = ImageFormat.PNG.encode(image(), 1f);
+
+        EncodedImage image = encoder("jpeg").negotiate(png, "image/avif,image/webp,image/apng,image/*,*/*;q=0.8");
+
+        assertThat(image.isTranscoded()).isFalse();
+        assertThat(image.getData()).isSameAs(png);
+        assertThat(image.getMediaType()).isEqualTo("image/png");
+        verify(cacheManager, never()).getBytes(any());
+    }
+
+    @Test
+    void negotiate_storedFormatExcluded_transcodesAndCachesVariant() throws IOException {
+        byte[] png = ImageFormat.PNG.encode(image(), 1f);
+
+        EncodedImage image = encoder("jpeg").negotiate(png, "image/png;q=0, image/*");
+
+        assertThat(image.isTranscoded()).isTrue();
+        assertThat(image.getFormat()).isEqualTo(ImageFormat.JPEG);
+        assertThat(ImageFormat.detect(image.getData())).isEqualTo(ImageFormat.JPEG);
+        verify(cacheManager).putBytes(any(), any());
+    }
+
+    @Test
+    void negotiate_unknownBytes_sendsThemAsTheyAre() {
+        byte[] data = {1, 2, 3};
+
+        EncodedImage image = encoder("jpeg").negotiate(data, "image/jpeg");
+
+        assertThat(image.getData()).isSameAs(data);
+        assertThat(image.getMediaType()).isEqualTo("application/octet-stream");
+    }
+
+    @Test
+    void isAccepted_mostSpecificRangeDecides() {
+        assertThat(ThumbnailEncoder.isAccepted(ImageFormat.WEBP, null)).isTrue();
+        assertThat(ThumbnailEncoder.isAccepted(ImageFormat.WEBP, "image/jpeg")).isFalse();
+        assertThat(ThumbnailEncoder.isAccepted(ImageFormat.WEBP, "*/*")).isTrue();
+        assertThat(ThumbnailEncoder.isAccepted(ImageFormat.WEBP, "image/webp;q=0, */*")).isFalse();
+        assertThat(ThumbnailEncoder.isAccepted(ImageFormat.JPEG, "image/webp;q=0, image/*;q=0.5")).isTrue();
+    }
+
+    @Test
+    void toConfiguredFormat_sameFormat_keepsTheBytes() throws IOException {
+        ThumbnailEncoder encoder = encoder("jpeg");
+        byte[] jpeg = ImageFormat.JPEG.encode(image(), 0.8f);
+
+        assertThat(encoder.toConfiguredFormat(jpeg)).isSameAs(jpeg);
+        assertThat(ImageFormat.detect(encoder.toConfiguredFormat(ImageFormat.PNG.encode(image(), 1f)))).isEqualTo(ImageFormat.JPEG);
+        assertThat(encoder.toConfiguredFormat(new byte[]{1, 2, 3})).isNull();
+    }
+
+    private ThumbnailEncoder encoder(String format) {
+        when(appProperties.getThumbnailFormat()).thenReturn(format);
+        when(appProperties.getThumbnailQuality()).thenReturn(0.8f);
+        return new ThumbnailEncoder(appProperties, cacheManager);
+    }
+
+    private static BufferedImage image() {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, 20, 10);
+        graphics.dispose();
+        return image;
+    }
+
+}
@@ -0,0 +1,90 @@
+package azar.shared.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Base64;
+import java.util.Random;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class BinaryJsonWriterTest {
+
+    private final Gson gson = new GsonBuilder()
+            .serializeNulls()
+            .registerTypeAdapterFactory(BinaryJsonWriter.ADAPTER_FACTORY)
+            .create();
+
+    @Test
+    void base64_largeValue_streamsTheSameTextAsTheEncoder() throws IOException {
+        byte[] data = new byte[100_001];
+        new Random(7).nextBytes(data);
+
+        JsonObject json = write(new Owner(5, data, new Owner(6, new byte[]{1}, null)), BinaryMode.BASE64);
+
+        assertThat(json.get("data").getAsString()).isEqualTo(Base64.getEncoder().encodeToString(data));
+        assertThat(json.getAsJsonObject("child").get("data").getAsString()).isEqualTo("AQ==");
+    }
+
+    @Test
+    void reference_ownerFields_becomeUrls() throws IOException {
+        JsonObject json = write(new Owner(5, new byte[]{1, 2}, new Owner(6, new byte[0], null)), BinaryMode.REFERENCE);
+
+        assertThat(json.get("data").getAsString()).isEqualTo("/owner/5");
+        // empty content stays inline
+        assertThat(json.getAsJsonObject("child").get("data").getAsString()).isEmpty();
+    }
+
+    @Test
+    void reference_fieldsOfNestedObjects_stayInline() throws IOException {
+        JsonObject json = write(new Holder(new byte[]{1, 2, 3}, new Owner(5, new byte[]{4}, null)), BinaryMode.REFERENCE);
+
+        assertThat(json.get("blob").getAsString()).isEqualTo("AQID");
+        assertThat(json.getAsJsonObject("owner").get("data").getAsString()).isEqualTo("/owner/5");
+    }
+
+    @Test
+    void read_acceptsBase64AndNumberArrays() {
+        assertThat(gson.fromJson("{\"data\":\"AQID\"}", Owner.class).data).containsExactly(1, 2, 3);
+        assertThat(gson.fromJson("{\"data\":[1,2,-1]}", Owner.class).data).containsExactly(1, 2, -1);
+        assertThat(gson.fromJson("{\"data\":null}", Owner.class).data).isNull();
+    }
+
+    private JsonObject write(Object value, BinaryMode mode) throws IOException {
+        StringWriter writer = new StringWriter();
+        BinaryJsonWriter jsonWriter = new BinaryJsonWriter(writer, mode);
+        gson.toJson(value, value.getClass(), jsonWriter);
+        jsonWriter.flush();
+        return gson.fromJson(writer.toString(), JsonObject.class);
+    }
+
+    private static class Owner implements BinaryOwner {
+        private final int id;
+        private final byte[] data;
+        private final Owner child;
+
+        private Owner(int id, byte[] data, Owner child) {
+            this.id = id;
+            this.data = data;
+            this.child = child;
+        }
+
+        @Override
+        public String binaryUrl(String field) {
+            return "data".equals(field) ? "/owner/" + id : null;
+        }
+    }
+
+    private static class Holder {
+        private final byte[] blob;
+        private final Owner owner;
+
+        private Holder(byte[] blob, Owner owner) {
+            this.blob = blob;
+            this.owner = owner;
+        }
+    }
+
+}
@@ -1,9 +1,12 @@
 package azar.testinfra;
 
 import java.lang.reflect.Field;
+import java.util.Map;
 import azar.shared.resources.BaseResource;
+import io.vertx.core.http.HttpServerRequest;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.RoutingContext;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 
@@ -41,6 +44,18 @@ public final class ResourceTestUtil {
      * @param path     the path to expose via the mock routing context
      */
     public static void injectMockRoutingContext(BaseResource resource, String path) {
+        injectMockRoutingContext(resource, path, Map.of());
+    }
+
+    /**
+     * Same as {@link #injectMockRoutingContext(BaseResource, String)}, additionally exposing the given
+     * request headers via {@code request().getHeader(name)}, e.g. to exercise conditional requests.
+     *
+     * @param resource the resource instance under test
+     * @param path     the path to expose via the mock routing context
+     * @param headers  the request headers to expose
+     */
+    public static void injectMockRoutingContext(BaseResource resource, String path, Map<String, String> headers) {
         try {
             Field f = BaseResource.class.getDeclaredField("routingContext");
             f.setAccessible(true);
@@ -49,6 +64,10 @@ public final class ResourceTestUtil {
             Route route = mock(Route.class);
             lenient().when(route.getPath()).thenReturn(path);
             lenient().when(ctx.currentRoute()).thenReturn(route);
+            HttpServerRequest request = mock(HttpServerRequest.class);
+            lenient().when(request.getHeader(anyString()))
+                    .thenAnswer(invocation -> headers.get(invocation.<String>getArgument(0)));
+            lenient().when(ctx.request()).thenReturn(request);
             f.set(resource, ctx);
         } catch (Exception e) {
             throw new RuntimeException("Failed to inject mock RoutingContext", e);
@@ -1,7 +1,12 @@
 package azar.testinfra;
 
 import java.util.List;
+import azar.shared.cache.CacheManager;
+import azar.shared.images.ThumbnailEncoder;
+import azar.shared.properties.AppProperties;
 import azar.whoami.entities.db.WhoAmIData;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Central place for creating sample test data objects.
@@ -31,4 +36,15 @@ public final class TestDataFactory {
         d.setPhotos(List.of());
         return d;
     }
+
+    /**
+     * Provides a real ThumbnailEncoder for the given format, for tests of code that renders thumbnails.
+     * Transcoded variants go to a mocked CacheManager, so nothing is cached between calls.
+     */
+    public static ThumbnailEncoder thumbnailEncoder(String format) {
+        AppProperties appProperties = mock(AppProperties.class);
+        when(appProperties.getThumbnailFormat()).thenReturn(format);
+        when(appProperties.getThumbnailQuality()).thenReturn(0.8f);
+        return new ThumbnailEncoder(appProperties, mock(CacheManager.class));
+    }
 }
@@ -58,6 +58,34 @@ class WeatherResourceHttpTest {
                 .body("message", equalTo("ok"));
     }
 
+    @Test
+    void weatherByLatLong_upstreamFailed_http502() {
+        when(weatherManager.weatherUsingLatLong(12.3, 45.6)).thenReturn(null);
+
+        String json = "{\n  \"latitude\": 12.3,\n  \"longitude\": 45.6\n}";
+        given()
+                .contentType(ContentType.JSON)
+                .body(json)
+                .when()
+                .post("/api/w/weather/weatherByLatLong")
+                .then()
+                .statusCode(502);
+    }
+
+    @Test
+    void forecastByLatLong_upstreamFailed_http502() {
+        when(weatherManager.forecastUsingLatLong(1.0, 2.0)).thenReturn(null);
+
+        String json = "{\n  \"latitude\": 1.0,\n  \"longitude\": 2.0\n}";
+        given()
+                .contentType(ContentType.JSON)
+                .body(json)
+                .when()
+                .post("/api/w/weather/forecastByLatLong")
+                .then()
+                .statusCode(502);
+    }
+
     @Test
     void citiesByInput_http200() {
         java.util.List<String> cities = java.util.List.of("Paris", "Perth");
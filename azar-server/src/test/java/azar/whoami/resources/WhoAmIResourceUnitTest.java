@@ -1,5 +1,6 @@
 package azar.whoami.resources;
 
+import java.util.Map;
 import azar.testinfra.BaseUnitTest;
 import azar.whoami.dal.service.WhoAmIService;
 import azar.whoami.entities.db.WhoAmIData;
@@ -8,6 +9,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -49,4 +51,31 @@ class WhoAmIResourceUnitTest extends BaseUnitTest {
         assertThat(response.getEntity()).isInstanceOf(WhoAmIData.class);
         verify(whoAmIService).getFirst();
     }
+
+    @Test
+    void getWhoAmI_whenClientHasCurrentVersion_returns304() {
+        when(whoAmIService.getContentHash()).thenReturn("abc");
+        azar.testinfra.ResourceTestUtil.injectMockRoutingContext(resource, "/api/wai/whoami",
+                Map.of("If-None-Match", "W/\"abc\""));
+
+        Response response = resource.getWhoAmI();
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeaderString("ETag")).isEqualTo("W/\"abc\"");
+        verify(whoAmIService, never()).getFirst();
+    }
+
+    @Test
+    void getWhoAmI_whenDataExists_sendsWeakETag() {
+        WhoAmIData data = new WhoAmIData();
+        data.setContentHash("abc");
+        when(whoAmIService.getFirst()).thenReturn(data);
+
+        initCtx();
+        Response response = resource.getWhoAmI();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeaderString("ETag")).isEqualTo("W/\"abc\"");
+        assertThat(response.getEntity()).isSameAs(data);
+    }
 }